@@ -0,0 +1,134 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.report.BatchReportRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 期末批量报表的并行度扩展测试
+ * 用合成数据集依次以1、2、4……个线程运行{@link BatchReportRunner}，每个并行度运行多轮取最快一轮，
+ * 输出报表吞吐量和相对单线程的加速比。
+ * 批量报表的输出与并行度无关，每个并行度写出的文件都要与单线程的长度和CRC32一致，否则报错。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms2g -Xmx2g -cp out com.grademanagement.bench.BatchScalingBenchmark [选项]
+ *   --students 20000       学生数
+ *   --courses 300          课程数
+ *   --per-student 10       每名学生选课数
+ *   --threads 1,2,4,8      并行度列表，默认从1开始逐次翻倍直到处理器数
+ *   --rounds 3             每个并行度的运行轮数，取最快一轮
+ *   --dir /tmp             报表文件所在目录
+ * </pre>
+ */
+public final class BatchScalingBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+
+    private BatchScalingBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int students = 20_000;
+        int courses = 300;
+        int perStudent = 10;
+        List<Integer> threads = null;
+        int rounds = 3;
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = parseList(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--dir": dir = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (threads == null) {
+            threads = defaultThreads(Runtime.getRuntime().availableProcessors());
+        }
+
+        Dataset dataset = new Dataset(students, courses, perStudent);
+        Path file = dir.resolve("grade-batch-scaling.txt");
+        System.out.println("threads,reports,best_ms,reports_per_sec,speedup,bytes");
+        try {
+            // 先充分预热，避免第一个并行度承担即时编译的开销而夸大加速比
+            BatchReportRunner warmup = new BatchReportRunner(dataset.reportGenerator, threads.get(0));
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                warmup.run(file);
+            }
+            double baseline = 0;
+            long expectedBytes = -1;
+            long expectedCrc = 0;
+            for (int parallelism : threads) {
+                BatchReportRunner runner = new BatchReportRunner(dataset.reportGenerator, parallelism);
+                runner.run(file); // 预热
+                BatchReportRunner.BatchSummary best = null;
+                for (int round = 0; round < rounds; round++) {
+                    BatchReportRunner.BatchSummary summary = runner.run(file);
+                    if (best == null || summary.getElapsedNanos() < best.getElapsedNanos()) {
+                        best = summary;
+                    }
+                }
+
+                long crc = crc(file);
+                if (expectedBytes < 0) {
+                    expectedBytes = best.getBytesWritten();
+                    expectedCrc = crc;
+                } else if (best.getBytesWritten() != expectedBytes || crc != expectedCrc) {
+                    throw new IllegalStateException(parallelism + "线程的输出与第一个并行度不一致");
+                }
+                if (baseline == 0) {
+                    baseline = best.getReportsPerSecond();
+                }
+                System.out.printf("%d,%d,%.1f,%.0f,%.2f,%d%n", parallelism, best.getReportCount(),
+                        best.getElapsedNanos() / 1e6, best.getReportsPerSecond(),
+                        best.getReportsPerSecond() / baseline, best.getBytesWritten());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 1、2、4……直到处理器数，处理器数不是2的幂时最后一档取处理器数
+     */
+    private static List<Integer> defaultThreads(int processors) {
+        List<Integer> threads = new ArrayList<>();
+        for (int t = 1; t < processors; t *= 2) {
+            threads.add(t);
+        }
+        threads.add(processors);
+        return threads;
+    }
+
+    private static List<Integer> parseList(String value) {
+        List<Integer> threads = new ArrayList<>();
+        for (String part : value.split(",")) {
+            threads.add(Integer.parseInt(part.trim()));
+        }
+        return threads;
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+}
\ No newline at end of file
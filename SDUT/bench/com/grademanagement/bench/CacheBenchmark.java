@@ -0,0 +1,142 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.report.ReportCache;
+import com.grademanagement.student.Student;
+
+import java.util.Random;
+
+/**
+ * 报表缓存基准
+ * 模拟成绩发布期间的请求流：成绩单和课程报告请求集中在少数热门学生和课程上，夹杂一定比例的成绩录入。
+ * 分别测量直接生成报表和经{@link ReportCache}取报表时每个请求的平均耗时，并输出缓存命中率。
+ * 测量前先检查学生信息变化会使课程报告失效：删除再重新添加一名有成绩的学生后，其所选课程的报告必须重新生成，
+ * 否则抛出异常。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.CacheBenchmark [选项]
+ *   --students 20000       学生数
+ *   --courses 200          课程数
+ *   --per-student 10       每名学生选课数
+ *   --cache 2000           缓存条目数上限
+ *   --write-percent 5      请求中成绩录入所占百分比
+ *   --warmup 1000 --measure 2000 --rounds 3   预热和每轮测量的毫秒数、轮数
+ * </pre>
+ */
+public final class CacheBenchmark {
+    private static final int REQUESTS = 1 << 16;
+
+    private CacheBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 20_000;
+        int courses = 200;
+        int perStudent = 10;
+        int cacheSize = 2000;
+        int writePercent = 5;
+        long warmup = 1000;
+        long measure = 2000;
+        int rounds = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--cache": cacheSize = Integer.parseInt(args[++i]); break;
+                case "--write-percent": writePercent = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Long.parseLong(args[++i]); break;
+                case "--measure": measure = Long.parseLong(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Dataset data = new Dataset(students, courses, perStudent);
+        String params = data.describe() + " cache=" + cacheSize + " write=" + writePercent + "%";
+        checkRoster(data, cacheSize);
+
+        // 请求序列：0为录入成绩，1为成绩单，2为课程报告；学生和课程按幂律偏向靠前的编号
+        Random random = new Random(11);
+        int[] kinds = new int[REQUESTS];
+        int[] targets = new int[REQUESTS];
+        double[] grades = new double[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            kinds[i] = random.nextInt(100) < writePercent ? 0 : 1 + random.nextInt(2);
+            targets[i] = (int) (Math.pow(random.nextDouble(), 3) * (kinds[i] == 2 ? courses : students));
+            grades[i] = Dataset.randomGrade(random);
+        }
+
+        Harness harness = new Harness(warmup, measure, rounds);
+        System.out.println(Harness.Result.HEADER);
+        StringBuilder out = new StringBuilder(64 * 1024);
+        harness.measure("reports.uncached", params, i -> {
+            int r = i & (REQUESTS - 1);
+            out.setLength(0);
+            switch (kinds[r]) {
+                case 0:
+                    write(data, targets[r], i, grades[r]);
+                    break;
+                case 1:
+                    data.reportGenerator.generateStudentTranscript(data.studentIds[targets[r]], out);
+                    break;
+                default:
+                    data.reportGenerator.generateCourseReport(data.courseIds[targets[r]], out);
+                    break;
+            }
+            return out.length();
+        });
+
+        ReportCache cache = new ReportCache(data.reportGenerator, data.studentManager, data.courseManager,
+                data.gradeManager, cacheSize);
+        harness.measure("reports.cached", params, i -> {
+            int r = i & (REQUESTS - 1);
+            switch (kinds[r]) {
+                case 0:
+                    write(data, targets[r], i, grades[r]);
+                    return 0;
+                case 1:
+                    return cache.getStudentTranscript(data.studentIds[targets[r]]).length();
+                default:
+                    return cache.getCourseReport(data.courseIds[targets[r]]).length();
+            }
+        });
+        System.out.println(cache.getStats());
+        cache.close();
+    }
+
+    /**
+     * 第0名学生删除后课程报告中显示为未知学生，重新添加后报告必须未命中缓存并显示其姓名
+     */
+    private static void checkRoster(Dataset data, int cacheSize) {
+        Student student = data.studentManager.getStudent(data.studentIds[0]);
+        String courseId = data.courseIds[data.firstCourse[0]];
+        ReportCache cache = new ReportCache(data.reportGenerator, data.studentManager, data.courseManager,
+                data.gradeManager, cacheSize);
+        try {
+            data.studentManager.removeStudent(student.getStudentId());
+            cache.getCourseReport(courseId);
+            long misses = cache.getStats().getMisses(ReportCache.ReportType.COURSE);
+            data.studentManager.addStudent(student.getStudentId(), student.getName(), student.getAge(),
+                    student.getGender(), student.getDepartment());
+            String report = cache.getCourseReport(courseId);
+            if (cache.getStats().getMisses(ReportCache.ReportType.COURSE) != misses + 1
+                    || !report.contains(student.getName())) {
+                throw new IllegalStateException("添加学生后课程" + courseId + "的报告仍命中旧缓存");
+            }
+        } finally {
+            cache.close();
+        }
+    }
+
+    /**
+     * 覆盖该学生的一门已选课程的成绩
+     */
+    private static Object write(Dataset data, int student, int iteration, double grade) {
+        int k = iteration % data.coursesPerStudent;
+        return data.gradeManager.recordGrade(data.studentIds[student],
+                data.courseIds[(data.firstCourse[student] + k) % data.courseCount], grade);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.ColumnarGradeStore;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.integrity.GradeBook;
+import com.grademanagement.student.StudentManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 级联删除基准
+ * 生成千万级成绩后，经{@link GradeBook}逐个删除课程和学生，输出每次删除的平均耗时和删除的成绩条数；
+ * 再测量不借助学生行和课程行、遍历全部成绩找出一门课程的成绩所需的时间作为对照。
+ * 删除后检查成绩总数恰好减少了被删除的条数。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms5g -Xmx5g -cp out com.grademanagement.bench.CascadeBenchmark [选项]
+ *   --students 500000      学生数
+ *   --courses 11000        课程数，默认参数下每门课程约900人
+ *   --per-student 20       每名学生选课数
+ *   --remove 200           删除的课程数和学生数
+ * </pre>
+ */
+public final class CascadeBenchmark {
+
+    private CascadeBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int students = 500_000;
+        int courses = 11_000;
+        int perStudent = 20;
+        int remove = 200;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--remove": remove = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (perStudent > courses) {
+            throw new IllegalArgumentException("每名学生选课数不能超过课程数");
+        }
+
+        String[] courseIds = new String[courses];
+        CourseManager courseManager = new CourseManager(CourseManager.UNLIMITED, courses, false);
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%05d", c);
+            courseManager.addCourse(courseIds[c], "课程" + c, 3, "教师" + c % Dataset.TEACHERS, "周一");
+        }
+        String[] studentIds = new String[students];
+        StudentManager studentManager = new StudentManager(StudentManager.UNLIMITED, students, false);
+        for (int s = 0; s < students; s++) {
+            studentIds[s] = String.format("S%07d", s);
+            studentManager.addStudent(studentIds[s], "学生", 20, "男", "院系" + s % Dataset.DEPARTMENTS);
+        }
+        GradeManager gradeManager = new GradeManager(new ColumnarGradeStore());
+        gradeManager.importGrades(new GradeGenerator(studentIds, courseIds, perStudent));
+        GradeBook book = new GradeBook(studentManager, courseManager, gradeManager);
+        System.out.println("grades=" + gradeManager.getGradeCount());
+        System.out.println("operation,count,grades_removed,avg_ms");
+
+        // 对照：遍历全部成绩找出一门课程的成绩
+        String scanned = courseIds[courses - 1];
+        int scans = 5;
+        long start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < scans; i++) {
+            List<String> hits = new ArrayList<>();
+            gradeManager.forEachGrade((studentId, courseId, grade) -> {
+                if (courseId.equals(scanned)) {
+                    hits.add(studentId);
+                }
+            });
+            found = hits.size();
+        }
+        report("scanForCourse", scans, found, System.nanoTime() - start);
+
+        Random random = new Random(7);
+        int before = gradeManager.getGradeCount();
+        start = System.nanoTime();
+        for (int i = 0; i < remove; i++) {
+            if (!book.removeCourse(courseIds[i])) {
+                throw new IllegalStateException("删除课程失败: " + courseIds[i]);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        int removedGrades = before - gradeManager.getGradeCount();
+        report("removeCourse", remove, removedGrades, elapsed);
+
+        before = gradeManager.getGradeCount();
+        int expected = 0;
+        List<String> victims = new ArrayList<>();
+        for (int i = 0; i < remove; i++) {
+            String studentId = studentIds[random.nextInt(students)];
+            if (!victims.contains(studentId)) {
+                victims.add(studentId);
+                expected += gradeManager.getStudentGrades(studentId).size();
+            }
+        }
+        start = System.nanoTime();
+        for (String studentId : victims) {
+            if (!book.removeStudent(studentId)) {
+                throw new IllegalStateException("删除学生失败: " + studentId);
+            }
+        }
+        elapsed = System.nanoTime() - start;
+        removedGrades = before - gradeManager.getGradeCount();
+        if (removedGrades != expected) {
+            throw new IllegalStateException("级联删除条数不一致: " + removedGrades + " != " + expected);
+        }
+        report("removeStudent", victims.size(), removedGrades, elapsed);
+    }
+
+    private static void report(String operation, int count, int grades, long nanos) {
+        System.out.printf("%s,%d,%d,%.3f%n", operation, count, grades, nanos / 1e6 / count);
+    }
+}
\ No newline at end of file
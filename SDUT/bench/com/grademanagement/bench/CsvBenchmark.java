@@ -0,0 +1,105 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.io.CsvExporter;
+import com.grademanagement.io.CsvFormat;
+import com.grademanagement.io.CsvImportResult;
+import com.grademanagement.io.CsvImporter;
+import com.grademanagement.snapshot.LiveView;
+import com.grademanagement.student.StudentManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 表格导入导出基准
+ * 先用合成数据集导出学生、课程、成绩三张表，再多轮导入到新的管理类中，
+ * 输出每张表的导出和最快一轮导入的吞吐量；成绩表另测一次装载到空成绩管理类的吞吐量（load）。
+ * 导入的行数与导出一致时才输出结果。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms4g -Xmx4g -cp out com.grademanagement.bench.CsvBenchmark [选项]
+ *   --students 200000      学生数
+ *   --courses 500          课程数
+ *   --per-student 20       每名学生选课数
+ *   --format CSV           CSV或TSV
+ *   --rounds 3             导入轮数
+ *   --dir /tmp             表格文件所在目录
+ * </pre>
+ */
+public final class CsvBenchmark {
+
+    private CsvBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 200_000;
+        int courses = 500;
+        int perStudent = 20;
+        CsvFormat format = CsvFormat.CSV;
+        int rounds = 3;
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--format": format = CsvFormat.valueOf(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--dir": dir = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Path studentFile = dir.resolve("bench-students." + format.name().toLowerCase());
+        Path courseFile = dir.resolve("bench-courses." + format.name().toLowerCase());
+        Path gradeFile = dir.resolve("bench-grades." + format.name().toLowerCase());
+
+        Dataset dataset = new Dataset(students, courses, perStudent);
+        CsvExporter exporter = new CsvExporter(
+                new LiveView(dataset.studentManager, dataset.courseManager, dataset.gradeManager), format);
+        System.out.println("table,operation,rows,bytes,best_ms,rows_per_sec");
+        long start = System.nanoTime();
+        int studentRows = exporter.exportStudents(studentFile);
+        report("students", "export", studentRows, Files.size(studentFile), System.nanoTime() - start);
+        start = System.nanoTime();
+        int courseRows = exporter.exportCourses(courseFile);
+        report("courses", "export", courseRows, Files.size(courseFile), System.nanoTime() - start);
+        start = System.nanoTime();
+        int gradeRows = exporter.exportGrades(gradeFile);
+        report("grades", "export", gradeRows, Files.size(gradeFile), System.nanoTime() - start);
+        dataset = null; // 导入前释放数据集
+
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int round = 0; round < rounds; round++) {
+            StudentManager studentManager = new StudentManager();
+            CourseManager courseManager = new CourseManager();
+            CsvImporter importer = new CsvImporter(studentManager, courseManager, new GradeManager(), format);
+            best[0] = Math.min(best[0], check(importer.importStudents(studentFile), studentRows));
+            best[1] = Math.min(best[1], check(importer.importCourses(courseFile), courseRows));
+            best[2] = Math.min(best[2], check(importer.importGrades(gradeFile), gradeRows));
+            importer = new CsvImporter(studentManager, courseManager, new GradeManager(), format);
+            best[3] = Math.min(best[3], check(importer.loadGrades(gradeFile), gradeRows));
+        }
+        report("students", "import", studentRows, Files.size(studentFile), best[0]);
+        report("courses", "import", courseRows, Files.size(courseFile), best[1]);
+        report("grades", "import", gradeRows, Files.size(gradeFile), best[2]);
+        report("grades", "load", gradeRows, Files.size(gradeFile), best[3]);
+    }
+
+    private static long check(CsvImportResult result, int expectedRows) {
+        if (result.getAcceptedCount() != expectedRows) {
+            throw new IllegalStateException("导入行数不一致: " + result + " " + result.getErrors());
+        }
+        return result.getElapsedNanos();
+    }
+
+    private static void report(String table, String operation, int rows, long bytes, long nanos) {
+        System.out.printf("%s,%s,%d,%d,%.1f,%.0f%n", table, operation, rows, bytes, nanos / 1e6, rows / (nanos / 1e9));
+    }
+}
\ No newline at end of file
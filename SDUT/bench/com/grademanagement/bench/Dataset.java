@@ -0,0 +1,104 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeEntry;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.report.ReportGenerator;
+import com.grademanagement.student.StudentManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 合成数据集
+ * 按学生数、课程数和每名学生选课数生成三个管理类的数据，随机种子固定，结果可重复
+ */
+final class Dataset {
+    static final int DEPARTMENTS = 8;
+    static final int TEACHERS = 20;
+
+    final int studentCount;
+    final int courseCount;
+    final int coursesPerStudent;
+
+    final StudentManager studentManager = new StudentManager();
+    final CourseManager courseManager = new CourseManager();
+    final GradeManager gradeManager = new GradeManager();
+    final ReportGenerator reportGenerator;
+
+    final String[] studentIds;
+    final String[] courseIds;
+    final int[] firstCourse; // 学生所选第一门课程的下标，其余课程依次相邻
+    final String[] departments = new String[DEPARTMENTS];
+    final String[] teachers = new String[TEACHERS];
+
+    Dataset(int studentCount, int courseCount, int coursesPerStudent) {
+        if (coursesPerStudent > courseCount) {
+            throw new IllegalArgumentException("每名学生选课数不能超过课程数");
+        }
+        this.studentCount = studentCount;
+        this.courseCount = courseCount;
+        this.coursesPerStudent = coursesPerStudent;
+        this.studentIds = new String[studentCount];
+        this.courseIds = new String[courseCount];
+        this.firstCourse = new int[studentCount];
+
+        Random random = new Random(42);
+        for (int d = 0; d < DEPARTMENTS; d++) {
+            departments[d] = "院系" + d;
+        }
+        for (int t = 0; t < TEACHERS; t++) {
+            teachers[t] = "教师" + t;
+        }
+        for (int c = 0; c < courseCount; c++) {
+            courseIds[c] = String.format("C%04d", c);
+            courseManager.addCourse(courseIds[c], "课程" + c, 1 + random.nextInt(8) * 0.5,
+                    teachers[c % TEACHERS], "周" + (c % 5 + 1));
+        }
+        for (int s = 0; s < studentCount; s++) {
+            studentIds[s] = String.format("S%06d", s);
+            studentManager.addStudent(studentIds[s], "学生" + s, 18 + random.nextInt(6),
+                    random.nextBoolean() ? "男" : "女", departments[s % DEPARTMENTS]);
+        }
+
+        // 每名学生从随机起点连续选coursesPerStudent门课，保证同一学生不重复选课
+        List<GradeEntry> grades = new ArrayList<>(studentCount * coursesPerStudent);
+        for (int s = 0; s < studentCount; s++) {
+            int first = random.nextInt(courseCount);
+            firstCourse[s] = first;
+            for (int k = 0; k < coursesPerStudent; k++) {
+                grades.add(new GradeEntry(studentIds[s], courseIds[(first + k) % courseCount],
+                        randomGrade(random)));
+            }
+        }
+        gradeManager.recordGrades(grades);
+        gradeManager.bindCourses(courseManager);
+        reportGenerator = new ReportGenerator(studentManager, courseManager, gradeManager);
+    }
+
+    /**
+     * 第index次调用使用的(学号, 课程编号)组合，轮流覆盖已有成绩
+     */
+    String studentOf(int index) {
+        return studentIds[index % studentCount];
+    }
+
+    String courseOf(int index) {
+        int s = index % studentCount;
+        int k = (index / studentCount) % coursesPerStudent;
+        return courseIds[(firstCourse[s] + k) % courseCount];
+    }
+
+    /**
+     * 大致呈正态分布的成绩，保留一位小数
+     */
+    static double randomGrade(Random random) {
+        double grade = 72 + random.nextGaussian() * 12;
+        return Math.round(Math.max(0, Math.min(100, grade)) * 10) / 10.0;
+    }
+
+    String describe() {
+        return "students=" + studentCount + " courses=" + courseCount + " perStudent=" + coursesPerStudent;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.grade.GradeManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并发录入丢失更新检查与吞吐量扩展测试
+ * 并发模式的GradeManager上，N个线程对同一组课程随机执行recordGrade和removeGrade，
+ * 每个线程只操作自己名下的学生，因此各线程可以独立记下每门课程的最终成绩，合并后即为全部成绩的期望值。
+ * 线程结束后逐门课程检查：CourseStats的条数、总分、最高最低分，getGradeRanking的顺序，
+ * getCourseGrades、按课程遍历存储和按学生遍历存储的结果都必须与期望值一致，任何一次丢失的更新都会被发现。
+ * 运行期间主线程不断读取统计快照，检查分段计数之和等于条数。
+ * 线程数依次取1、2、4……直到--threads，每档都做上述检查并输出吞吐量和相对单线程的加速比。
+ * 成绩取0.5的整数倍，总分在double下没有舍入误差，可以精确比较。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.GradeConcurrencyCheck [选项]
+ *   --threads 8            最大线程数，默认为处理器数与4中的较大者
+ *   --courses 16           共享课程数
+ *   --students 500         每个线程名下的学生数
+ *   --ops 200000           每个线程执行的操作数
+ *   --seed 1               随机种子
+ * </pre>
+ */
+public final class GradeConcurrencyCheck {
+
+    private GradeConcurrencyCheck() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int courses = 16;
+        int students = 500;
+        int ops = 200_000;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads": maxThreads = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--ops": ops = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        String[] courseIds = new String[courses];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c);
+        }
+
+        System.out.println("threads,ops,best_ms,ops_per_sec,speedup,final_grades");
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            // 预热一轮后取两轮中较快的一轮
+            run(threads, courseIds, students, ops, seed);
+            long best = Long.MAX_VALUE;
+            int finalGrades = 0;
+            for (int round = 0; round < 2; round++) {
+                GradeManager manager = new GradeManager(true);
+                best = Math.min(best, run(manager, threads, courseIds, students, ops, seed + round));
+                finalGrades = manager.getGradeCount();
+            }
+            double throughput = (double) threads * ops / (best / 1e9);
+            if (threads == 1) {
+                baseline = throughput;
+            }
+            System.out.printf("%d,%d,%.1f,%.0f,%.2f,%d%n", threads, (long) threads * ops, best / 1e6,
+                    throughput, throughput / baseline, finalGrades);
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+        System.out.println("所有线程数下均未发现丢失更新");
+    }
+
+    private static void run(int threads, String[] courseIds, int students, int ops, long seed)
+            throws InterruptedException {
+        run(new GradeManager(true), threads, courseIds, students, ops, seed);
+    }
+
+    /**
+     * 执行一轮并发写入并检查结果
+     * @return 从所有线程同时开始到全部结束的耗时，单位纳秒
+     */
+    private static long run(GradeManager manager, int threads, String[] courseIds, int students, int ops,
+                            long seed) throws InterruptedException {
+        List<Map<String, Map<String, Double>>> expectedPerThread = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            Map<String, Map<String, Double>> expected = new HashMap<>(); // <courseId, <studentId, 成绩>>
+            for (String courseId : courseIds) {
+                expected.put(courseId, new HashMap<>());
+            }
+            expectedPerThread.add(expected);
+            String[] studentIds = new String[students];
+            for (int s = 0; s < students; s++) {
+                studentIds[s] = String.format("T%02dS%05d", t, s);
+            }
+            Random random = new Random(seed * 31 + t);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int op = 0; op < ops; op++) {
+                        String studentId = studentIds[random.nextInt(studentIds.length)];
+                        String courseId = courseIds[random.nextInt(courseIds.length)];
+                        Map<String, Double> course = expected.get(courseId);
+                        if (random.nextInt(4) == 0) {
+                            boolean removed = manager.removeGrade(studentId, courseId);
+                            if (removed != (course.remove(studentId) != null)) {
+                                throw new IllegalStateException("删除结果不符: " + studentId + "/" + courseId);
+                            }
+                        } else {
+                            double grade = random.nextInt(201) / 2.0;
+                            if (!manager.recordGrade(studentId, courseId, grade)) {
+                                throw new IllegalStateException("录入失败: " + studentId + "/" + courseId);
+                            }
+                            course.put(studentId, grade);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }, "grade-writer-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            for (String courseId : courseIds) {
+                checkStatsSnapshot(manager.getCourseStats(courseId));
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException(threads + "线程写入失败", failure.get());
+        }
+
+        Map<String, Map<String, Double>> expected = new HashMap<>();
+        for (String courseId : courseIds) {
+            Map<String, Double> merged = new HashMap<>();
+            for (Map<String, Map<String, Double>> perThread : expectedPerThread) {
+                merged.putAll(perThread.get(courseId));
+            }
+            expected.put(courseId, merged);
+        }
+        verify(manager, threads, expected);
+        return elapsed;
+    }
+
+    /**
+     * 统计快照在课程锁下生成，分段计数之和必须等于条数
+     */
+    private static void checkStatsSnapshot(GradeManager.CourseStats stats) {
+        if (stats == null) {
+            return;
+        }
+        int total = 0;
+        for (int count : stats.getRanges()) {
+            total += count;
+        }
+        if (total != stats.getCount()) {
+            throw new IllegalStateException("统计快照不一致: " + stats);
+        }
+    }
+
+    private static void verify(GradeManager manager, int threads, Map<String, Map<String, Double>> expected) {
+        int totalGrades = 0;
+        Map<String, Map<String, Double>> byStudent = new HashMap<>();
+        for (Map.Entry<String, Map<String, Double>> course : expected.entrySet()) {
+            String courseId = course.getKey();
+            Map<String, Double> grades = course.getValue();
+            totalGrades += grades.size();
+            String where = threads + "线程, 课程" + courseId;
+
+            GradeManager.CourseStats stats = manager.getCourseStats(courseId);
+            if (grades.isEmpty()) {
+                if (stats != null || !manager.getCourseGrades(courseId).isEmpty()) {
+                    throw new IllegalStateException(where + ": 应无成绩");
+                }
+                continue;
+            }
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (Map.Entry<String, Double> grade : grades.entrySet()) {
+                sum += grade.getValue();
+                min = Math.min(min, grade.getValue());
+                max = Math.max(max, grade.getValue());
+                byStudent.computeIfAbsent(grade.getKey(), k -> new HashMap<>()).put(courseId, grade.getValue());
+            }
+            if (stats == null || stats.getCount() != grades.size() || stats.getSum() != sum
+                    || stats.getMin() != min || stats.getMax() != max) {
+                throw new IllegalStateException(where + ": 统计量不符, 期望count=" + grades.size()
+                        + " sum=" + sum + " min=" + min + " max=" + max + ", 实际" + stats);
+            }
+            checkStatsSnapshot(stats);
+
+            List<String> expectedRanking = new ArrayList<>(grades.keySet());
+            expectedRanking.sort((a, b) -> {
+                int byGrade = Double.compare(grades.get(b), grades.get(a));
+                return byGrade != 0 ? byGrade : a.compareTo(b);
+            });
+            if (!expectedRanking.equals(manager.getGradeRanking(courseId))) {
+                throw new IllegalStateException(where + ": 排名不符");
+            }
+
+            if (!grades.equals(manager.getCourseGrades(courseId))) {
+                throw new IllegalStateException(where + ": getCourseGrades不符");
+            }
+            Map<String, Double> scanned = new HashMap<>();
+            manager.forEachCourseGrade(courseId, (studentId, cid, grade) -> scanned.put(studentId, grade));
+            if (!grades.equals(scanned)) {
+                throw new IllegalStateException(where + ": 按课程遍历存储的结果不符");
+            }
+        }
+
+        for (Map.Entry<String, Map<String, Double>> student : byStudent.entrySet()) {
+            if (!student.getValue().equals(manager.getStudentGrades(student.getKey()))) {
+                throw new IllegalStateException(threads + "线程, 学生" + student.getKey() + ": 按学生遍历存储的结果不符");
+            }
+        }
+        if (manager.getGradeCount() != totalGrades) {
+            throw new IllegalStateException(threads + "线程: 成绩总数不符, 期望" + totalGrades
+                    + ", 实际" + manager.getGradeCount());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.grade.GradeEntry;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 按需生成成绩，不在内存中保留整份列表
+ * 每名学生从随机起点连续选perStudent门课，保证同一学生不重复选课；成绩分布与{@link Dataset}相同
+ */
+final class GradeGenerator implements Iterator<GradeEntry> {
+    private final Random random = new Random(42);
+    private final String[] studentIds;
+    private final String[] courseIds;
+    private final int perStudent;
+    private int student;
+    private int course;
+    private int first;
+
+    GradeGenerator(String[] studentIds, String[] courseIds, int perStudent) {
+        this.studentIds = studentIds;
+        this.courseIds = courseIds;
+        this.perStudent = perStudent;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return student < studentIds.length;
+    }
+
+    @Override
+    public GradeEntry next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (course == 0) {
+            first = random.nextInt(courseIds.length);
+        }
+        GradeEntry entry = new GradeEntry(studentIds[student],
+                courseIds[(first + course) % courseIds.length], Dataset.randomGrade(random));
+        if (++course == perStudent) {
+            course = 0;
+            student++;
+        }
+        return entry;
+    }
+}
\ No newline at end of file
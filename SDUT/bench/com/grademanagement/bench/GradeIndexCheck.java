@@ -0,0 +1,179 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.grade.ColumnarGradeStore;
+import com.grademanagement.grade.ConcurrentGradeStore;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeStore;
+import com.grademanagement.grade.HashGradeStore;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * 学生、课程双向索引一致性检查
+ * 对每种成绩存储执行随机的新增、覆盖和删除序列，并与只按(学号, 课程编号)保存的参照表比较：
+ * 按学生遍历、按课程遍历、全量遍历、单条查询和各方向的条数都必须与参照表一致。
+ * 同样的序列再经GradeManager执行，检查getStudentGrades和getCourseGrades给出的两个视图互相一致。
+ * 发现不一致时抛出异常并给出出错的步数。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.GradeIndexCheck [选项]
+ *   --ops 200000           每种存储执行的操作数
+ *   --students 300         学生数
+ *   --courses 40           课程数
+ *   --check-every 1000     每隔多少步做一次全量比较
+ *   --seed 1               随机种子
+ * </pre>
+ */
+public final class GradeIndexCheck {
+
+    private GradeIndexCheck() {
+    }
+
+    public static void main(String[] args) {
+        int ops = 200_000;
+        int students = 300;
+        int courses = 40;
+        int checkEvery = 1000;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ops": ops = Integer.parseInt(args[++i]); break;
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--check-every": checkEvery = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        GradeStore[] stores = {new HashGradeStore(), new ConcurrentGradeStore(), new ColumnarGradeStore()};
+        for (GradeStore store : stores) {
+            checkStore(store, ops, students, courses, checkEvery, seed);
+            System.out.println(store.getClass().getSimpleName() + ": " + ops + "步一致, 最终" + store.size() + "条成绩");
+        }
+        checkManager(new GradeManager(), ops, students, courses, checkEvery, seed);
+        checkManager(new GradeManager(true), ops, students, courses, checkEvery, seed);
+        checkManager(new GradeManager(new ColumnarGradeStore()), ops, students, courses, checkEvery, seed);
+        System.out.println("GradeManager: 学生视图与课程视图一致");
+    }
+
+    private static void checkStore(GradeStore store, int ops, int students, int courses, int checkEvery, long seed) {
+        Random random = new Random(seed);
+        Map<String, Double> expected = new HashMap<>(); // 键为"学号/课程编号"
+        for (int op = 1; op <= ops; op++) {
+            String studentId = "S" + random.nextInt(students);
+            String courseId = "C" + random.nextInt(courses);
+            String key = studentId + "/" + courseId;
+            double actual;
+            Double previous;
+            if (random.nextInt(3) == 0) {
+                actual = store.remove(studentId, courseId);
+                previous = expected.remove(key);
+            } else {
+                double grade = random.nextInt(1001) / 10.0;
+                actual = store.put(studentId, courseId, grade);
+                previous = expected.put(key, grade);
+            }
+            if (!same(previous, actual)) {
+                throw new IllegalStateException("第" + op + "步返回值不一致: " + key + " " + previous + " != " + actual);
+            }
+            if (op % checkEvery == 0 || op == ops) {
+                compare(store, expected, students, courses, op);
+            }
+        }
+    }
+
+    private static boolean same(Double expected, double actual) {
+        return expected == null ? Double.isNaN(actual) : expected == actual;
+    }
+
+    private static void compare(GradeStore store, Map<String, Double> expected, int students, int courses, int op) {
+        if (store.size() != expected.size()) {
+            throw new IllegalStateException("第" + op + "步总条数不一致: " + store.size() + " != " + expected.size());
+        }
+        Map<String, Double> all = new HashMap<>();
+        store.forEach((studentId, courseId, grade) -> {
+            if (all.put(studentId + "/" + courseId, grade) != null) {
+                throw new IllegalStateException("第" + op + "步全量遍历重复: " + studentId + "/" + courseId);
+            }
+        });
+        if (!all.equals(expected)) {
+            throw new IllegalStateException("第" + op + "步全量遍历与参照表不一致");
+        }
+
+        Map<String, Double> byStudent = new HashMap<>();
+        for (int s = 0; s < students; s++) {
+            String studentId = "S" + s;
+            int[] count = new int[1];
+            store.forEachStudentGrade(studentId, (sid, courseId, grade) -> {
+                if (!sid.equals(studentId)) {
+                    throw new IllegalStateException("第" + op + "步学生行学号错误: " + sid + " != " + studentId);
+                }
+                byStudent.put(sid + "/" + courseId, grade);
+                count[0]++;
+            });
+            if (count[0] != store.studentGradeCount(studentId)) {
+                throw new IllegalStateException("第" + op + "步学生条数不一致: " + studentId);
+            }
+        }
+        Map<String, Double> byCourse = new HashMap<>();
+        for (int c = 0; c < courses; c++) {
+            String courseId = "C" + c;
+            int[] count = new int[1];
+            store.forEachCourseGrade(courseId, (studentId, cid, grade) -> {
+                if (!cid.equals(courseId)) {
+                    throw new IllegalStateException("第" + op + "步课程行课程编号错误: " + cid + " != " + courseId);
+                }
+                byCourse.put(studentId + "/" + cid, grade);
+                count[0]++;
+            });
+            if (count[0] != store.courseGradeCount(courseId)) {
+                throw new IllegalStateException("第" + op + "步课程条数不一致: " + courseId);
+            }
+        }
+        if (!byStudent.equals(expected) || !byCourse.equals(expected)) {
+            throw new IllegalStateException("第" + op + "步按学生或按课程遍历与参照表不一致");
+        }
+        for (Map.Entry<String, Double> entry : expected.entrySet()) {
+            String[] ids = entry.getKey().split("/");
+            if (store.get(ids[0], ids[1]) != entry.getValue()) {
+                throw new IllegalStateException("第" + op + "步单条查询不一致: " + entry.getKey());
+            }
+        }
+    }
+
+    private static void checkManager(GradeManager manager, int ops, int students, int courses,
+                                     int checkEvery, long seed) {
+        Random random = new Random(seed);
+        for (int op = 1; op <= ops; op++) {
+            String studentId = "S" + random.nextInt(students);
+            String courseId = "C" + random.nextInt(courses);
+            if (random.nextInt(3) == 0) {
+                manager.removeGrade(studentId, courseId);
+            } else {
+                manager.recordGrade(studentId, courseId, random.nextInt(1001) / 10.0);
+            }
+            if (op % checkEvery == 0 || op == ops) {
+                Map<String, Double> byStudent = new TreeMap<>();
+                for (int s = 0; s < students; s++) {
+                    String sid = "S" + s;
+                    manager.getStudentGrades(sid).forEach((cid, grade) -> byStudent.put(sid + "/" + cid, grade));
+                }
+                Map<String, Double> byCourse = new TreeMap<>();
+                for (int c = 0; c < courses; c++) {
+                    String cid = "C" + c;
+                    manager.getCourseGrades(cid).forEach((sid, grade) -> byCourse.put(sid + "/" + cid, grade));
+                }
+                if (!byStudent.equals(byCourse) || byStudent.size() != manager.getGradeCount()) {
+                    throw new IllegalStateException("第" + op + "步GradeManager两个视图不一致");
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.grademanagement.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 基准测试计时器
+ * 每个操作先预热再分轮测量，报告每次操作的平均耗时和分配字节数。
+ * 分配量取自当前线程的已分配字节计数（HotSpot的com.sun.management.ThreadMXBean），
+ * 不支持时显示为-1
+ */
+final class Harness {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final long warmupNanos;
+    private final long measureNanos;
+    private final int rounds;
+    private final List<Result> results = new ArrayList<>();
+
+    // 操作的返回值累加到这里，防止JIT把结果未被使用的调用整段消除
+    private volatile int sink;
+
+    /**
+     * @param warmupMillis 每个操作的预热时间
+     * @param measureMillis 每轮测量时间
+     * @param rounds 测量轮数
+     */
+    Harness(long warmupMillis, long measureMillis, int rounds) {
+        this.warmupNanos = warmupMillis * 1_000_000;
+        this.measureNanos = measureMillis * 1_000_000;
+        this.rounds = rounds;
+    }
+
+    /**
+     * 被测操作
+     */
+    interface Operation {
+        /**
+         * @param iteration 调用序号，可用于在数据集中轮换参数
+         * @return 任意结果，会被消费以防止调用被优化掉
+         */
+        Object run(int iteration) throws Exception;
+    }
+
+    /**
+     * 测量一个操作
+     * @param name 操作名称
+     * @param params 数据集参数描述
+     * @param operation 被测操作
+     */
+    Result measure(String name, String params, Operation operation) throws Exception {
+        runFor(operation, warmupNanos, 0);
+
+        double bestNanosPerOp = Double.MAX_VALUE;
+        double totalNanos = 0;
+        long totalOps = 0;
+        long allocated = 0;
+        int iteration = 0;
+        for (int round = 0; round < rounds; round++) {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            int ops = runFor(operation, measureNanos, iteration);
+            long elapsed = System.nanoTime() - start;
+            allocated += allocatedBytes() - allocatedBefore;
+            iteration += ops;
+            totalNanos += elapsed;
+            totalOps += ops;
+            bestNanosPerOp = Math.min(bestNanosPerOp, (double) elapsed / ops);
+        }
+
+        Result result = new Result(name, params, totalOps, totalNanos / totalOps, bestNanosPerOp,
+                THREADS != null ? (double) allocated / totalOps : -1);
+        results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+    List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * 在给定时间内反复调用操作，按批次检查时间以减少计时开销
+     * @return 调用次数
+     */
+    private int runFor(Operation operation, long nanos, int firstIteration) throws Exception {
+        long deadline = System.nanoTime() + nanos;
+        int ops = 0;
+        int batch = 1;
+        int consumed = 0;
+        do {
+            for (int i = 0; i < batch; i++) {
+                Object value = operation.run(firstIteration + ops + i);
+                consumed += value != null ? value.hashCode() : 0;
+            }
+            ops += batch;
+            if (batch < 1024) {
+                batch <<= 1;
+            }
+        } while (System.nanoTime() < deadline);
+        sink += consumed;
+        return ops;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 单个操作的测量结果
+     */
+    static final class Result {
+        static final String HEADER = String.format(Locale.ROOT, "%-28s %-34s %12s %12s %12s %14s",
+                "benchmark", "params", "ops", "avg ns/op", "best ns/op", "alloc B/op");
+
+        final String name;
+        final String params;
+        final long ops;
+        final double nanosPerOp;
+        final double bestNanosPerOp;
+        final double bytesPerOp;
+
+        Result(String name, String params, long ops, double nanosPerOp, double bestNanosPerOp, double bytesPerOp) {
+            this.name = name;
+            this.params = params;
+            this.ops = ops;
+            this.nanosPerOp = nanosPerOp;
+            this.bestNanosPerOp = bestNanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s,\"%s\",%d,%.1f,%.1f,%.1f",
+                    name, params, ops, nanosPerOp, bestNanosPerOp, bytesPerOp);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-28s %-34s %12d %12.1f %12.1f %14.1f",
+                    name, params, ops, nanosPerOp, bestNanosPerOp, bytesPerOp);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.student.StudentManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * 大规模学生导入基准
+ * 依次用开放寻址存储（非并发模式）和ConcurrentHashMap存储（并发模式）导入同样的学生，
+ * 每种存储分别测试不预先分配和按学生数预先分配两种情况，输出导入吞吐量和每个学生占用的堆内存。
+ * 堆占用包括学生对象、学号字符串以及存储和院系索引的开销；姓名、性别、院系使用共享的字符串。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms4g -Xmx4g -cp out com.grademanagement.bench.LoadBenchmark [选项]
+ *   --students 5000000     学生数
+ *   --rounds 3             每种配置导入的轮数，取最快一轮的耗时
+ * </pre>
+ */
+public final class LoadBenchmark {
+
+    private LoadBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int students = 5_000_000;
+        int rounds = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        String[] departments = new String[Dataset.DEPARTMENTS];
+        for (int d = 0; d < departments.length; d++) {
+            departments[d] = "院系" + d;
+        }
+
+        System.out.println("storage,presized,students,best_ms,inserts_per_sec,heap_bytes_per_student");
+        for (boolean concurrent : new boolean[]{false, true}) {
+            for (boolean presized : new boolean[]{false, true}) {
+                run(students, rounds, concurrent, presized, departments);
+            }
+        }
+    }
+
+    private static void run(int students, int rounds, boolean concurrent, boolean presized,
+                            String[] departments) {
+        long bestNanos = Long.MAX_VALUE;
+        long heapBytes = 0;
+        StudentManager manager;
+        for (int round = 0; round < rounds; round++) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            manager = new StudentManager(StudentManager.UNLIMITED,
+                    presized ? students : 0, concurrent);
+            for (int s = 0; s < students; s++) {
+                if (!manager.addStudent(studentId(s), "学生", 20, "男", departments[s % departments.length])) {
+                    throw new IllegalStateException("导入失败: " + s);
+                }
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            heapBytes = usedHeap() - before;
+            if (manager.getDepartmentSize(departments[0]) == 0) {
+                throw new IllegalStateException("院系索引为空");
+            }
+            manager = null; // 下一轮测量基线前释放
+        }
+        System.out.printf("%s,%s,%d,%.1f,%.0f,%.1f%n",
+                concurrent ? "ConcurrentHashMap" : "OpenHashMap", presized, students,
+                bestNanos / 1e6, students / (bestNanos / 1e9), (double) heapBytes / students);
+    }
+
+    /**
+     * 生成8位定长学号
+     */
+    private static String studentId(int index) {
+        char[] chars = new char[8];
+        chars[0] = 'S';
+        for (int i = chars.length - 1; i > 0; i--) {
+            chars[i] = (char) ('0' + index % 10);
+            index /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 多次触发垃圾回收后的已用堆内存
+     */
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
\ No newline at end of file
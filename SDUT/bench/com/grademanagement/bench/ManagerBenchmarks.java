@@ -0,0 +1,135 @@
+package com.grademanagement.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 管理类和报表热点路径的基准测试
+ * 在学生数、课程数、每名学生选课数组成的参数网格上，测量成绩录入、课程成绩查询、排名、
+ * 课程平均分、院系查询以及四种报表的单次耗时和分配字节数。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.ManagerBenchmarks [选项]
+ *   --students 200,1000      学生数
+ *   --courses 50,200         课程数
+ *   --per-student 5,20       每名学生选课数
+ *   --warmup 500 --measure 500 --rounds 5   预热和每轮测量的毫秒数、轮数
+ *   --csv results.csv        另外把结果写成CSV
+ * </pre>
+ * 建议用-Xms与-Xmx相同的固定堆运行，并与基线版本在同一台机器上对比
+ */
+public final class ManagerBenchmarks {
+
+    private ManagerBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] students = {200, 1000};
+        int[] courses = {50, 200};
+        int[] perStudent = {5, 20};
+        long warmup = 500;
+        long measure = 500;
+        int rounds = 5;
+        String csv = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = parseInts(args[++i]); break;
+                case "--courses": courses = parseInts(args[++i]); break;
+                case "--per-student": perStudent = parseInts(args[++i]); break;
+                case "--warmup": warmup = Long.parseLong(args[++i]); break;
+                case "--measure": measure = Long.parseLong(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                case "--csv": csv = args[++i]; break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Harness harness = new Harness(warmup, measure, rounds);
+        System.out.println(Harness.Result.HEADER);
+        for (int studentCount : students) {
+            for (int courseCount : courses) {
+                for (int coursesPerStudent : perStudent) {
+                    if (coursesPerStudent > courseCount) {
+                        continue;
+                    }
+                    run(harness, new Dataset(studentCount, courseCount, coursesPerStudent));
+                }
+            }
+        }
+
+        if (csv != null) {
+            writeCsv(csv, harness.getResults());
+        }
+    }
+
+    private static void run(Harness harness, Dataset data) throws Exception {
+        String params = data.describe();
+        Random random = new Random(7);
+        double[] grades = new double[4096];
+        for (int i = 0; i < grades.length; i++) {
+            grades[i] = Dataset.randomGrade(random);
+        }
+
+        // 覆盖已有成绩，数据规模在测量期间保持不变
+        harness.measure("recordGrade", params, i ->
+                data.gradeManager.recordGrade(data.studentOf(i), data.courseOf(i), grades[i & 4095]));
+        harness.measure("getCourseGrades", params, i ->
+                data.gradeManager.getCourseGrades(data.courseIds[i % data.courseCount]));
+        harness.measure("getGradeRanking", params, i ->
+                data.gradeManager.getGradeRanking(data.courseIds[i % data.courseCount]));
+        harness.measure("calculateCourseAverage", params, i ->
+                data.gradeManager.calculateCourseAverage(data.courseIds[i % data.courseCount]));
+        harness.measure("getStudentsByDepartment", params, i ->
+                data.studentManager.getStudentsByDepartment(data.departments[i % Dataset.DEPARTMENTS]).size());
+
+        StringBuilder out = new StringBuilder(64 * 1024);
+        harness.measure("generateStudentTranscript", params, i -> {
+            out.setLength(0);
+            data.reportGenerator.generateStudentTranscript(data.studentIds[i % data.studentCount], out);
+            return out.length();
+        });
+        harness.measure("generateCourseReport", params, i -> {
+            out.setLength(0);
+            data.reportGenerator.generateCourseReport(data.courseIds[i % data.courseCount], out);
+            return out.length();
+        });
+        harness.measure("generateDepartmentReport", params, i -> {
+            out.setLength(0);
+            data.reportGenerator.generateDepartmentReport(data.departments[i % Dataset.DEPARTMENTS], out);
+            return out.length();
+        });
+        harness.measure("generateTeacherReport", params, i -> {
+            out.setLength(0);
+            data.reportGenerator.generateTeacherReport(data.teachers[i % Dataset.TEACHERS], out);
+            return out.length();
+        });
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static void writeCsv(String file, List<Harness.Result> results) throws IOException {
+        List<String> lines = new ArrayList<>(results.size() + 1);
+        lines.add("benchmark,params,ops,avg_ns_per_op,best_ns_per_op,alloc_bytes_per_op");
+        for (Harness.Result result : results) {
+            lines.add(result.toCsv());
+        }
+        Files.write(Paths.get(file), lines, StandardCharsets.UTF_8);
+        System.out.println("结果已写入 " + file);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.ColumnarGradeStore;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.ScoreRange;
+import com.grademanagement.query.GradeQuery;
+import com.grademanagement.query.GradeQueryEngine;
+import com.grademanagement.student.StudentManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 成绩区间查询基准
+ * 生成千万级成绩后，对比三类选择性查询走排名树区间索引和遍历全部成绩再过滤的单次耗时：
+ * 单门课程不及格人数、全部课程中的高分成绩、某教师所授课程中某院系学生的不及格成绩。
+ * 两种方式的结果条数一致时才输出结果。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms5g -Xmx5g -cp out com.grademanagement.bench.QueryBenchmark [选项]
+ *   --students 500000      学生数
+ *   --courses 1000         课程数
+ *   --per-student 20       每名学生选课数
+ *   --warmup 1000 --measure 2000 --rounds 3   预热和每轮测量的毫秒数、轮数
+ * </pre>
+ * 成绩使用列式存储，默认参数下共1000万条
+ */
+public final class QueryBenchmark {
+
+    private QueryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 500_000;
+        int courses = 1000;
+        int perStudent = 20;
+        long warmup = 1000;
+        long measure = 2000;
+        int rounds = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Long.parseLong(args[++i]); break;
+                case "--measure": measure = Long.parseLong(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (perStudent > courses) {
+            throw new IllegalArgumentException("每名学生选课数不能超过课程数");
+        }
+
+        String[] departments = new String[Dataset.DEPARTMENTS];
+        for (int d = 0; d < departments.length; d++) {
+            departments[d] = "院系" + d;
+        }
+        String[] teachers = new String[Dataset.TEACHERS];
+        for (int t = 0; t < teachers.length; t++) {
+            teachers[t] = "教师" + t;
+        }
+        String[] courseIds = new String[courses];
+        CourseManager courseManager = new CourseManager();
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c);
+            courseManager.addCourse(courseIds[c], "课程" + c, 3, teachers[c % teachers.length], "周一");
+        }
+        String[] studentIds = new String[students];
+        StudentManager studentManager = new StudentManager(StudentManager.UNLIMITED, students, false);
+        for (int s = 0; s < students; s++) {
+            studentIds[s] = String.format("S%07d", s);
+            studentManager.addStudent(studentIds[s], "学生", 20, "男", departments[s % departments.length]);
+        }
+        GradeManager gradeManager = new GradeManager(new ColumnarGradeStore());
+        long start = System.nanoTime();
+        GradeImportResult imported = gradeManager.importGrades(
+                new GradeGenerator(studentIds, courseIds, perStudent));
+        System.out.printf("导入%d条成绩，耗时%.1f秒%n", imported.getAcceptedCount(), (System.nanoTime() - start) / 1e9);
+
+        run(new Harness(warmup, measure, rounds), studentManager, courseManager, gradeManager,
+                courseIds[0], teachers[0], departments[0]);
+    }
+
+    private static void run(Harness harness, StudentManager studentManager, CourseManager courseManager,
+                            GradeManager gradeManager, String courseId, String teacher,
+                            String department) throws Exception {
+        GradeQueryEngine engine = new GradeQueryEngine(studentManager, courseManager, gradeManager);
+        String params = "grades=" + gradeManager.getGradeCount();
+        Set<String> teacherCourses = new HashSet<>();
+        for (Course course : courseManager.getCoursesByTeacher(teacher)) {
+            teacherCourses.add(course.getCourseId());
+        }
+        ScoreRange fail = ScoreRange.below(60);
+        ScoreRange top = ScoreRange.atLeast(99.5);
+        GradeQuery topQuery = GradeQuery.all().withRange(top);
+        GradeQuery teacherQuery = GradeQuery.all().withRange(fail).taughtBy(teacher).inDepartment(department);
+
+        System.out.println(Harness.Result.HEADER);
+        Harness.Operation courseIndex = i -> gradeManager.countInRange(courseId, fail);
+        Harness.Operation courseScan = i -> {
+            long[] count = new long[1];
+            gradeManager.forEachGrade((sid, cid, grade) -> {
+                if (grade < 60 && cid.equals(courseId)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        };
+        compare(harness, "courseFail", params, courseIndex, courseScan);
+
+        Harness.Operation topIndex = i -> engine.count(topQuery);
+        Harness.Operation topScan = i -> {
+            long[] count = new long[1];
+            gradeManager.forEachGrade((sid, cid, grade) -> {
+                if (top.contains(grade)) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        };
+        compare(harness, "topGrades", params, topIndex, topScan);
+
+        Harness.Operation teacherIndex = i -> (long) engine.find(teacherQuery).size();
+        Harness.Operation teacherScan = i -> {
+            long[] count = new long[1];
+            gradeManager.forEachGrade((sid, cid, grade) -> {
+                if (grade < 60 && teacherCourses.contains(cid)
+                        && department.equals(studentManager.getStudent(sid).getDepartment())) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        };
+        compare(harness, "teacherDepartmentFail", params, teacherIndex, teacherScan);
+    }
+
+    /**
+     * 两种方式结果一致时分别测量
+     */
+    private static void compare(Harness harness, String name, String params,
+                                Harness.Operation index, Harness.Operation scan) throws Exception {
+        Object expected = scan.run(0);
+        Object actual = index.run(0);
+        if (((Number) expected).longValue() != ((Number) actual).longValue()) {
+            throw new IllegalStateException(name + "结果不一致: " + actual + " != " + expected);
+        }
+        Harness.Result indexed = harness.measure(name + ".index", params + " hits=" + expected, index);
+        Harness.Result scanned = harness.measure(name + ".scan", params + " hits=" + expected, scan);
+        System.out.printf("%s 加速比: %.0fx%n", name, scanned.nanosPerOp / indexed.nanosPerOp);
+    }
+}
\ No newline at end of file
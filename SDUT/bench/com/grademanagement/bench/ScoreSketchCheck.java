@@ -0,0 +1,207 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.ScoreSketch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 成绩分布摘要正确性检查
+ * 把{@link ScoreSketch}的分位数、百分位数和百分位排名与排序后按最近秩直接求出的精确结果比较，
+ * 精确结果的秩用整数运算⌈p·n/100⌉求出：
+ * <ul>
+ * <li>25条成绩0.1、0.2……2.5的第28百分位必须为0.7</li>
+ * <li>成绩条数1到--max-count的每一种，随机一位小数成绩，每个整数百分位的percentile和quantile都与精确结果相同</li>
+ * <li>拆成多个摘要再合并、加入后再删除一部分，结果仍与剩余成绩的精确结果相同</li>
+ * <li>任意小数位的成绩，分位数与精确结果相差不超过0.05分</li>
+ * <li>GradeManager维护的课程摘要和合并摘要与getCourseGrades的成绩一致</li>
+ * </ul>
+ * 发现不一致时抛出异常并给出出错的条数和百分位。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.ScoreSketchCheck [选项]
+ *   --max-count 200        逐一检查的最大成绩条数
+ *   --trials 20            每种成绩条数的随机轮数
+ *   --seed 1               随机种子
+ * </pre>
+ */
+public final class ScoreSketchCheck {
+    private static final double ROUNDING_BOUND = 0.05 + 1e-9;
+
+    private ScoreSketchCheck() {
+    }
+
+    public static void main(String[] args) {
+        int maxCount = 200;
+        int trials = 20;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--max-count": maxCount = Integer.parseInt(args[++i]); break;
+                case "--trials": trials = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        Random random = new Random(seed);
+
+        // 评审给出的反例：0.28 * 25在double下略大于7，向上取整后取到第8条
+        ScoreSketch example = new ScoreSketch();
+        double[] tenths = new double[25];
+        for (int i = 0; i < tenths.length; i++) {
+            tenths[i] = (i + 1) / 10.0;
+            example.add(tenths[i]);
+        }
+        expectEquals("25条成绩的第28百分位", 0.7, example.percentile(28));
+        expectEquals("25条成绩的0.28分位", 0.7, example.quantile(0.28));
+        checkAll("25条一位小数成绩", example, tenths);
+
+        long checked = 0;
+        for (int n = 1; n <= maxCount; n++) {
+            for (int trial = 0; trial < trials; trial++) {
+                double[] scores = new double[n];
+                for (int i = 0; i < n; i++) {
+                    scores[i] = random.nextInt(1001) / 10.0;
+                }
+
+                ScoreSketch single = new ScoreSketch();
+                ScoreSketch[] parts = new ScoreSketch[1 + random.nextInt(4)];
+                for (int k = 0; k < parts.length; k++) {
+                    parts[k] = new ScoreSketch();
+                }
+                for (double score : scores) {
+                    single.add(score);
+                    parts[random.nextInt(parts.length)].add(score);
+                }
+                ScoreSketch merged = new ScoreSketch();
+                for (ScoreSketch part : parts) {
+                    merged.merge(part);
+                }
+                checkAll(n + "条一位小数成绩", single, scores);
+                checkAll(n + "条成绩分" + parts.length + "份合并", merged, scores);
+
+                // 再加入一批成绩后删除，剩余的仍是原来的成绩
+                int extra = random.nextInt(n + 1);
+                double[] added = new double[extra];
+                for (int i = 0; i < extra; i++) {
+                    added[i] = random.nextInt(1001) / 10.0;
+                    merged.add(added[i]);
+                }
+                for (double score : added) {
+                    merged.remove(score);
+                }
+                checkAll(n + "条成绩加入并删除" + extra + "条后", merged, scores);
+
+                double[] fine = new double[n];
+                ScoreSketch approximate = new ScoreSketch();
+                for (int i = 0; i < n; i++) {
+                    fine[i] = random.nextDouble() * 100;
+                    approximate.add(fine[i]);
+                }
+                checkWithin(n + "条任意小数成绩", approximate, fine);
+                checked += 5;
+            }
+        }
+
+        checkManager(random);
+        System.out.println("分位数与精确结果一致: 检查" + checked + "个摘要, 成绩条数1到" + maxCount);
+    }
+
+    /**
+     * 每个整数百分位的percentile、quantile，以及每条成绩的百分位排名，都与精确结果相同
+     */
+    private static void checkAll(String what, ScoreSketch sketch, double[] scores) {
+        double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        if (sketch.getCount() != sorted.length) {
+            throw new IllegalStateException(what + ": 条数" + sketch.getCount() + " != " + sorted.length);
+        }
+        for (int p = 0; p <= 100; p++) {
+            double exact = exactPercentile(sorted, p);
+            expectEquals(what + ", 第" + p + "百分位", exact, sketch.percentile(p));
+            expectEquals(what + ", " + p / 100.0 + "分位", exact, sketch.quantile(p / 100.0));
+        }
+        for (double score : sorted) {
+            int atMost = upperBound(sorted, score);
+            if (sketch.countAtMost(score) != atMost) {
+                throw new IllegalStateException(what + ": 不高于" + score + "的条数应为" + atMost
+                        + ", 实际" + sketch.countAtMost(score));
+            }
+        }
+    }
+
+    private static void checkWithin(String what, ScoreSketch sketch, double[] scores) {
+        double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        for (int p = 0; p <= 100; p++) {
+            double exact = exactPercentile(sorted, p);
+            double actual = sketch.percentile(p);
+            if (Math.abs(actual - exact) > ROUNDING_BOUND) {
+                throw new IllegalStateException(what + ", 第" + p + "百分位: 精确值" + exact + ", 摘要" + actual);
+            }
+        }
+    }
+
+    /**
+     * GradeManager增量维护的摘要与课程当前成绩一致，覆盖和删除后也一样
+     */
+    private static void checkManager(Random random) {
+        GradeManager manager = new GradeManager();
+        String[] courseIds = {"C0", "C1", "C2"};
+        for (int op = 0; op < 20_000; op++) {
+            String studentId = "S" + random.nextInt(500);
+            String courseId = courseIds[random.nextInt(courseIds.length)];
+            if (random.nextInt(4) == 0) {
+                manager.removeGrade(studentId, courseId);
+            } else {
+                manager.recordGrade(studentId, courseId, random.nextInt(1001) / 10.0);
+            }
+        }
+        List<Double> all = new ArrayList<>();
+        for (String courseId : courseIds) {
+            Map<String, Double> grades = manager.getCourseGrades(courseId);
+            all.addAll(grades.values());
+            checkAll("课程" + courseId, manager.getScoreSketch(courseId), toArray(grades.values()));
+        }
+        checkAll("合并的课程摘要", manager.mergeScoreSketches(Arrays.asList(courseIds)), toArray(all));
+    }
+
+    /**
+     * 最近秩：升序第⌈p·n/100⌉条，至少第1条，全部用整数运算
+     */
+    private static double exactPercentile(double[] sorted, int p) {
+        long rank = Math.max(1, ((long) p * sorted.length + 99) / 100);
+        return sorted[(int) rank - 1];
+    }
+
+    private static int upperBound(double[] sorted, double score) {
+        int count = 0;
+        while (count < sorted.length && sorted[count] <= score) {
+            count++;
+        }
+        return count;
+    }
+
+    private static double[] toArray(Collection<Double> values) {
+        double[] result = new double[values.size()];
+        int i = 0;
+        for (double value : values) {
+            result[i++] = value;
+        }
+        return result;
+    }
+
+    private static void expectEquals(String what, double expected, double actual) {
+        if (expected != actual) {
+            throw new IllegalStateException(what + ": 应为" + expected + ", 实际" + actual);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,339 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.ColumnarGradeStore;
+import com.grademanagement.grade.GradeEntry;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.persistence.Snapshot;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * 二进制快照与Java序列化的对比基准
+ * 生成指定规模的学生、课程和成绩，分别用{@link Snapshot}和ObjectOutputStream保存同样的数据，
+ * 再各自加载到新的管理类中，输出保存耗时、加载耗时和文件大小。
+ * Java序列化一侧把三个管理类的内容复制成可序列化的行对象列表后整体写出，行对象与管理类共用字符串，
+ * 相同的学号、课程编号只写一次；加载时读回行对象列表再经add方法和批量导入重建管理类。
+ * 两侧的保存都包含从管理类收集数据，加载都包含重建管理类：快照一侧经{@link GradeManager#loadGrades}批量装载，
+ * Java序列化一侧经逐条维护统计量的批量导入。成绩管理类都绑定课程管理类，加载时同时重建GPA。
+ * 加载后核对学生数、课程数、成绩条数、成绩校验和，以及每门课程的统计量、完整排名和每名学生的GPA。
+ * 成绩存储使用ColumnarGradeStore以降低峰值内存，默认规模下需要约4GB堆。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms4200m -Xmx4200m -cp out com.grademanagement.bench.SnapshotBenchmark [选项]
+ *   --students 1000000     学生数
+ *   --courses 2000         课程数
+ *   --per-student 10       每名学生选课数
+ *   --dir /tmp             快照文件所在目录
+ * </pre>
+ */
+public final class SnapshotBenchmark {
+
+    private SnapshotBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 1_000_000;
+        int courses = 2000;
+        int perStudent = 10;
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--dir": dir = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (perStudent > courses) {
+            throw new IllegalArgumentException("每名学生选课数不能超过课程数");
+        }
+
+        Managers original = generate(students, courses, perStudent);
+        Summary expected = Summary.of(original);
+        System.out.printf("数据: %d名学生, %d门课程, %d条成绩%n",
+                expected.students, expected.courses, expected.grades);
+
+        Path snapshotFile = dir.resolve("grade-bench.snapshot");
+        Path serializedFile = dir.resolve("grade-bench.ser");
+        try {
+            long start = System.nanoTime();
+            Snapshot.save(snapshotFile, original.students, original.courses, original.grades);
+            long snapshotSave = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            serialize(serializedFile, original);
+            long serializedSave = System.nanoTime() - start;
+            original = null; // 加载前释放原始数据
+
+            Managers loaded = Managers.create(students, courses);
+            start = System.nanoTime();
+            Snapshot.load(snapshotFile, loaded.students, loaded.courses, loaded.grades);
+            long snapshotLoad = System.nanoTime() - start;
+            expected.check("Snapshot", Summary.of(loaded));
+            loaded = null;
+
+            loaded = Managers.create(students, courses);
+            start = System.nanoTime();
+            deserialize(serializedFile, loaded);
+            long serializedLoad = System.nanoTime() - start;
+            expected.check("ObjectOutputStream", Summary.of(loaded));
+
+            System.out.println("format,save_ms,load_ms,file_mb");
+            System.out.printf("Snapshot,%.1f,%.1f,%.1f%n", snapshotSave / 1e6, snapshotLoad / 1e6,
+                    Files.size(snapshotFile) / 1048576.0);
+            System.out.printf("ObjectOutputStream,%.1f,%.1f,%.1f%n", serializedSave / 1e6, serializedLoad / 1e6,
+                    Files.size(serializedFile) / 1048576.0);
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(serializedFile);
+        }
+    }
+
+    private static Managers generate(int students, int courses, int perStudent) {
+        Managers managers = Managers.create(students, courses);
+        Random random = new Random(42);
+        String[] departments = new String[Dataset.DEPARTMENTS];
+        for (int d = 0; d < departments.length; d++) {
+            departments[d] = "院系" + d;
+        }
+        String[] courseIds = new String[courses];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c);
+            managers.courses.addCourse(courseIds[c], "课程" + c, 1 + random.nextInt(8) * 0.5,
+                    "教师" + c % Dataset.TEACHERS, "周" + (c % 5 + 1));
+        }
+        String[] studentIds = new String[students];
+        for (int s = 0; s < students; s++) {
+            studentIds[s] = String.format("S%07d", s);
+            managers.students.addStudent(studentIds[s], "学生" + s, 18 + random.nextInt(6),
+                    random.nextBoolean() ? "男" : "女", departments[s % departments.length]);
+        }
+        // 每名学生从随机起点连续选perStudent门课，成绩取0.5的整数倍
+        managers.grades.importGrades(new Iterator<GradeEntry>() {
+            private int student;
+            private int k;
+            private int first = random.nextInt(courses);
+
+            @Override
+            public boolean hasNext() {
+                return student < students;
+            }
+
+            @Override
+            public GradeEntry next() {
+                if (student >= students) {
+                    throw new NoSuchElementException();
+                }
+                GradeEntry entry = new GradeEntry(studentIds[student], courseIds[(first + k) % courses],
+                        random.nextInt(201) / 2.0);
+                if (++k == perStudent) {
+                    k = 0;
+                    student++;
+                    first = random.nextInt(courses);
+                }
+                return entry;
+            }
+        });
+        return managers;
+    }
+
+    private static void serialize(Path file, Managers managers) throws IOException {
+        Image image = new Image();
+        for (Student student : managers.students.getAllStudents()) {
+            image.students.add(new StudentRow(student));
+        }
+        for (Course course : managers.courses.getAllCourses()) {
+            image.courses.add(new CourseRow(course));
+        }
+        image.grades.ensureCapacity(managers.grades.getGradeCount());
+        managers.grades.forEachGrade((studentId, courseId, grade) ->
+                image.grades.add(new GradeRow(studentId, courseId, grade)));
+        try (ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 20))) {
+            out.writeObject(image);
+        }
+    }
+
+    private static void deserialize(Path file, Managers managers) throws IOException, ClassNotFoundException {
+        Image image;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 20))) {
+            image = (Image) in.readObject();
+        }
+        for (StudentRow row : image.students) {
+            managers.students.addStudent(row.studentId, row.name, row.age, row.gender, row.department);
+        }
+        for (CourseRow row : image.courses) {
+            managers.courses.addCourse(row.courseId, row.courseName, row.credit, row.teacher, row.schedule);
+        }
+        Iterator<GradeRow> rows = image.grades.iterator();
+        managers.grades.importGrades(new Iterator<GradeEntry>() {
+            @Override
+            public boolean hasNext() {
+                return rows.hasNext();
+            }
+
+            @Override
+            public GradeEntry next() {
+                GradeRow row = rows.next();
+                return new GradeEntry(row.studentId, row.courseId, row.grade);
+            }
+        });
+    }
+
+    /**
+     * 一组管理类，按规模预先分配
+     */
+    private static final class Managers {
+        final StudentManager students;
+        final CourseManager courses;
+        final GradeManager grades;
+
+        private Managers(StudentManager students, CourseManager courses, GradeManager grades) {
+            this.students = students;
+            this.courses = courses;
+            this.grades = grades;
+        }
+
+        static Managers create(int students, int courses) {
+            Managers managers = new Managers(new StudentManager(StudentManager.UNLIMITED, students, false),
+                    new CourseManager(CourseManager.UNLIMITED, courses, false),
+                    new GradeManager(new ColumnarGradeStore()));
+            managers.grades.bindCourses(managers.courses);
+            return managers;
+        }
+    }
+
+    /**
+     * 加载结果核对用的摘要，校验和与遍历顺序无关
+     * 成绩校验和覆盖全部成绩；统计校验和覆盖每门课程的统计量和完整排名，以及每名学生的GPA（保留6位小数，
+     * 批量装载与逐条累计的求和顺序不同，末位可能不同）
+     */
+    private static final class Summary {
+        final int students;
+        final int courses;
+        final int grades;
+        final long checksum;
+        final long derived;
+
+        private Summary(int students, int courses, int grades, long checksum, long derived) {
+            this.students = students;
+            this.courses = courses;
+            this.grades = grades;
+            this.checksum = checksum;
+            this.derived = derived;
+        }
+
+        static Summary of(Managers managers) {
+            long[] checksum = new long[1];
+            managers.grades.forEachGrade((studentId, courseId, grade) ->
+                    checksum[0] += (studentId.hashCode() * 31L + courseId.hashCode()) * (long) (grade * 2 + 1));
+            long derived = 0;
+            for (Course course : managers.courses.getAllCourses()) {
+                String courseId = course.getCourseId();
+                GradeManager.CourseStats stats = managers.grades.getCourseStats(courseId);
+                long statsHash = stats == null ? 0
+                        : (stats.getCount() * 31L + Double.hashCode(stats.getSum())) * 31L
+                        + Arrays.hashCode(stats.getRanges()) * 31L
+                        + Double.hashCode(stats.getMin()) * 17L + Double.hashCode(stats.getMax());
+                derived += courseId.hashCode() * (statsHash * 31L + managers.grades.getGradeRanking(courseId).hashCode());
+            }
+            for (Student student : managers.students.getAllStudents()) {
+                String studentId = student.getStudentId();
+                derived += studentId.hashCode() * Math.round(managers.grades.getGpa(studentId) * 1e6);
+            }
+            return new Summary(managers.students.getStudentCount(), managers.courses.getAllCourses().size(),
+                    managers.grades.getGradeCount(), checksum[0], derived);
+        }
+
+        void check(String format, Summary actual) {
+            if (actual.students != students || actual.courses != courses || actual.grades != grades
+                    || actual.checksum != checksum) {
+                throw new IllegalStateException(format + "加载结果不符: 学生" + actual.students + "/" + students
+                        + ", 课程" + actual.courses + "/" + courses + ", 成绩" + actual.grades + "/" + grades
+                        + ", 校验和" + actual.checksum + "/" + checksum);
+            }
+            if (actual.derived != derived) {
+                throw new IllegalStateException(format + "加载后的统计量、排名或GPA不符: 校验和"
+                        + actual.derived + "/" + derived);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- Java序列化用的行对象
+
+    private static final class Image implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final ArrayList<StudentRow> students = new ArrayList<>();
+        final ArrayList<CourseRow> courses = new ArrayList<>();
+        final ArrayList<GradeRow> grades = new ArrayList<>();
+    }
+
+    private static final class StudentRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String studentId;
+        final String name;
+        final int age;
+        final String gender;
+        final String department;
+
+        StudentRow(Student student) {
+            this.studentId = student.getStudentId();
+            this.name = student.getName();
+            this.age = student.getAge();
+            this.gender = student.getGender();
+            this.department = student.getDepartment();
+        }
+    }
+
+    private static final class CourseRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String courseId;
+        final String courseName;
+        final double credit;
+        final String teacher;
+        final String schedule;
+
+        CourseRow(Course course) {
+            this.courseId = course.getCourseId();
+            this.courseName = course.getCourseName();
+            this.credit = course.getCredit();
+            this.teacher = course.getTeacher();
+            this.schedule = course.getSchedule();
+        }
+    }
+
+    private static final class GradeRow implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String studentId;
+        final String courseId;
+        final double grade;
+
+        GradeRow(String studentId, String courseId, double grade) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.grade = grade;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.report.ReportGenerator;
+import com.grademanagement.snapshot.DataSnapshot;
+import com.grademanagement.snapshot.DataView;
+import com.grademanagement.snapshot.LiveView;
+import com.grademanagement.snapshot.SnapshotStore;
+import com.grademanagement.student.StudentManager;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 并发写入下的快照报表一致性检查
+ * 若干写线程不断录入、删除成绩，修改课程学分和授课教师、学生院系，同时主线程从{@link SnapshotStore}
+ * 取快照生成课程、院系和教师报表。每份报表在写入继续进行一段时间后用同一个快照再生成一次，
+ * 两次输出必须完全相同，即报表的每次读取都落在该快照的版本上，不会混入之后的写入；
+ * 同时检查快照内每门课程的统计量条数、成绩表和排名三者一致。
+ * 作为对照，同样的做法用于直接读取管理类的{@link LiveView}，只统计两次输出不同的次数。
+ * 写入停止后，最终快照中的课程、成绩必须与管理类一致，LiveView的课程版本号必须与课程管理类一致。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.SnapshotConsistencyCheck [选项]
+ *   --students 2000        学生数
+ *   --courses 40           课程数
+ *   --writers 2            写线程数
+ *   --reports 500          每种数据来源生成的报表份数
+ *   --seed 1               随机种子
+ * </pre>
+ */
+public final class SnapshotConsistencyCheck {
+
+    private SnapshotConsistencyCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 2000;
+        int courses = 40;
+        int writers = 2;
+        int reports = 500;
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--writers": writers = Integer.parseInt(args[++i]); break;
+                case "--reports": reports = Integer.parseInt(args[++i]); break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        StudentManager studentManager = new StudentManager(true);
+        CourseManager courseManager = new CourseManager(true);
+        GradeManager gradeManager = new GradeManager(true);
+        String[] studentIds = new String[students];
+        String[] courseIds = new String[courses];
+        String[] departments = new String[Dataset.DEPARTMENTS];
+        String[] teachers = new String[Dataset.TEACHERS];
+        for (int d = 0; d < departments.length; d++) {
+            departments[d] = "院系" + d;
+        }
+        for (int t = 0; t < teachers.length; t++) {
+            teachers[t] = "教师" + t;
+        }
+        Random random = new Random(seed);
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c);
+            courseManager.addCourse(courseIds[c], "课程" + c, 1 + random.nextInt(8) * 0.5,
+                    teachers[c % teachers.length], "周" + (c % 5 + 1));
+        }
+        for (int s = 0; s < students; s++) {
+            studentIds[s] = String.format("S%06d", s);
+            studentManager.addStudent(studentIds[s], "学生" + s, 18 + random.nextInt(6),
+                    random.nextBoolean() ? "男" : "女", departments[s % departments.length]);
+            for (int k = 0; k < 5; k++) {
+                gradeManager.recordGrade(studentIds[s], courseIds[random.nextInt(courses)], random.nextInt(201) / 2.0);
+            }
+        }
+
+        gradeManager.bindCourses(courseManager);
+        SnapshotStore store = new SnapshotStore(studentManager, courseManager, gradeManager);
+        LiveView live = new LiveView(studentManager, courseManager, gradeManager);
+        ReportGenerator snapshotReports = new ReportGenerator(store);
+        ReportGenerator liveReports = new ReportGenerator(live);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++) {
+            Random writerRandom = new Random(seed * 31 + w);
+            threads[w] = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        String studentId = studentIds[writerRandom.nextInt(studentIds.length)];
+                        String courseId = courseIds[writerRandom.nextInt(courseIds.length)];
+                        int op = writerRandom.nextInt(20);
+                        if (op == 0) {
+                            Course course = courseManager.getCourse(courseId);
+                            courseManager.updateCourse(courseId, course.getCourseName(),
+                                    1 + writerRandom.nextInt(8) * 0.5, teachers[writerRandom.nextInt(teachers.length)],
+                                    course.getSchedule());
+                        } else if (op == 1) {
+                            studentManager.updateStudent(studentId, "学生" + studentId, 20, "男",
+                                    departments[writerRandom.nextInt(departments.length)]);
+                        } else if (op < 6) {
+                            gradeManager.removeGrade(studentId, courseId);
+                        } else {
+                            gradeManager.recordGrade(studentId, courseId, writerRandom.nextInt(201) / 2.0);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "snapshot-writer-" + w);
+            threads[w].start();
+        }
+
+        int liveChanged = 0;
+        long firstVersion = store.snapshot().getVersion();
+        try {
+            for (int r = 0; r < reports; r++) {
+                DataSnapshot view = (DataSnapshot) snapshotReports.currentView();
+                String courseId = courseIds[random.nextInt(courseIds.length)];
+                checkCourse(view, courseId);
+                String first = render(snapshotReports, view, courseId, departments, teachers, r);
+                Thread.yield(); // 让写线程推进
+                String second = render(snapshotReports, view, courseId, departments, teachers, r);
+                if (!first.equals(second)) {
+                    throw new IllegalStateException("同一快照(版本" + view.getVersion() + ")两次生成的报表不同: 第" + r + "份");
+                }
+            }
+            for (int r = 0; r < reports; r++) {
+                DataView view = liveReports.currentView();
+                String courseId = courseIds[random.nextInt(courseIds.length)];
+                String first = render(liveReports, view, courseId, departments, teachers, r);
+                Thread.yield();
+                String second = render(liveReports, view, courseId, departments, teachers, r);
+                if (!first.equals(second)) {
+                    liveChanged++;
+                }
+            }
+        } finally {
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("写线程失败", failure.get());
+        }
+        long lastVersion = store.snapshot().getVersion();
+        if (lastVersion == firstVersion) {
+            throw new IllegalStateException("检查期间没有发生写入");
+        }
+
+        // 写入停止后，最终快照与管理类一致
+        DataSnapshot last = store.snapshot();
+        for (String courseId : courseIds) {
+            checkCourse(last, courseId);
+            if (!last.getCourseGrades(courseId).equals(gradeManager.getCourseGrades(courseId))) {
+                throw new IllegalStateException("最终快照中课程" + courseId + "的成绩与管理类不一致");
+            }
+            Course course = last.getCourse(courseId);
+            Course current = courseManager.getCourse(courseId);
+            if (course.getCredit() != current.getCredit() || !course.getTeacher().equals(current.getTeacher())) {
+                throw new IllegalStateException("最终快照中课程" + courseId + "与管理类不一致");
+            }
+        }
+        if (live.getCourseVersion() != courseManager.getVersion()) {
+            throw new IllegalStateException("LiveView课程版本号与课程管理类不一致");
+        }
+
+        System.out.printf("快照: %d份报表两次生成均相同, 期间快照版本从%d推进到%d%n", reports, firstVersion, lastVersion);
+        System.out.printf("LiveView对照: %d份报表中%d份两次生成不同%n", reports, liveChanged);
+    }
+
+    /**
+     * 依次生成课程、院系、教师报表，拼接为一份文本
+     */
+    private static String render(ReportGenerator generator, DataView view, String courseId,
+                                 String[] departments, String[] teachers, int index) throws IOException {
+        StringBuilder out = new StringBuilder();
+        generator.generateCourseReport(view, courseId, out);
+        generator.generateDepartmentReport(view, departments[index % departments.length], out);
+        generator.generateTeacherReport(view, teachers[index % teachers.length], out);
+        return out.toString();
+    }
+
+    /**
+     * 快照内同一课程的统计量、成绩表和排名必须描述同一组成绩
+     */
+    private static void checkCourse(DataView view, String courseId) {
+        int grades = view.getCourseGrades(courseId).size();
+        GradeManager.CourseStats stats = view.getCourseStats(courseId);
+        int counted = stats == null ? 0 : stats.getCount();
+        int ranked = view.getGradeRanking(courseId).size();
+        if (counted != grades || ranked != grades) {
+            throw new IllegalStateException("课程" + courseId + "在同一视图中不一致: 统计" + counted
+                    + "条, 成绩表" + grades + "条, 排名" + ranked + "条");
+        }
+    }
+}
\ No newline at end of file
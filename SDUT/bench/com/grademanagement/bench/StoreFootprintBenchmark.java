@@ -0,0 +1,162 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.grade.ColumnarGradeStore;
+import com.grademanagement.grade.ConcurrentGradeStore;
+import com.grademanagement.grade.GradeStore;
+import com.grademanagement.grade.HashGradeStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * 成绩存储内存占用基准
+ * 用同样的成绩依次装载HashGradeStore、ConcurrentGradeStore和ColumnarGradeStore，
+ * 输出每条成绩占用的堆内存、装载耗时和一次全量遍历的耗时。
+ * 之后进行换届：每轮删除最早一批学生的全部成绩，再为同样数量的新学号写入成绩，
+ * 在册学生数和成绩条数不变，但出现过的学号不断增加。换届结束后再次测量堆占用和全量遍历耗时，
+ * 用于确认存储不会因为已删除的学号持续占用内存或拖慢遍历。
+ * 学号、课程编号字符串在装载前统一生成，不计入装载阶段的堆占用；换届新生成的学号由存储持有，计入换届后的占用。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -Xms4g -Xmx4g -cp out com.grademanagement.bench.StoreFootprintBenchmark [选项]
+ *   --students 200000      在册学生数
+ *   --courses 2000         课程数
+ *   --per-student 10       每名学生的成绩条数
+ *   --churn-rounds 20      换届轮数
+ *   --churn-batch 20000    每轮换掉的学生数
+ * </pre>
+ */
+public final class StoreFootprintBenchmark {
+
+    private StoreFootprintBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int students = 200_000;
+        int courses = 2000;
+        int perStudent = 10;
+        int churnRounds = 20;
+        int churnBatch = 20_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = Integer.parseInt(args[++i]); break;
+                case "--churn-rounds": churnRounds = Integer.parseInt(args[++i]); break;
+                case "--churn-batch": churnBatch = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (perStudent > courses || churnBatch > students) {
+            throw new IllegalArgumentException("每名学生成绩数不能超过课程数，每轮换届人数不能超过在册学生数");
+        }
+
+        String[] studentIds = new String[students];
+        for (int s = 0; s < students; s++) {
+            studentIds[s] = studentId(s);
+        }
+        String[] courseIds = new String[courses];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = String.format("C%04d", c);
+        }
+
+        System.out.println("store,phase,grades,distinct_students_seen,heap_bytes_per_grade,load_ms,scan_ms");
+        run("HashGradeStore", new HashGradeStore(), studentIds, courseIds, perStudent, churnRounds, churnBatch);
+        run("ConcurrentGradeStore", new ConcurrentGradeStore(), studentIds, courseIds, perStudent,
+                churnRounds, churnBatch);
+        run("ColumnarGradeStore", new ColumnarGradeStore(), studentIds, courseIds, perStudent,
+                churnRounds, churnBatch);
+    }
+
+    private static void run(String name, GradeStore store, String[] studentIds, String[] courseIds,
+                            int perStudent, int churnRounds, int churnBatch) {
+        int students = studentIds.length;
+        long grades = (long) students * perStudent;
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        for (int s = 0; s < students; s++) {
+            putRow(store, studentIds[s], s, courseIds, perStudent);
+        }
+        long loadNanos = System.nanoTime() - start;
+        long loadedHeap = usedHeap() - before;
+        check(store, grades);
+        System.out.printf("%s,load,%d,%d,%.1f,%.1f,%.1f%n", name, grades, students,
+                (double) loadedHeap / grades, loadNanos / 1e6, scanNanos(store, grades) / 1e6);
+
+        // 换届：在册学生是一个滑动窗口[oldest, oldest + students)，窗口内的学号始终有成绩
+        String[] window = studentIds.clone();
+        int oldest = 0;
+        start = System.nanoTime();
+        for (int round = 0; round < churnRounds; round++) {
+            for (int b = 0; b < churnBatch; b++) {
+                int slot = (oldest + b) % students;
+                for (int k = 0; k < perStudent; k++) {
+                    if (Double.isNaN(store.remove(window[slot], courseIds[(slot + k) % courseIds.length]))) {
+                        throw new IllegalStateException(name + " 删除不存在的成绩: " + window[slot]);
+                    }
+                }
+                int fresh = students + round * churnBatch + b;
+                window[slot] = studentId(fresh);
+                putRow(store, window[slot], slot, courseIds, perStudent);
+            }
+            oldest = (oldest + churnBatch) % students;
+        }
+        long churnNanos = System.nanoTime() - start;
+        long churnedHeap = usedHeap() - before;
+        check(store, grades);
+        System.out.printf("%s,churn,%d,%d,%.1f,%.1f,%.1f%n", name, grades,
+                students + (long) churnRounds * churnBatch,
+                (double) churnedHeap / grades, churnNanos / 1e6, scanNanos(store, grades) / 1e6);
+    }
+
+    /**
+     * 为第slot个在册位置的学生写入从课程slot开始的连续perStudent门课程的成绩
+     */
+    private static void putRow(GradeStore store, String studentId, int slot, String[] courseIds, int perStudent) {
+        for (int k = 0; k < perStudent; k++) {
+            store.put(studentId, courseIds[(slot + k) % courseIds.length], 60 + (slot + k) % 41);
+        }
+    }
+
+    private static void check(GradeStore store, long grades) {
+        if (store.size() != grades) {
+            throw new IllegalStateException("成绩条数不符: " + store.size() + " != " + grades);
+        }
+    }
+
+    /**
+     * 全量遍历三次，取最快一次的耗时
+     */
+    private static long scanNanos(GradeStore store, long grades) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long[] visited = new long[1];
+            long start = System.nanoTime();
+            store.forEach((studentId, courseId, grade) -> visited[0]++);
+            best = Math.min(best, System.nanoTime() - start);
+            if (visited[0] != grades) {
+                throw new IllegalStateException("遍历条数不符: " + visited[0] + " != " + grades);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 生成8位定长学号
+     */
+    private static String studentId(int index) {
+        return String.format("%08d", index);
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.grademanagement.bench;
+
+import com.grademanagement.warning.AcademicWarningEngine;
+import com.grademanagement.warning.WarningListener;
+import com.grademanagement.warning.WarningRule;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 学业预警开销基准
+ * 在同一数据集上依次测量不挂预警引擎、挂不及格数和平均分规则、再加GPA规则时覆盖成绩的单次耗时，
+ * 差值即预警引擎带给每次成绩写入的开销。每名学生选课数取多个值，用于确认开销与学生成绩条数无关。
+ * 另测一组在及格线两侧来回改成绩的写入，每次都会触发预警状态变化和回调。
+ * <p>
+ * 用法（编译src和bench两个源目录后）：
+ * <pre>
+ * java -cp out com.grademanagement.bench.WarningBenchmark [选项]
+ *   --students 100000      学生数
+ *   --courses 500          课程数
+ *   --per-student 5,40     每名学生选课数
+ *   --warmup 500 --measure 1000 --rounds 5   预热和每轮测量的毫秒数、轮数
+ * </pre>
+ */
+public final class WarningBenchmark {
+
+    private WarningBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = 100_000;
+        int courses = 500;
+        int[] perStudent = {5, 40};
+        long warmup = 500;
+        long measure = 1000;
+        int rounds = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students": students = Integer.parseInt(args[++i]); break;
+                case "--courses": courses = Integer.parseInt(args[++i]); break;
+                case "--per-student": perStudent = parseInts(args[++i]); break;
+                case "--warmup": warmup = Long.parseLong(args[++i]); break;
+                case "--measure": measure = Long.parseLong(args[++i]); break;
+                case "--rounds": rounds = Integer.parseInt(args[++i]); break;
+                default:
+                    System.err.println("未知选项: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        Harness harness = new Harness(warmup, measure, rounds);
+        System.out.println(Harness.Result.HEADER);
+        for (int coursesPerStudent : perStudent) {
+            run(harness, new Dataset(students, courses, coursesPerStudent));
+        }
+    }
+
+    private static void run(Harness harness, Dataset data) throws Exception {
+        String params = data.describe();
+        Random random = new Random(7);
+        double[] grades = new double[4096];
+        for (int i = 0; i < grades.length; i++) {
+            grades[i] = Dataset.randomGrade(random);
+        }
+
+        Harness.Operation record = i ->
+                data.gradeManager.recordGrade(data.studentOf(i), data.courseOf(i), grades[i & 4095]);
+        // 同一条成绩在55和65之间交替，每次写入都跨过及格线
+        Harness.Operation flip = i ->
+                data.gradeManager.recordGrade(data.studentOf(i >>> 1), data.courseOf(i >>> 1), (i & 1) == 0 ? 55 : 65);
+
+        harness.measure("recordGrade", params, record);
+        harness.measure("recordGrade.flip", params, flip);
+
+        AcademicWarningEngine engine = new AcademicWarningEngine(data.gradeManager,
+                WarningRule.failedCourses("不及格1门", 1), WarningRule.averageBelow("平均分低于65", 65));
+        LongAdder changes = new LongAdder();
+        engine.addListener(new WarningListener() {
+            @Override
+            public void warningRaised(String studentId, WarningRule rule) {
+                changes.increment();
+            }
+
+            @Override
+            public void warningCleared(String studentId, WarningRule rule) {
+                changes.increment();
+            }
+        });
+        harness.measure("recordGrade+warning", params, record);
+        harness.measure("recordGrade.flip+warning", params, flip);
+        engine.close();
+
+        engine = new AcademicWarningEngine(data.gradeManager,
+                WarningRule.failedCourses("不及格1门", 1), WarningRule.averageBelow("平均分低于65", 65),
+                WarningRule.gpaBelow("GPA低于65", 65));
+        harness.measure("recordGrade+warning+gpa", params, record);
+        engine.close();
+        System.out.println("预警状态变化次数: " + changes.sum());
+    }
+
+    private static int[] parseInts(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
\ No newline at end of file
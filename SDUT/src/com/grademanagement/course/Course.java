@@ -1,14 +1,18 @@
 package com.grademanagement.course;
 
+import java.util.Objects;
+
 /**
  * 课程实体类
+ * 不可变，修改信息时由{@link CourseManager}生成新实例替换旧实例，已取得的实例可以在线程间共享而无需加锁。
+ * 通过管理类创建的实例中，教师和上课时间取自管理类的字典，同值的字段共用同一个字符串
  */
-public class Course {
-    private String courseId;
-    private String courseName;
-    private double credit;
-    private String teacher;
-    private String schedule;
+public final class Course {
+    private final String courseId;
+    private final String courseName;
+    private final double credit;
+    private final String teacher;
+    private final String schedule;
 
     public Course(String courseId, String courseName, double credit, String teacher, String schedule) {
         this.courseId = courseId;
@@ -18,51 +22,36 @@ public class Course {
         this.schedule = schedule;
     }
 
-    // Getter和Setter方法
-    public String getCourseId() {
-        return courseId;
-    }
-
-    public String getCourseName() {
-        return courseName;
-    }
-
-    public void setCourseName(String courseName) {
-        this.courseName = courseName;
-    }
-
-    public double getCredit() {
-        return credit;
-    }
-
-    public void setCredit(double credit) {
-        this.credit = credit;
-    }
-
-    public String getTeacher() {
-        return teacher;
-    }
-
-    public void setTeacher(String teacher) {
-        this.teacher = teacher;
-    }
+    public String getCourseId() { return courseId; }
+    public String getCourseName() { return courseName; }
+    public double getCredit() { return credit; }
+    public String getTeacher() { return teacher; }
+    public String getSchedule() { return schedule; }
 
-    public String getSchedule() {
-        return schedule;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Course)) {
+            return false;
+        }
+        Course other = (Course) o;
+        return Double.compare(credit, other.credit) == 0
+                && Objects.equals(courseId, other.courseId)
+                && Objects.equals(courseName, other.courseName)
+                && Objects.equals(teacher, other.teacher)
+                && Objects.equals(schedule, other.schedule);
     }
 
-    public void setSchedule(String schedule) {
-        this.schedule = schedule;
+    @Override
+    public int hashCode() {
+        return Objects.hash(courseId, courseName, credit, teacher, schedule);
     }
 
     @Override
     public String toString() {
-        return "Course{" +
-                "courseId='" + courseId + '\'' +
-                ", courseName='" + courseName + '\'' +
-                ", credit=" + credit +
-                ", teacher='" + teacher + '\'' +
-                ", schedule='" + schedule + '\'' +
-                '}';
+        return String.format("课程编号: %s, 名称: %s, 学分: %.1f, 教师: %s, 时间: %s",
+                courseId, courseName, credit, teacher, schedule);
     }
 }
\ No newline at end of file
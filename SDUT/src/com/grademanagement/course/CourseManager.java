@@ -1,9 +1,22 @@
 package com.grademanagement.course;
 
+import com.grademanagement.event.CompositeEventSink;
+import com.grademanagement.event.EntityType;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.metrics.ManagerMetrics;
+import com.grademanagement.metrics.OperationType;
+import com.grademanagement.util.Interner;
+import com.grademanagement.util.OpenHashMap;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 课程管理类
@@ -11,10 +24,84 @@ import java.util.Map;
  */
 public class CourseManager {
     private Map<String, Course> courses;
-    private static final int MAX_COURSES = 200;
+    // 教师 -> (课程编号 -> 课程)，与courses在同一课程编号的原子操作内维护；教师条目清空后保留，使已返回的视图保持有效
+    private final Map<String, Map<String, Course>> teacherIndex;
+    private final boolean concurrent;
+    private final int capacity;
+    // 教师、上课时间的字典，使所有课程共用同值的字符串
+    private final Interner dictionary = new Interner();
+    // 每次课程增删改生效后加一，供按课程派生数据的缓存判断是否过期
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 不限制数量
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public static final String MSG_LIMIT_REACHED = "已达到最大课程数量限制！";
+    public static final String MSG_DUPLICATE_ID = "该课程编号已存在！";
+    public static final String MSG_NOT_FOUND = "该课程编号不存在！";
+
+    private volatile EventSink eventSink = EventSink.NOOP;
+    private volatile ManagerMetrics metrics = ManagerMetrics.DISABLED;
 
     public CourseManager() {
-        this.courses = new HashMap<>();
+        this(false);
+    }
+
+    /**
+     * @param concurrent 是否启用并发模式，启用后可由多个线程同时增删改查
+     */
+    public CourseManager(boolean concurrent) {
+        this(UNLIMITED, 0, concurrent);
+    }
+
+    /**
+     * 非并发模式下使用开放寻址的{@link OpenHashMap}存储，每个课程只占两个数组槽位，适合数百万规模；
+     * 并发模式下使用按预计数量预先分配的ConcurrentHashMap
+     * @param capacity 最多保存的课程数量，达到后拒绝添加；不限制时传{@link #UNLIMITED}
+     * @param expectedSize 预计课程数量，按此预先分配存储，批量导入时不再反复扩容
+     * @param concurrent 是否启用并发模式，启用后可由多个线程同时增删改查
+     */
+    public CourseManager(int capacity, int expectedSize, boolean concurrent) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("预计数量不能为负: " + expectedSize);
+        }
+        this.capacity = capacity;
+        this.concurrent = concurrent;
+        this.courses = concurrent ? new ConcurrentHashMap<>(expectedSize) : new OpenHashMap<>(expectedSize);
+        this.teacherIndex = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * 注册事件接收器，增删改及被拒绝的操作都会回调
+     * @param sink 事件接收器
+     */
+    public synchronized void addEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.add(eventSink, sink);
+    }
+
+    /**
+     * 注销事件接收器
+     * @param sink 事件接收器
+     */
+    public synchronized void removeEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.remove(eventSink, sink);
+    }
+
+    /**
+     * 接入操作指标，同一实例会作为事件接收器统计被拒绝的操作；传入{@link ManagerMetrics#DISABLED}即停止统计
+     * @param metrics 操作指标
+     */
+    public synchronized void setMetrics(ManagerMetrics metrics) {
+        eventSink = CompositeEventSink.remove(eventSink, this.metrics);
+        if (metrics.isEnabled()) {
+            eventSink = CompositeEventSink.add(eventSink, metrics);
+        }
+        this.metrics = metrics;
     }
 
     /**
@@ -28,20 +115,31 @@ public class CourseManager {
      */
     public boolean addCourse(String courseId, String courseName,
                              double credit, String teacher, String schedule) {
-        if (courses.size() >= MAX_COURSES) {
-            System.out.println("已达到最大课程数量限制！");
-            return false;
-        }
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            // 并发模式下数量上限只是近似检查，可能被同时到达的写入略微超过
+            if (courses.size() >= capacity) {
+                eventSink.rejected(EntityType.COURSE, courseId, null, MSG_LIMIT_REACHED);
+                return false;
+            }
 
-        if (courses.containsKey(courseId)) {
-            System.out.println("该课程编号已存在！");
-            return false;
+            Course newCourse = new Course(courseId, courseName, credit,
+                    dictionary.intern(teacher), dictionary.intern(schedule));
+            Course existing = courses.computeIfAbsent(courseId, k -> {
+                indexTeacher(newCourse);
+                return newCourse;
+            });
+            if (existing != newCourse) {
+                eventSink.rejected(EntityType.COURSE, courseId, null, MSG_DUPLICATE_ID);
+                return false;
+            }
+            version.incrementAndGet();
+            eventSink.courseAdded(newCourse);
+            return true;
+        } finally {
+            metrics.record(OperationType.COURSE_ADD, begin);
         }
-
-        Course newCourse = new Course(courseId, courseName, credit, teacher, schedule);
-        courses.put(courseId, newCourse);
-        System.out.println("课程添加成功：" + newCourse);
-        return true;
     }
 
     /**
@@ -50,14 +148,25 @@ public class CourseManager {
      * @return 删除是否成功
      */
     public boolean removeCourse(String courseId) {
-        if (!courses.containsKey(courseId)) {
-            System.out.println("该课程编号不存在！");
-            return false;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Course[] removed = new Course[1];
+            courses.computeIfPresent(courseId, (k, existing) -> {
+                unindexTeacher(existing);
+                removed[0] = existing;
+                return null;
+            });
+            if (removed[0] == null) {
+                eventSink.rejected(EntityType.COURSE, courseId, null, MSG_NOT_FOUND);
+                return false;
+            }
+            version.incrementAndGet();
+            eventSink.courseRemoved(removed[0]);
+            return true;
+        } finally {
+            metrics.record(OperationType.COURSE_REMOVE, begin);
         }
-
-        Course removed = courses.remove(courseId);
-        System.out.println("课程删除成功：" + removed);
-        return true;
     }
 
     /**
@@ -71,18 +180,42 @@ public class CourseManager {
      */
     public boolean updateCourse(String courseId, String courseName,
                                 double credit, String teacher, String schedule) {
-        if (!courses.containsKey(courseId)) {
-            System.out.println("该课程编号不存在！");
-            return false;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            String canonicalTeacher = dictionary.intern(teacher);
+            String canonicalSchedule = dictionary.intern(schedule);
+            Course[] previous = new Course[1];
+            // 在该键上原子地替换为新实例，避免与并发的删除交错；持有旧实例的读者不受影响
+            Course course = courses.computeIfPresent(courseId, (k, existing) -> {
+                Course updated = new Course(existing.getCourseId(), courseName, credit,
+                        canonicalTeacher, canonicalSchedule);
+                if (!Objects.equals(existing.getTeacher(), canonicalTeacher)) {
+                    unindexTeacher(existing);
+                }
+                indexTeacher(updated);
+                previous[0] = existing;
+                return updated;
+            });
+            if (course == null) {
+                eventSink.rejected(EntityType.COURSE, courseId, null, MSG_NOT_FOUND);
+                return false;
+            }
+            version.incrementAndGet();
+            eventSink.courseUpdated(previous[0], course);
+            return true;
+        } finally {
+            metrics.record(OperationType.COURSE_UPDATE, begin);
         }
+    }
 
-        Course course = courses.get(courseId);
-        course.setCourseName(courseName);
-        course.setCredit(credit);
-        course.setTeacher(teacher);
-        course.setSchedule(schedule);
-        System.out.println("课程信息更新成功：" + course);
-        return true;
+    /**
+     * 课程版本号，每次成功新增、修改、删除课程后加一
+     * 版本号在修改生效之后才递增，读到某个版本号之后再读取的课程数据不会比该版本旧
+     * @return 课程版本号
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     /**
@@ -91,7 +224,13 @@ public class CourseManager {
      * @return 课程对象，不存在返回null
      */
     public Course getCourse(String courseId) {
-        return courses.get(courseId);
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            return courses.get(courseId);
+        } finally {
+            metrics.record(OperationType.COURSE_GET, begin);
+        }
     }
 
     /**
@@ -104,17 +243,44 @@ public class CourseManager {
 
     /**
      * 按教师筛选课程
+     * 返回教师索引的只读视图，随后续增删改同步变化；非并发模式下遍历期间不能修改课程信息
      * @param teacher 教师姓名
-     * @return 该教师教授的课程列表
+     * @return 该教师教授的课程
      */
-    public List<Course> getCoursesByTeacher(String teacher) {
-        List<Course> result = new ArrayList<>();
-        for (Course course : courses.values()) {
-            if (course.getTeacher().equals(teacher)) {
-                result.add(course);
-            }
+    public Collection<Course> getCoursesByTeacher(String teacher) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Map<String, Course> taught = teacher != null ? teacherIndex.get(teacher) : null;
+            return taught != null ? Collections.unmodifiableCollection(taught.values()) : Collections.emptyList();
+        } finally {
+            metrics.record(OperationType.COURSE_BY_TEACHER, begin);
+        }
+    }
+
+    /**
+     * 把课程加入教师索引，调用方须持有该课程编号在courses上的原子操作
+     */
+    private void indexTeacher(Course course) {
+        if (course.getTeacher() == null) {
+            return;
+        }
+        teacherIndex.computeIfAbsent(course.getTeacher(),
+                tchr -> concurrent ? new ConcurrentHashMap<>() : new OpenHashMap<>())
+                .put(course.getCourseId(), course);
+    }
+
+    /**
+     * 把课程移出教师索引
+     */
+    private void unindexTeacher(Course course) {
+        if (course.getTeacher() == null) {
+            return;
+        }
+        Map<String, Course> taught = teacherIndex.get(course.getTeacher());
+        if (taught != null) {
+            taught.remove(course.getCourseId());
         }
-        return result;
     }
 
     /**
@@ -140,41 +306,4 @@ public class CourseManager {
         System.out.println("\n学分统计:");
         System.out.println("平均每门课程学分: " + (totalCredits / courses.size()));
     }
-
-    /**
-     * 课程类
-     */
-    public static class Course {
-        private String courseId;
-        private String courseName;
-        private double credit;
-        private String teacher;
-        private String schedule;
-
-        public Course(String courseId, String courseName, double credit,
-                      String teacher, String schedule) {
-            this.courseId = courseId;
-            this.courseName = courseName;
-            this.credit = credit;
-            this.teacher = teacher;
-            this.schedule = schedule;
-        }
-
-        // Getter和Setter方法
-        public String getCourseId() { return courseId; }
-        public String getCourseName() { return courseName; }
-        public void setCourseName(String courseName) { this.courseName = courseName; }
-        public double getCredit() { return credit; }
-        public void setCredit(double credit) { this.credit = credit; }
-        public String getTeacher() { return teacher; }
-        public void setTeacher(String teacher) { this.teacher = teacher; }
-        public String getSchedule() { return schedule; }
-        public void setSchedule(String schedule) { this.schedule = schedule; }
-
-        @Override
-        public String toString() {
-            return String.format("课程编号: %s, 名称: %s, 学分: %.1f, 教师: %s, 时间: %s",
-                    courseId, courseName, credit, teacher, schedule);
-        }
-    }
 }
\ No newline at end of file
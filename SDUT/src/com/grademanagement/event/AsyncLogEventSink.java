@@ -0,0 +1,164 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.student.Student;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 异步缓冲日志
+ * 回调线程只把事件放入有界队列，格式化和写出都在后台线程完成，
+ * 队列清空时才刷新输出。队列满时丢弃事件而不阻塞写入方，丢弃数可通过
+ * {@link #getDroppedCount()}查询。写出失败后后台线程退出，队列中剩余和之后到达的事件都计为丢弃，
+ * 异常在{@link #close()}时抛出。使用完毕后需调用{@link #close()}写出剩余事件
+ */
+public class AsyncLogEventSink implements EventSink, Closeable {
+    private static final int DEFAULT_CAPACITY = 65536;
+    private static final Supplier<String> END = () -> null;
+
+    private final BlockingQueue<Supplier<String>> queue;
+    private final BufferedWriter out;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public AsyncLogEventSink(Writer out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out 日志输出
+     * @param capacity 队列容量
+     */
+    public AsyncLogEventSink(Writer out, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out);
+        this.worker = new Thread(this::drain, "grade-event-log");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @return 因队列已满或写出失败被丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void enqueue(Supplier<String> line) {
+        if (closed || failure != null || !queue.offer(line)) {
+            dropped.increment();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                Supplier<String> line = queue.take();
+                if (line == END) {
+                    break;
+                }
+                out.write(line.get());
+                out.newLine();
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            failure = e;
+            // 不再有线程取队列，清空以免close放入结束标记时阻塞
+            while (queue.poll() != null) {
+                dropped.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 写出队列中剩余的事件并关闭输出
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // 后台线程已因写出失败退出时队列可能已满，不能无限等待放入结束标记
+            while (!queue.offer(END, 10, TimeUnit.MILLISECONDS)) {
+                if (!worker.isAlive()) {
+                    break;
+                }
+            }
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        enqueue(() -> EventFormatter.studentAdded(student));
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        enqueue(() -> EventFormatter.studentUpdated(student));
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        enqueue(() -> EventFormatter.studentRemoved(student));
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        enqueue(() -> EventFormatter.courseAdded(course));
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        enqueue(() -> EventFormatter.courseUpdated(course));
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        enqueue(() -> EventFormatter.courseRemoved(course));
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        enqueue(() -> EventFormatter.gradeRecorded(studentId, courseId, grade));
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        enqueue(() -> EventFormatter.gradeRemoved(studentId, courseId, grade));
+    }
+
+    @Override
+    public void gradesImported(GradeImportResult result) {
+        enqueue(() -> EventFormatter.gradesImported(result));
+    }
+
+    @Override
+    public void rejected(EntityType entity, String id, String subId, String reason) {
+        enqueue(() -> reason);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.student.Student;
+
+import java.util.Arrays;
+
+/**
+ * 组合事件接收器
+ * 按注册顺序依次转发给多个接收器，内部数组不可变
+ */
+public final class CompositeEventSink implements EventSink {
+    private final EventSink[] sinks;
+
+    private CompositeEventSink(EventSink[] sinks) {
+        this.sinks = sinks;
+    }
+
+    /**
+     * 在已有接收器后追加一个接收器
+     * @param current 当前接收器
+     * @param added 新增接收器
+     * @return 组合后的接收器
+     */
+    public static EventSink add(EventSink current, EventSink added) {
+        if (current == EventSink.NOOP) {
+            return added;
+        }
+        if (current instanceof CompositeEventSink) {
+            EventSink[] existing = ((CompositeEventSink) current).sinks;
+            EventSink[] sinks = Arrays.copyOf(existing, existing.length + 1);
+            sinks[existing.length] = added;
+            return new CompositeEventSink(sinks);
+        }
+        return new CompositeEventSink(new EventSink[]{current, added});
+    }
+
+    /**
+     * 从已有接收器中移除一个接收器
+     * @param current 当前接收器
+     * @param removed 要移除的接收器
+     * @return 移除后的接收器，为空时返回{@link EventSink#NOOP}
+     */
+    public static EventSink remove(EventSink current, EventSink removed) {
+        if (current == removed) {
+            return EventSink.NOOP;
+        }
+        if (!(current instanceof CompositeEventSink)) {
+            return current;
+        }
+        EventSink[] existing = ((CompositeEventSink) current).sinks;
+        EventSink[] sinks = new EventSink[existing.length];
+        int count = 0;
+        for (EventSink sink : existing) {
+            if (sink != removed) {
+                sinks[count++] = sink;
+            }
+        }
+        if (count == 0) {
+            return EventSink.NOOP;
+        }
+        if (count == 1) {
+            return sinks[0];
+        }
+        return new CompositeEventSink(Arrays.copyOf(sinks, count));
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        for (EventSink sink : sinks) sink.studentAdded(student);
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        for (EventSink sink : sinks) sink.studentUpdated(previous, student);
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        for (EventSink sink : sinks) sink.studentRemoved(student);
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        for (EventSink sink : sinks) sink.courseAdded(course);
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        for (EventSink sink : sinks) sink.courseUpdated(previous, course);
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        for (EventSink sink : sinks) sink.courseRemoved(course);
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        for (EventSink sink : sinks) sink.gradeRecorded(studentId, courseId, previous, grade);
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        for (EventSink sink : sinks) sink.gradeRemoved(studentId, courseId, grade);
+    }
+
+    @Override
+    public void courseCreditChanged(String courseId, double previous, double credit) {
+        for (EventSink sink : sinks) sink.courseCreditChanged(courseId, previous, credit);
+    }
+
+    @Override
+    public void gradesImported(GradeImportResult result) {
+        for (EventSink sink : sinks) sink.gradesImported(result);
+    }
+
+    @Override
+    public void rejected(EntityType entity, String id, String subId, String reason) {
+        for (EventSink sink : sinks) sink.rejected(entity, id, subId, reason);
+    }
+}
\ No newline at end of file
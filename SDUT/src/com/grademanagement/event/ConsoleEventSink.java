@@ -0,0 +1,62 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.student.Student;
+
+/**
+ * 控制台事件输出
+ * 同步打印到System.out，输出内容与管理类原先的提示信息一致
+ */
+public class ConsoleEventSink implements EventSink {
+
+    @Override
+    public void studentAdded(Student student) {
+        System.out.println(EventFormatter.studentAdded(student));
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        System.out.println(EventFormatter.studentUpdated(student));
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        System.out.println(EventFormatter.studentRemoved(student));
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        System.out.println(EventFormatter.courseAdded(course));
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        System.out.println(EventFormatter.courseUpdated(course));
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        System.out.println(EventFormatter.courseRemoved(course));
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        System.out.println(EventFormatter.gradeRecorded(studentId, courseId, grade));
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        System.out.println(EventFormatter.gradeRemoved(studentId, courseId, grade));
+    }
+
+    @Override
+    public void gradesImported(GradeImportResult result) {
+        System.out.println(EventFormatter.gradesImported(result));
+    }
+
+    @Override
+    public void rejected(EntityType entity, String id, String subId, String reason) {
+        System.out.println(reason);
+    }
+}
\ No newline at end of file
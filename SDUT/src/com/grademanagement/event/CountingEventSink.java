@@ -0,0 +1,106 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.student.Student;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件计数器
+ * 按实体类型和事件类型分别计数，可被多个线程同时回调
+ */
+public class CountingEventSink implements EventSink {
+    private final LongAdder[][] counters;
+
+    public CountingEventSink() {
+        counters = new LongAdder[EntityType.values().length][EventType.values().length];
+        for (LongAdder[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * 查询事件次数
+     * @param entity 实体类型
+     * @param type 事件类型
+     * @return 次数
+     */
+    public long getCount(EntityType entity, EventType type) {
+        return counters[entity.ordinal()][type.ordinal()].sum();
+    }
+
+    /**
+     * 清零所有计数
+     */
+    public void reset() {
+        for (LongAdder[] row : counters) {
+            for (LongAdder counter : row) {
+                counter.reset();
+            }
+        }
+    }
+
+    private void increment(EntityType entity, EventType type) {
+        counters[entity.ordinal()][type.ordinal()].increment();
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        increment(EntityType.STUDENT, EventType.ADDED);
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        increment(EntityType.STUDENT, EventType.UPDATED);
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        increment(EntityType.STUDENT, EventType.REMOVED);
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        increment(EntityType.COURSE, EventType.ADDED);
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        increment(EntityType.COURSE, EventType.UPDATED);
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        increment(EntityType.COURSE, EventType.REMOVED);
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        increment(EntityType.GRADE, Double.isNaN(previous) ? EventType.ADDED : EventType.UPDATED);
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        increment(EntityType.GRADE, EventType.REMOVED);
+    }
+
+    @Override
+    public void rejected(EntityType entity, String id, String subId, String reason) {
+        increment(entity, EventType.REJECTED);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (EntityType entity : EntityType.values()) {
+            sb.append(entity).append(':');
+            for (EventType type : EventType.values()) {
+                sb.append(' ').append(type).append('=').append(getCount(entity, type));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
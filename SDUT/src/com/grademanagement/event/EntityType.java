@@ -0,0 +1,10 @@
+package com.grademanagement.event;
+
+/**
+ * 事件所属实体类型
+ */
+public enum EntityType {
+    STUDENT,
+    COURSE,
+    GRADE
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.student.Student;
+
+/**
+ * 事件文本格式
+ * 控制台和异步日志共用的输出文本
+ */
+final class EventFormatter {
+
+    private EventFormatter() {
+    }
+
+    static String studentAdded(Student student) {
+        return "学生添加成功：" + student;
+    }
+
+    static String studentUpdated(Student student) {
+        return "学生信息更新成功：" + student;
+    }
+
+    static String studentRemoved(Student student) {
+        return "学生删除成功：" + student;
+    }
+
+    static String courseAdded(Course course) {
+        return "课程添加成功：" + course;
+    }
+
+    static String courseUpdated(Course course) {
+        return "课程信息更新成功：" + course;
+    }
+
+    static String courseRemoved(Course course) {
+        return "课程删除成功：" + course;
+    }
+
+    static String gradeRecorded(String studentId, String courseId, double grade) {
+        return String.format("成绩录入成功 - 学号: %s, 课程: %s, 成绩: %.1f",
+                studentId, courseId, grade);
+    }
+
+    static String gradeRemoved(String studentId, String courseId, double grade) {
+        return String.format("成绩删除成功 - 学号: %s, 课程: %s, 原成绩: %.1f",
+                studentId, courseId, grade);
+    }
+
+    static String gradesImported(GradeImportResult result) {
+        return "成绩批量导入完成 - " + result;
+    }
+}
\ No newline at end of file
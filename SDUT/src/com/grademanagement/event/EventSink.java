@@ -0,0 +1,93 @@
+package com.grademanagement.event;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.student.Student;
+
+/**
+ * 管理类事件接收接口
+ * 学生、课程、成绩的增删改及被拒绝的操作都会回调到这里。
+ * 所有方法默认不做任何处理，实现类只需覆盖关心的事件；参数均为已有对象或基本类型，
+ * 未订阅时管理类的写路径不会产生额外对象，也不做任何I/O。
+ * 学生和课程对象不可变，接收器可以保存或交给其他线程使用
+ */
+public interface EventSink {
+
+    /**
+     * 不做任何处理的默认实现
+     */
+    EventSink NOOP = new EventSink() {
+    };
+
+    default void studentAdded(Student student) {
+    }
+
+    /**
+     * @param previous 更新前的学生
+     * @param student 更新后的学生
+     */
+    default void studentUpdated(Student previous, Student student) {
+    }
+
+    default void studentRemoved(Student student) {
+    }
+
+    default void courseAdded(Course course) {
+    }
+
+    /**
+     * @param previous 更新前的课程
+     * @param course 更新后的课程
+     */
+    default void courseUpdated(Course previous, Course course) {
+    }
+
+    default void courseRemoved(Course course) {
+    }
+
+    /**
+     * 成绩录入或覆盖
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param previous 覆盖前的成绩，新增时为NaN
+     * @param grade 成绩
+     */
+    default void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+    }
+
+    /**
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param grade 被删除的成绩
+     */
+    default void gradeRemoved(String studentId, String courseId, double grade) {
+    }
+
+    /**
+     * 课程学分变化
+     * 由已绑定课程管理类的成绩管理类在调整完这门课所有学生的GPA之后回调，回调时持有该课程的锁，
+     * 此时读取到的GPA已按新学分计算
+     * @param courseId 课程编号
+     * @param previous 变化前的学分，课程新增前视为0
+     * @param credit 变化后的学分，课程删除后视为0
+     */
+    default void courseCreditChanged(String courseId, double previous, double credit) {
+    }
+
+    /**
+     * 批量导入完成
+     * @param result 导入结果
+     */
+    default void gradesImported(GradeImportResult result) {
+    }
+
+    /**
+     * 操作被拒绝
+     * @param entity 实体类型
+     * @param id 学号或课程编号
+     * @param subId 成绩操作时为课程编号，其余为null
+     * @param reason 拒绝原因
+     */
+    default void rejected(EntityType entity, String id, String subId, String reason) {
+    }
+}
\ No newline at end of file
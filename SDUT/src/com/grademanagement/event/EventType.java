@@ -0,0 +1,11 @@
+package com.grademanagement.event;
+
+/**
+ * 事件类型
+ */
+public enum EventType {
+    ADDED,
+    UPDATED,
+    REMOVED,
+    REJECTED
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package com.grademanagement.grade;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 列式成绩存储
+ * 学号和课程编号编码为int，成绩按学生行和课程行存放在基本类型数组中：
+ * 学生行保存(课程id, 成绩, 在课程行中的位置)，课程行保存(学生id, 在学生行中的位置)，
+ * 两个方向互相引用，覆盖和删除都是O(1)定位。
+ * 每条成绩约占24字节，读路径不产生装箱对象。
+ * 学生或课程的最后一条成绩被删除后，其编码连同行数组一起回收，之后新出现的学号、课程编号复用这些编码，
+ * 因此字典大小和全量遍历的耗时取决于同时有成绩的学生、课程数的峰值，不随历史上出现过的学号增长。非线程安全。
+ */
+public class ColumnarGradeStore implements GradeStore {
+    private static final int INITIAL_ROW_CAPACITY = 4;
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final double[] EMPTY_DOUBLES = new double[0];
+
+    // 学号字典
+    private final Map<String, Integer> studentIds = new HashMap<>();
+    private String[] studentKeys = new String[16];
+    private int[][] studentCourses = new int[16][];
+    private double[][] studentScores = new double[16][];
+    private int[][] studentBackRefs = new int[16][]; // 成绩在课程行中的位置
+    private int[] studentSizes = new int[16];
+    private int studentCount;          // 已分配过的编码数，含已回收的
+    private int[] freeStudents = new int[16]; // 已回收待复用的编码
+    private int freeStudentCount;
+
+    // 课程编号字典
+    private final Map<String, Integer> courseIds = new HashMap<>();
+    private String[] courseKeys = new String[16];
+    private int[][] courseStudents = new int[16][];
+    private int[][] courseBackRefs = new int[16][]; // 成绩在学生行中的位置
+    private int[] courseSizes = new int[16];
+    private int courseCount;
+    private int[] freeCourses = new int[16];
+    private int freeCourseCount;
+
+    private int size;
+
+    @Override
+    public double put(String studentId, String courseId, double grade) {
+        return put(internStudent(studentId), internCourse(courseId), grade);
+    }
+
+    private double put(int sid, int cid, double grade) {
+        int k = find(sid, cid);
+        if (k >= 0) {
+            double previous = studentScores[sid][k];
+            studentScores[sid][k] = grade;
+            return previous;
+        }
+
+        int n = studentSizes[sid];
+        int m = courseSizes[cid];
+        if (n == studentCourses[sid].length) {
+            growStudent(sid, Math.max(INITIAL_ROW_CAPACITY, n * 2));
+        }
+        if (m == courseStudents[cid].length) {
+            growCourse(cid, Math.max(INITIAL_ROW_CAPACITY, m * 2));
+        }
+
+        studentCourses[sid][n] = cid;
+        studentScores[sid][n] = grade;
+        studentBackRefs[sid][n] = m;
+        courseStudents[cid][m] = sid;
+        courseBackRefs[cid][m] = n;
+        studentSizes[sid] = n + 1;
+        courseSizes[cid] = m + 1;
+        size++;
+        return Double.NaN;
+    }
+
+    @Override
+    public double remove(String studentId, String courseId) {
+        Integer sid = studentIds.get(studentId);
+        Integer cid = courseIds.get(courseId);
+        if (sid == null || cid == null) {
+            return Double.NaN;
+        }
+        int k = find(sid, cid);
+        if (k < 0) {
+            return Double.NaN;
+        }
+        double removed = studentScores[sid][k];
+
+        // 课程行：用末尾元素填补空位，并修正其在学生行中的反向引用
+        int j = studentBackRefs[sid][k];
+        int lastInCourse = courseSizes[cid] - 1;
+        if (j != lastInCourse) {
+            int movedStudent = courseStudents[cid][lastInCourse];
+            courseStudents[cid][j] = movedStudent;
+            courseBackRefs[cid][j] = courseBackRefs[cid][lastInCourse];
+            studentBackRefs[movedStudent][courseBackRefs[cid][j]] = j;
+        }
+        courseSizes[cid] = lastInCourse;
+
+        // 学生行：同样用末尾元素填补空位
+        int lastInStudent = studentSizes[sid] - 1;
+        if (k != lastInStudent) {
+            int movedCourse = studentCourses[sid][lastInStudent];
+            studentCourses[sid][k] = movedCourse;
+            studentScores[sid][k] = studentScores[sid][lastInStudent];
+            studentBackRefs[sid][k] = studentBackRefs[sid][lastInStudent];
+            courseBackRefs[movedCourse][studentBackRefs[sid][k]] = k;
+        }
+        studentSizes[sid] = lastInStudent;
+
+        size--;
+        if (lastInStudent == 0) {
+            releaseStudent(sid);
+        }
+        if (lastInCourse == 0) {
+            releaseCourse(cid);
+        }
+        return removed;
+    }
+
+    @Override
+    public double get(String studentId, String courseId) {
+        Integer sid = studentIds.get(studentId);
+        Integer cid = courseIds.get(courseId);
+        if (sid == null || cid == null) {
+            return Double.NaN;
+        }
+        int k = find(sid, cid);
+        return k >= 0 ? studentScores[sid][k] : Double.NaN;
+    }
+
+    @Override
+    public int studentGradeCount(String studentId) {
+        Integer sid = studentIds.get(studentId);
+        return sid != null ? studentSizes[sid] : 0;
+    }
+
+    @Override
+    public int courseGradeCount(String courseId) {
+        Integer cid = courseIds.get(courseId);
+        return cid != null ? courseSizes[cid] : 0;
+    }
+
+    @Override
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        Integer sid = studentIds.get(studentId);
+        if (sid == null) {
+            return;
+        }
+        int[] courses = studentCourses[sid];
+        double[] scores = studentScores[sid];
+        for (int k = 0, n = studentSizes[sid]; k < n; k++) {
+            visitor.visit(studentId, courseKeys[courses[k]], scores[k]);
+        }
+    }
+
+    @Override
+    public void forEachCourseGrade(String courseId, GradeVisitor visitor) {
+        Integer cid = courseIds.get(courseId);
+        if (cid == null) {
+            return;
+        }
+        int[] students = courseStudents[cid];
+        int[] backRefs = courseBackRefs[cid];
+        for (int j = 0, m = courseSizes[cid]; j < m; j++) {
+            int sid = students[j];
+            visitor.visit(studentKeys[sid], courseId, studentScores[sid][backRefs[j]]);
+        }
+    }
+
+    @Override
+    public void forEach(GradeVisitor visitor) {
+        for (int sid = 0; sid < studentCount; sid++) { // 已回收的编码行长为0
+            int[] courses = studentCourses[sid];
+            double[] scores = studentScores[sid];
+            for (int k = 0, n = studentSizes[sid]; k < n; k++) {
+                visitor.visit(studentKeys[sid], courseKeys[courses[k]], scores[k]);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void reserveCourse(String courseId, int additional) {
+        int cid = internCourse(courseId);
+        int required = courseSizes[cid] + additional;
+        if (required > courseStudents[cid].length) {
+            growCourse(cid, required);
+        }
+    }
+
+    /**
+     * 每个字典下标只查找一次编码，并按每行新增的条数一次分配行数组，写入时不再查找字典也不再扩容
+     */
+    @Override
+    public void putAll(String[] dictionary, int[] studentRefs, int[] courseRefs, double[] grades, int count) {
+        int[] sids = new int[dictionary.length];
+        int[] cids = new int[dictionary.length];
+        Arrays.fill(sids, -1);
+        Arrays.fill(cids, -1);
+        for (int i = 0; i < count; i++) {
+            if (sids[studentRefs[i]] < 0) {
+                sids[studentRefs[i]] = internStudent(dictionary[studentRefs[i]]);
+            }
+            if (cids[courseRefs[i]] < 0) {
+                cids[courseRefs[i]] = internCourse(dictionary[courseRefs[i]]);
+            }
+        }
+
+        int[] studentAdds = new int[studentCount];
+        int[] courseAdds = new int[courseCount];
+        for (int i = 0; i < count; i++) {
+            studentAdds[sids[studentRefs[i]]]++;
+            courseAdds[cids[courseRefs[i]]]++;
+        }
+        for (int sid = 0; sid < studentAdds.length; sid++) {
+            int required = studentSizes[sid] + studentAdds[sid];
+            if (required > studentCourses[sid].length) {
+                growStudent(sid, required);
+            }
+        }
+        for (int cid = 0; cid < courseAdds.length; cid++) {
+            int required = courseSizes[cid] + courseAdds[cid];
+            if (required > courseStudents[cid].length) {
+                growCourse(cid, required);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            put(sids[studentRefs[i]], cids[courseRefs[i]], grades[i]);
+        }
+    }
+
+    private void growStudent(int sid, int capacity) {
+        studentCourses[sid] = Arrays.copyOf(studentCourses[sid], capacity);
+        studentScores[sid] = Arrays.copyOf(studentScores[sid], capacity);
+        studentBackRefs[sid] = Arrays.copyOf(studentBackRefs[sid], capacity);
+    }
+
+    private void growCourse(int cid, int capacity) {
+        courseStudents[cid] = Arrays.copyOf(courseStudents[cid], capacity);
+        courseBackRefs[cid] = Arrays.copyOf(courseBackRefs[cid], capacity);
+    }
+
+    /**
+     * 在学生行中查找课程
+     * @return 行内位置，不存在返回-1
+     */
+    private int find(int sid, int cid) {
+        int[] courses = studentCourses[sid];
+        for (int k = 0, n = studentSizes[sid]; k < n; k++) {
+            if (courses[k] == cid) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private int internStudent(String studentId) {
+        Integer sid = studentIds.get(studentId);
+        if (sid != null) {
+            return sid;
+        }
+        if (freeStudentCount == 0 && studentCount == studentKeys.length) {
+            int capacity = studentCount * 2;
+            studentKeys = Arrays.copyOf(studentKeys, capacity);
+            studentCourses = Arrays.copyOf(studentCourses, capacity);
+            studentScores = Arrays.copyOf(studentScores, capacity);
+            studentBackRefs = Arrays.copyOf(studentBackRefs, capacity);
+            studentSizes = Arrays.copyOf(studentSizes, capacity);
+        }
+        int id = freeStudentCount > 0 ? freeStudents[--freeStudentCount] : studentCount++;
+        studentKeys[id] = studentId;
+        studentCourses[id] = EMPTY_INTS;
+        studentScores[id] = EMPTY_DOUBLES;
+        studentBackRefs[id] = EMPTY_INTS;
+        studentIds.put(studentId, id);
+        return id;
+    }
+
+    private int internCourse(String courseId) {
+        Integer cid = courseIds.get(courseId);
+        if (cid != null) {
+            return cid;
+        }
+        if (freeCourseCount == 0 && courseCount == courseKeys.length) {
+            int capacity = courseCount * 2;
+            courseKeys = Arrays.copyOf(courseKeys, capacity);
+            courseStudents = Arrays.copyOf(courseStudents, capacity);
+            courseBackRefs = Arrays.copyOf(courseBackRefs, capacity);
+            courseSizes = Arrays.copyOf(courseSizes, capacity);
+        }
+        int id = freeCourseCount > 0 ? freeCourses[--freeCourseCount] : courseCount++;
+        courseKeys[id] = courseId;
+        courseStudents[id] = EMPTY_INTS;
+        courseBackRefs[id] = EMPTY_INTS;
+        courseIds.put(courseId, id);
+        return id;
+    }
+
+    /**
+     * 回收已没有成绩的学生编码，释放其行数组
+     */
+    private void releaseStudent(int sid) {
+        studentIds.remove(studentKeys[sid]);
+        studentKeys[sid] = null;
+        studentCourses[sid] = EMPTY_INTS;
+        studentScores[sid] = EMPTY_DOUBLES;
+        studentBackRefs[sid] = EMPTY_INTS;
+        if (freeStudentCount == freeStudents.length) {
+            freeStudents = Arrays.copyOf(freeStudents, freeStudentCount * 2);
+        }
+        freeStudents[freeStudentCount++] = sid;
+    }
+
+    /**
+     * 回收已没有成绩的课程编码，释放其行数组
+     */
+    private void releaseCourse(int cid) {
+        courseIds.remove(courseKeys[cid]);
+        courseKeys[cid] = null;
+        courseStudents[cid] = EMPTY_INTS;
+        courseBackRefs[cid] = EMPTY_INTS;
+        if (freeCourseCount == freeCourses.length) {
+            freeCourses = Arrays.copyOf(freeCourses, freeCourseCount * 2);
+        }
+        freeCourses[freeCourseCount++] = cid;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,134 @@
+package com.grademanagement.grade;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的成绩存储
+ * 基于ConcurrentHashMap，学生行和课程行分别在各自键的compute中原子更新，
+ * 不同学生、不同课程之间的写入互不阻塞，单条查询无锁。按学生或按课程遍历时
+ * 先在该键上原子复制一行，因此回调看到的是该行某一时刻的完整状态。
+ */
+public class ConcurrentGradeStore implements GradeStore {
+    private final ConcurrentHashMap<String, Map<String, Double>> grades; // <studentId, <courseId, grade>>
+    private final ConcurrentHashMap<String, Map<String, Double>> courseIndex; // <courseId, <studentId, grade>>
+    private final LongAdder size;
+
+    public ConcurrentGradeStore() {
+        this.grades = new ConcurrentHashMap<>();
+        this.courseIndex = new ConcurrentHashMap<>();
+        this.size = new LongAdder();
+    }
+
+    @Override
+    public double put(String studentId, String courseId, double grade) {
+        double[] previous = {Double.NaN};
+        grades.compute(studentId, (k, row) -> {
+            if (row == null) {
+                row = new ConcurrentHashMap<>();
+            }
+            Double old = row.put(courseId, grade);
+            if (old != null) {
+                previous[0] = old;
+            }
+            return row;
+        });
+        courseIndex.compute(courseId, (k, row) -> {
+            if (row == null) {
+                row = new ConcurrentHashMap<>();
+            }
+            row.put(studentId, grade);
+            return row;
+        });
+        if (Double.isNaN(previous[0])) {
+            size.increment();
+        }
+        return previous[0];
+    }
+
+    @Override
+    public double remove(String studentId, String courseId) {
+        double[] removed = {Double.NaN};
+        grades.computeIfPresent(studentId, (k, row) -> {
+            Double old = row.remove(courseId);
+            if (old != null) {
+                removed[0] = old;
+            }
+            return row.isEmpty() ? null : row;
+        });
+        if (Double.isNaN(removed[0])) {
+            return Double.NaN;
+        }
+        courseIndex.computeIfPresent(courseId, (k, row) -> {
+            row.remove(studentId);
+            return row.isEmpty() ? null : row;
+        });
+        size.decrement();
+        return removed[0];
+    }
+
+    @Override
+    public double get(String studentId, String courseId) {
+        Map<String, Double> row = grades.get(studentId);
+        Double grade = row != null ? row.get(courseId) : null;
+        return grade != null ? grade : Double.NaN;
+    }
+
+    @Override
+    public int studentGradeCount(String studentId) {
+        Map<String, Double> row = grades.get(studentId);
+        return row != null ? row.size() : 0;
+    }
+
+    @Override
+    public int courseGradeCount(String courseId) {
+        Map<String, Double> row = courseIndex.get(courseId);
+        return row != null ? row.size() : 0;
+    }
+
+    @Override
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        for (Map.Entry<String, Double> entry : snapshotRow(grades, studentId).entrySet()) {
+            visitor.visit(studentId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void forEachCourseGrade(String courseId, GradeVisitor visitor) {
+        for (Map.Entry<String, Double> entry : snapshotRow(courseIndex, courseId).entrySet()) {
+            visitor.visit(entry.getKey(), courseId, entry.getValue());
+        }
+    }
+
+    @Override
+    public void forEach(GradeVisitor visitor) {
+        for (String studentId : grades.keySet()) {
+            forEachStudentGrade(studentId, visitor);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    @Override
+    public void reserveCourse(String courseId, int additional) {
+        courseIndex.computeIfAbsent(courseId, k -> new ConcurrentHashMap<>(additional));
+    }
+
+    /**
+     * 在键的compute中复制一行，得到该行某一时刻的完整状态
+     */
+    private static Map<String, Double> snapshotRow(ConcurrentHashMap<String, Map<String, Double>> rows,
+                                                   String key) {
+        Map<String, Double> copy = new HashMap<>();
+        rows.computeIfPresent(key, (k, row) -> {
+            copy.putAll(row);
+            return row;
+        });
+        return copy;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.grademanagement.grade;
+
+/**
+ * 成绩记录
+ * 批量导入时的一行数据
+ */
+public class GradeEntry {
+    private final String studentId;
+    private final String courseId;
+    private final double grade;
+
+    public GradeEntry(String studentId, String courseId, double grade) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.grade = grade;
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public double getGrade() { return grade; }
+
+    @Override
+    public String toString() {
+        return String.format("学号: %s, 课程: %s, 成绩: %.1f", studentId, courseId, grade);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.grademanagement.grade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 成绩批量导入结果
+ * 记录成功条数和被拒绝的行
+ */
+public class GradeImportResult {
+    private int acceptedCount;
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    void accepted(int count) {
+        acceptedCount += count;
+    }
+
+    void reject(long row, GradeEntry entry, String reason) {
+        rejections.add(new Rejection(row, entry, reason));
+    }
+
+    /**
+     * @return 成功导入的条数
+     */
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    /**
+     * @return 被拒绝的条数
+     */
+    public int getRejectedCount() {
+        return rejections.size();
+    }
+
+    /**
+     * @return 被拒绝的行，按行号升序
+     */
+    public List<Rejection> getRejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("成功: %d条, 拒绝: %d条", acceptedCount, rejections.size());
+    }
+
+    /**
+     * 被拒绝的行
+     */
+    public static class Rejection {
+        private final long row;
+        private final GradeEntry entry;
+        private final String reason;
+
+        Rejection(long row, GradeEntry entry, String reason) {
+            this.row = row;
+            this.entry = entry;
+            this.reason = reason;
+        }
+
+        /**
+         * @return 行号（从1开始）
+         */
+        public long getRow() { return row; }
+        public GradeEntry getEntry() { return entry; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return String.format("第%d行: %s (%s)", row, reason, entry);
+        }
+    }
+}
\ No newline at end of file
@@ -1,21 +1,149 @@
 package com.grademanagement.grade;
 
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.event.CompositeEventSink;
+import com.grademanagement.event.EntityType;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.metrics.ManagerMetrics;
+import com.grademanagement.metrics.OperationType;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 成绩管理类
  * 负责学生成绩的录入、查询和修改
  */
 public class GradeManager {
-    private Map<String, Map<String, Double>> grades; // <studentId, <courseId, grade>>
+    private final GradeStore store;
+    private Map<String, CourseAggregate> courseAggregates; // <courseId, 课程统计量>
+    private final Map<String, StudentGpa> studentGpas;    // <studentId, 学分加权累计量>
+    private final Map<String, Double> courseCredits;      // <courseId, 学分>，由bindCourses同步
+    private CourseManager boundCourses;
     private static final double MIN_GRADE = 0;
     private static final double MAX_GRADE = 100;
+    private static final int IMPORT_BATCH_SIZE = 8192;
+
+    public static final String MSG_GRADE_OUT_OF_RANGE = "成绩必须在" + MIN_GRADE + "到" + MAX_GRADE + "之间！";
+    public static final String MSG_MISSING_KEY = "学号或课程编号为空！";
+    public static final String MSG_NOT_FOUND = "该成绩记录不存在！";
+
+    private volatile EventSink eventSink = EventSink.NOOP;
+    private volatile ManagerMetrics metrics = ManagerMetrics.DISABLED;
 
     public GradeManager() {
-        this.grades = new HashMap<>();
+        this(new HashGradeStore());
+    }
+
+    /**
+     * @param concurrent 是否启用并发模式，启用后可由多个线程同时录入和查询成绩
+     */
+    public GradeManager(boolean concurrent) {
+        this(concurrent ? new ConcurrentGradeStore() : new HashGradeStore(), concurrent);
+    }
+
+    /**
+     * 使用指定的成绩存储，例如大数据量时使用{@link ColumnarGradeStore}
+     * @param store 成绩存储
+     */
+    public GradeManager(GradeStore store) {
+        this(store, false);
+    }
+
+    /**
+     * 使用指定的成绩存储
+     * 并发模式下同一课程的写入在该课程的统计量上串行，不同课程之间互不阻塞，
+     * 此时store本身也必须是线程安全的，例如{@link ConcurrentGradeStore}
+     * @param store 成绩存储
+     * @param concurrent 是否启用并发模式
+     */
+    public GradeManager(GradeStore store, boolean concurrent) {
+        this.store = store;
+        this.courseAggregates = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.studentGpas = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.courseCredits = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * 绑定课程管理类，开始维护每个学生的学分加权GPA
+     * 绑定时读入现有课程的学分，之后通过课程事件同步：学分变化只调整该课程已有成绩的学生，
+     * 课程删除后其成绩不再计入GPA。同一个课程管理类重复绑定不做任何处理
+     * @param courseManager 课程管理类
+     * @throws IllegalStateException 已绑定到另一个课程管理类
+     */
+    public synchronized void bindCourses(CourseManager courseManager) {
+        if (boundCourses == courseManager) {
+            return;
+        }
+        if (boundCourses != null) {
+            throw new IllegalStateException("已绑定到另一个课程管理类");
+        }
+        boundCourses = courseManager;
+        courseManager.addEventSink(new EventSink() {
+            @Override
+            public void courseAdded(Course course) {
+                refreshCredit(course.getCourseId());
+            }
+
+            @Override
+            public void courseUpdated(Course previous, Course course) {
+                refreshCredit(course.getCourseId());
+            }
+
+            @Override
+            public void courseRemoved(Course course) {
+                refreshCredit(course.getCourseId());
+            }
+        });
+        for (Course course : courseManager.getAllCourses()) {
+            refreshCredit(course.getCourseId());
+        }
+    }
+
+    /**
+     * @param courseManager 课程管理类
+     * @return 是否已通过{@link #bindCourses}绑定到该课程管理类
+     */
+    public synchronized boolean isBoundTo(CourseManager courseManager) {
+        return boundCourses == courseManager;
+    }
+
+    /**
+     * 注册事件接收器
+     * 成绩事件在该课程的锁内回调，保证同一条成绩的事件顺序与实际写入顺序一致
+     * @param sink 事件接收器
+     */
+    public synchronized void addEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.add(eventSink, sink);
+    }
+
+    /**
+     * 注销事件接收器
+     * @param sink 事件接收器
+     */
+    public synchronized void removeEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.remove(eventSink, sink);
+    }
+
+    /**
+     * 接入操作指标，同一实例会作为事件接收器统计被拒绝的操作；传入{@link ManagerMetrics#DISABLED}即停止统计
+     * @param metrics 操作指标
+     */
+    public synchronized void setMetrics(ManagerMetrics metrics) {
+        eventSink = CompositeEventSink.remove(eventSink, this.metrics);
+        if (metrics.isEnabled()) {
+            eventSink = CompositeEventSink.add(eventSink, metrics);
+        }
+        this.metrics = metrics;
     }
 
     /**
@@ -26,19 +154,249 @@ public class GradeManager {
      * @return 操作是否成功
      */
     public boolean recordGrade(String studentId, String courseId, double grade) {
-        if (grade < MIN_GRADE || grade > MAX_GRADE) {
-            System.out.println("成绩必须在" + MIN_GRADE + "到" + MAX_GRADE + "之间！");
-            return false;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            if (studentId == null || courseId == null) {
+                eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_MISSING_KEY);
+                return false;
+            }
+            if (!isValidGrade(grade)) {
+                eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_GRADE_OUT_OF_RANGE);
+                return false;
+            }
+
+            while (true) {
+                CourseAggregate aggregate = courseAggregates.computeIfAbsent(courseId, this::newAggregate);
+                synchronized (aggregate) {
+                    if (aggregate.retired) {
+                        continue; // 该统计量已被并发删除，重新获取
+                    }
+                    reconcileCredit(courseId, aggregate);
+                    double previous = store.put(studentId, courseId, grade);
+                    if (!Double.isNaN(previous)) {
+                        aggregate.remove(studentId, previous);
+                    }
+                    aggregate.add(studentId, grade);
+                    adjustGpa(studentId, previous, aggregate.credit, grade, aggregate.credit);
+                    eventSink.gradeRecorded(studentId, courseId, previous, grade);
+                    break;
+                }
+            }
+            return true;
+        } finally {
+            metrics.record(OperationType.GRADE_RECORD, begin);
+        }
+    }
+
+    /**
+     * 批量录入成绩
+     * 一次遍历完成校验并按课程分组，每门课程只加锁一次并预留存储空间
+     * @param entries 成绩记录
+     * @return 导入结果，包含被拒绝的行
+     */
+    public GradeImportResult recordGrades(Collection<GradeEntry> entries) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            GradeImportResult result = new GradeImportResult();
+            applyBatch(entries, 1, result);
+            eventSink.gradesImported(result);
+            return result;
+        } finally {
+            metrics.record(OperationType.GRADE_IMPORT, begin);
+        }
+    }
+
+    /**
+     * 流式导入成绩
+     * 每IMPORT_BATCH_SIZE条作为一批处理，内存占用与输入总量无关
+     * @param entries 成绩记录
+     * @return 导入结果，包含被拒绝的行
+     */
+    public GradeImportResult importGrades(Iterator<GradeEntry> entries) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            GradeImportResult result = new GradeImportResult();
+            List<GradeEntry> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            long firstRow = 1;
+            while (entries.hasNext()) {
+                batch.add(entries.next());
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    applyBatch(batch, firstRow, result);
+                    firstRow += batch.size();
+                    batch.clear();
+                }
+            }
+            applyBatch(batch, firstRow, result);
+            eventSink.gradesImported(result);
+            return result;
+        } finally {
+            metrics.record(OperationType.GRADE_IMPORT, begin);
+        }
+    }
+
+    /**
+     * 批量装载成绩到空的成绩管理类，用于从快照或文件恢复
+     * 成绩以字典编码的列传入，第i条为(dictionary[studentRefs[i]], dictionary[courseRefs[i]], grades[i])，下标为负表示空值。
+     * 不逐条维护统计量：全部写入存储后，每门课程的成绩排序一次，一趟建成排名树、分布摘要、分段计数和总分，
+     * 再按学生一趟累计GPA。不触发逐条的成绩事件，结束时只回调一次gradesImported，
+     * 因此需要逐条同步的事件接收器（快照存储、预警引擎、预写日志等）应在装载之后注册。
+     * 同一学生同一课程出现多次时取最后一次；装载期间不能有其他线程读写成绩
+     * @param dictionary 字符串字典
+     * @param studentRefs 学号列
+     * @param courseRefs 课程编号列
+     * @param grades 成绩列
+     * @param count 成绩条数
+     * @return 导入结果，包含被拒绝的行
+     * @throws IllegalStateException 管理类中已有成绩
+     */
+    public GradeImportResult loadGrades(String[] dictionary, int[] studentRefs, int[] courseRefs,
+                                        double[] grades, int count) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            if (store.size() != 0 || !courseAggregates.isEmpty()) {
+                throw new IllegalStateException("批量装载要求成绩管理类中没有成绩");
+            }
+            GradeImportResult result = new GradeImportResult();
+
+            // 剔除被拒绝的行，第一次出现被拒绝的行时才复制各列
+            int[] acceptedStudents = studentRefs;
+            int[] acceptedCourses = courseRefs;
+            double[] acceptedGrades = grades;
+            int accepted = 0;
+            for (int i = 0; i < count; i++) {
+                String reason = studentRefs[i] < 0 || courseRefs[i] < 0 ? MSG_MISSING_KEY
+                        : !isValidGrade(grades[i]) ? MSG_GRADE_OUT_OF_RANGE : null;
+                if (reason != null) {
+                    String studentId = studentRefs[i] < 0 ? null : dictionary[studentRefs[i]];
+                    String courseId = courseRefs[i] < 0 ? null : dictionary[courseRefs[i]];
+                    result.reject(i + 1, new GradeEntry(studentId, courseId, grades[i]), reason);
+                    eventSink.rejected(EntityType.GRADE, studentId, courseId, reason);
+                    if (acceptedGrades == grades) {
+                        acceptedStudents = Arrays.copyOf(studentRefs, count);
+                        acceptedCourses = Arrays.copyOf(courseRefs, count);
+                        acceptedGrades = Arrays.copyOf(grades, count);
+                    }
+                    continue;
+                }
+                if (acceptedGrades != grades) {
+                    acceptedStudents[accepted] = studentRefs[i];
+                    acceptedCourses[accepted] = courseRefs[i];
+                    acceptedGrades[accepted] = grades[i];
+                }
+                accepted++;
+            }
+            store.putAll(dictionary, acceptedStudents, acceptedCourses, acceptedGrades, accepted);
+            result.accepted(accepted);
+
+            // 每门课程排序一次建成统计量
+            boolean[] seen = new boolean[dictionary.length];
+            String[] studentIds = new String[0];
+            double[] courseGrades = new double[0];
+            for (int i = 0; i < accepted; i++) {
+                int ref = acceptedCourses[i];
+                if (seen[ref]) {
+                    continue;
+                }
+                seen[ref] = true;
+                String courseId = dictionary[ref];
+                int n = store.courseGradeCount(courseId);
+                if (n > studentIds.length) {
+                    studentIds = new String[n];
+                    courseGrades = new double[n];
+                }
+                String[] ids = studentIds;
+                double[] values = courseGrades;
+                int[] next = new int[1];
+                store.forEachCourseGrade(courseId, (studentId, cid, grade) -> {
+                    ids[next[0]] = studentId;
+                    values[next[0]++] = grade;
+                });
+                CourseAggregate aggregate = newAggregate(courseId);
+                aggregate.build(ids, values, n);
+                courseAggregates.put(courseId, aggregate);
+            }
+
+            // 按学生一趟累计GPA，存储按学生顺序遍历时每名学生只查找一次累计量
+            if (!courseCredits.isEmpty()) {
+                String[] lastStudent = new String[1];
+                StudentGpa[] lastGpa = new StudentGpa[1];
+                store.forEach((studentId, courseId, grade) -> {
+                    double credit = courseAggregates.get(courseId).credit;
+                    if (credit == 0) {
+                        return;
+                    }
+                    if (!studentId.equals(lastStudent[0])) {
+                        lastStudent[0] = studentId;
+                        lastGpa[0] = studentGpas.computeIfAbsent(studentId, k -> new StudentGpa());
+                    }
+                    synchronized (lastGpa[0]) {
+                        lastGpa[0].add(grade, credit);
+                    }
+                });
+            }
+            eventSink.gradesImported(result);
+            return result;
+        } finally {
+            metrics.record(OperationType.GRADE_IMPORT, begin);
+        }
+    }
+
+    private void applyBatch(Collection<GradeEntry> entries, long firstRow, GradeImportResult result) {
+        Map<String, List<GradeEntry>> byCourse = new HashMap<>();
+        long row = firstRow;
+        for (GradeEntry entry : entries) {
+            if (entry == null || entry.getStudentId() == null || entry.getCourseId() == null) {
+                result.reject(row, entry, MSG_MISSING_KEY);
+                eventSink.rejected(EntityType.GRADE, entry != null ? entry.getStudentId() : null,
+                        entry != null ? entry.getCourseId() : null, MSG_MISSING_KEY);
+            } else if (!isValidGrade(entry.getGrade())) {
+                result.reject(row, entry, MSG_GRADE_OUT_OF_RANGE);
+                eventSink.rejected(EntityType.GRADE, entry.getStudentId(), entry.getCourseId(),
+                        MSG_GRADE_OUT_OF_RANGE);
+            } else {
+                byCourse.computeIfAbsent(entry.getCourseId(), k -> new ArrayList<>()).add(entry);
+            }
+            row++;
+        }
+
+        for (Map.Entry<String, List<GradeEntry>> group : byCourse.entrySet()) {
+            applyCourseGroup(group.getKey(), group.getValue());
+            result.accepted(group.getValue().size());
         }
+    }
 
-        if (!grades.containsKey(studentId)) {
-            grades.put(studentId, new HashMap<>());
+    private void applyCourseGroup(String courseId, List<GradeEntry> group) {
+        while (true) {
+            CourseAggregate aggregate = courseAggregates.computeIfAbsent(courseId, this::newAggregate);
+            synchronized (aggregate) {
+                if (aggregate.retired) {
+                    continue;
+                }
+                reconcileCredit(courseId, aggregate);
+                store.reserveCourse(courseId, group.size());
+                for (GradeEntry entry : group) {
+                    double previous = store.put(entry.getStudentId(), courseId, entry.getGrade());
+                    if (!Double.isNaN(previous)) {
+                        aggregate.remove(entry.getStudentId(), previous);
+                    }
+                    aggregate.add(entry.getStudentId(), entry.getGrade());
+                    adjustGpa(entry.getStudentId(), previous, aggregate.credit, entry.getGrade(), aggregate.credit);
+                    eventSink.gradeRecorded(entry.getStudentId(), courseId, previous, entry.getGrade());
+                }
+                return;
+            }
         }
+    }
 
-        grades.get(studentId).put(courseId, grade);
-        System.out.printf("成绩录入成功 - 学号: %s, 课程: %s, 成绩: %.1f\n",
-                studentId, courseId, grade);
-        return true;
+    /**
+     * 成绩是否在合法范围内，NaN视为非法
+     */
+    private static boolean isValidGrade(double grade) {
+        return grade >= MIN_GRADE && grade <= MAX_GRADE;
     }
 
     /**
@@ -48,22 +406,42 @@ public class GradeManager {
      * @return 删除是否成功
      */
     public boolean removeGrade(String studentId, String courseId) {
-        if (!grades.containsKey(studentId) ||
-                !grades.get(studentId).containsKey(courseId)) {
-            System.out.println("该成绩记录不存在！");
-            return false;
-        }
-
-        double removedGrade = grades.get(studentId).remove(courseId);
-        System.out.printf("成绩删除成功 - 学号: %s, 课程: %s, 原成绩: %.1f\n",
-                studentId, courseId, removedGrade);
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            if (studentId == null || courseId == null) {
+                eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_MISSING_KEY);
+                return false;
+            }
+            double removedGrade = Double.NaN;
+            CourseAggregate aggregate;
+            while ((aggregate = courseAggregates.get(courseId)) != null) {
+                synchronized (aggregate) {
+                    if (aggregate.retired) {
+                        continue;
+                    }
+                    removedGrade = store.remove(studentId, courseId);
+                    if (!Double.isNaN(removedGrade)) {
+                        aggregate.remove(studentId, removedGrade);
+                        adjustGpa(studentId, removedGrade, aggregate.credit, Double.NaN, 0);
+                        eventSink.gradeRemoved(studentId, courseId, removedGrade);
+                        if (aggregate.count == 0) {
+                            aggregate.retired = true;
+                            courseAggregates.remove(courseId, aggregate);
+                        }
+                    }
+                    break;
+                }
+            }
 
-        // 如果该学生没有其他成绩记录，则移除学生条目
-        if (grades.get(studentId).isEmpty()) {
-            grades.remove(studentId);
+            if (Double.isNaN(removedGrade)) {
+                eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_NOT_FOUND);
+                return false;
+            }
+            return true;
+        } finally {
+            metrics.record(OperationType.GRADE_REMOVE, begin);
         }
-
-        return true;
     }
 
     /**
@@ -73,11 +451,14 @@ public class GradeManager {
      * @return 成绩，不存在返回-1
      */
     public double getGrade(String studentId, String courseId) {
-        if (!grades.containsKey(studentId) ||
-                !grades.get(studentId).containsKey(courseId)) {
-            return -1;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            double grade = store.get(studentId, courseId);
+            return Double.isNaN(grade) ? -1 : grade;
+        } finally {
+            metrics.record(OperationType.GRADE_GET, begin);
         }
-        return grades.get(studentId).get(courseId);
     }
 
     /**
@@ -86,7 +467,15 @@ public class GradeManager {
      * @return 成绩映射表<课程编号, 成绩>，不存在返回空map
      */
     public Map<String, Double> getStudentGrades(String studentId) {
-        return grades.getOrDefault(studentId, new HashMap<>());
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Map<String, Double> result = new HashMap<>();
+            store.forEachStudentGrade(studentId, (sid, courseId, grade) -> result.put(courseId, grade));
+            return result;
+        } finally {
+            metrics.record(OperationType.STUDENT_GRADES, begin);
+        }
     }
 
     /**
@@ -95,14 +484,55 @@ public class GradeManager {
      * @return 成绩列表<学号, 成绩>
      */
     public Map<String, Double> getCourseGrades(String courseId) {
-        Map<String, Double> result = new HashMap<>();
-        for (Map.Entry<String, Map<String, Double>> entry : grades.entrySet()) {
-            String studentId = entry.getKey();
-            if (entry.getValue().containsKey(courseId)) {
-                result.put(studentId, entry.getValue().get(courseId));
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Map<String, Double> result = new HashMap<>();
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return result;
+            }
+            // 与统计量和排名在同一把锁下读取，保证三者一致
+            synchronized (aggregate) {
+                store.forEachCourseGrade(courseId, (studentId, cid, grade) -> result.put(studentId, grade));
             }
+            return result;
+        } finally {
+            metrics.record(OperationType.COURSE_GRADES, begin);
         }
-        return result;
+    }
+
+    /**
+     * 遍历某学生的所有成绩，不产生中间映射表
+     * @param studentId 学号
+     * @param visitor 回调
+     */
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        store.forEachStudentGrade(studentId, visitor);
+    }
+
+    /**
+     * 遍历某课程的所有成绩，不产生中间映射表
+     * @param courseId 课程编号
+     * @param visitor 回调
+     */
+    public void forEachCourseGrade(String courseId, GradeVisitor visitor) {
+        store.forEachCourseGrade(courseId, visitor);
+    }
+
+    /**
+     * 遍历全部成绩
+     * @param visitor 回调
+     */
+    public void forEachGrade(GradeVisitor visitor) {
+        store.forEach(visitor);
+    }
+
+    /**
+     * @return 成绩总条数
+     */
+    public int getGradeCount() {
+        return store.size();
     }
 
     /**
@@ -111,15 +541,98 @@ public class GradeManager {
      * @return 平均成绩，无成绩记录返回-1
      */
     public double calculateStudentAverage(String studentId) {
-        if (!grades.containsKey(studentId) || grades.get(studentId).isEmpty()) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            int count = store.studentGradeCount(studentId);
+            if (count == 0) {
+                return -1;
+            }
+
+            double[] sum = new double[1];
+            store.forEachStudentGrade(studentId, (sid, courseId, grade) -> sum[0] += grade);
+            return sum[0] / count;
+        } finally {
+            metrics.record(OperationType.STUDENT_AVERAGE, begin);
+        }
+    }
+
+    /**
+     * 查询学生的学分加权GPA
+     * 直接读取随成绩录入、删除和学分变化增量维护的累计量，不遍历成绩；须先调用{@link #bindCourses}
+     * @param studentId 学号
+     * @return GPA，没有计学分的成绩返回-1
+     */
+    public double getGpa(String studentId) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            return gpaOf(studentId);
+        } finally {
+            metrics.record(OperationType.GPA, begin);
+        }
+    }
+
+    private double gpaOf(String studentId) {
+        StudentGpa gpa = studentGpas.get(studentId);
+        if (gpa == null) {
             return -1;
         }
+        synchronized (gpa) {
+            return gpa.value();
+        }
+    }
 
-        double sum = 0;
-        for (double grade : grades.get(studentId).values()) {
-            sum += grade;
+    /**
+     * 全校GPA排行
+     * @param k 名次数量
+     * @return 按GPA降序排列的学号列表，同GPA按学号升序
+     */
+    public List<String> topGpa(int k) {
+        return topGpa(studentGpas.keySet(), k);
+    }
+
+    /**
+     * 指定学生范围内的GPA排行，例如某个院系
+     * 用大小为k的堆选出前k名，耗时O(n log k)
+     * @param studentIds 参与排名的学号
+     * @param k 名次数量
+     * @return 按GPA降序排列的学号列表，同GPA按学号升序；没有GPA的学生不参与排名
+     */
+    public List<String> topGpa(Collection<String> studentIds, int k) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            if (k <= 0) {
+                return new ArrayList<>();
+            }
+            // 堆顶是当前前k名中最差的一名
+            Comparator<GpaRank> worstFirst = Comparator.comparingDouble((GpaRank r) -> r.gpa)
+                    .thenComparing(r -> r.studentId, Comparator.reverseOrder());
+            PriorityQueue<GpaRank> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, worstFirst);
+            for (String studentId : studentIds) {
+                double gpa = gpaOf(studentId);
+                if (gpa < 0) {
+                    continue;
+                }
+                if (heap.size() < k) {
+                    heap.add(new GpaRank(studentId, gpa));
+                } else {
+                    GpaRank worst = heap.peek();
+                    if (gpa > worst.gpa || (gpa == worst.gpa && studentId.compareTo(worst.studentId) < 0)) {
+                        heap.poll();
+                        heap.add(new GpaRank(studentId, gpa));
+                    }
+                }
+            }
+            String[] result = new String[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = heap.poll().studentId;
+            }
+            return new ArrayList<>(Arrays.asList(result));
+        } finally {
+            metrics.record(OperationType.GPA_RANKING, begin);
         }
-        return sum / grades.get(studentId).size();
     }
 
     /**
@@ -128,16 +641,45 @@ public class GradeManager {
      * @return 平均成绩，无成绩记录返回-1
      */
     public double calculateCourseAverage(String courseId) {
-        Map<String, Double> courseGrades = getCourseGrades(courseId);
-        if (courseGrades.isEmpty()) {
-            return -1;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return -1;
+            }
+            synchronized (aggregate) {
+                return aggregate.count > 0 ? aggregate.sum / aggregate.count : -1;
+            }
+        } finally {
+            metrics.record(OperationType.COURSE_AVERAGE, begin);
         }
+    }
 
-        double sum = 0;
-        for (double grade : courseGrades.values()) {
-            sum += grade;
+    /**
+     * 获取课程成绩统计快照
+     * 统计量随成绩录入和删除增量维护，查询时不遍历成绩
+     * @param courseId 课程编号
+     * @return 统计快照，无成绩记录返回null
+     */
+    public CourseStats getCourseStats(String courseId) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return null;
+            }
+            synchronized (aggregate) {
+                if (aggregate.count == 0) {
+                    return null;
+                }
+                return new CourseStats(courseId, aggregate.count, aggregate.sum,
+                        aggregate.min(), aggregate.max(), aggregate.ranges.clone());
+            }
+        } finally {
+            metrics.record(OperationType.COURSE_STATS, begin);
         }
-        return sum / courseGrades.size();
     }
 
     /**
@@ -146,65 +688,470 @@ public class GradeManager {
      * @return 按成绩降序排列的学号列表
      */
     public List<String> getGradeRanking(String courseId) {
-        Map<String, Double> courseGrades = getCourseGrades(courseId);
-        List<Map.Entry<String, Double>> entries = new ArrayList<>(courseGrades.entrySet());
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return new ArrayList<>();
+            }
+            synchronized (aggregate) {
+                return aggregate.ranking.slice(0, aggregate.count);
+            }
+        } finally {
+            metrics.record(OperationType.GRADE_RANKING, begin);
+        }
+    }
 
-        // 按成绩降序排序
-        entries.sort((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()));
+    /**
+     * 获取课程前k名
+     * @param courseId 课程编号
+     * @param k 名次数量
+     * @return 按成绩降序排列的学号列表，同分按学号升序
+     * @throws IllegalArgumentException k为负数
+     */
+    public List<String> topK(String courseId, int k) {
+        return getRankingPage(courseId, 0, k);
+    }
 
-        List<String> ranking = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : entries) {
-            ranking.add(entry.getKey());
+    /**
+     * 分页获取成绩排名
+     * @param courseId 课程编号
+     * @param offset 起始名次下标（从0开始）
+     * @param limit 每页条数
+     * @return 按成绩降序排列的学号列表，同分按学号升序
+     * @throws IllegalArgumentException offset或limit为负数
+     */
+    public List<String> getRankingPage(String courseId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("起始名次和每页条数不能为负: offset=" + offset + ", limit=" + limit);
+        }
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null || limit == 0) {
+                return new ArrayList<>();
+            }
+            synchronized (aggregate) {
+                return aggregate.ranking.slice(offset, limit);
+            }
+        } finally {
+            metrics.record(OperationType.GRADE_RANKING, begin);
         }
-        return ranking;
     }
 
     /**
-     * 成绩统计信息
+     * 查询学生在课程中的名次
      * @param courseId 课程编号
+     * @param studentId 学号
+     * @return 名次（从1开始），无成绩记录返回-1
      */
-    public void displayCourseStatistics(String courseId) {
-        Map<String, Double> courseGrades = getCourseGrades(courseId);
-        if (courseGrades.isEmpty()) {
-            System.out.println("该课程暂无成绩记录！");
-            return;
+    public int rankOf(String courseId, String studentId) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return -1;
+            }
+            synchronized (aggregate) {
+                double grade = store.get(studentId, courseId);
+                if (Double.isNaN(grade)) {
+                    return -1;
+                }
+                return aggregate.ranking.rankOf(studentId, grade);
+            }
+        } finally {
+            metrics.record(OperationType.RANK_OF, begin);
         }
+    }
 
-        double sum = 0;
-        double min = MAX_GRADE;
-        double max = MIN_GRADE;
-        int count = 0;
+    /**
+     * 统计课程中成绩落在区间内的人数
+     * 区间在排名树上对应一段连续名次，两次下探即可得到，与课程人数无关
+     * @param courseId 课程编号
+     * @param range 成绩区间
+     * @return 人数，课程无成绩记录返回0
+     */
+    public int countInRange(String courseId, ScoreRange range) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return 0;
+            }
+            synchronized (aggregate) {
+                RankingTree ranking = aggregate.ranking;
+                return Math.max(0, ranking.countAbove(range.getMin(), range.isMinInclusive())
+                        - ranking.countAbove(range.getMax(), !range.isMaxInclusive()));
+            }
+        } finally {
+            metrics.record(OperationType.GRADE_RANGE, begin);
+        }
+    }
 
-        for (double grade : courseGrades.values()) {
-            sum += grade;
-            min = Math.min(min, grade);
-            max = Math.max(max, grade);
-            count++;
+    /**
+     * 按成绩降序遍历课程中成绩落在区间内的记录，同分按学号升序
+     * 只访问区间内的记录；回调在课程锁内执行，不能在回调中修改成绩
+     * @param courseId 课程编号
+     * @param range 成绩区间
+     * @param visitor 回调
+     */
+    public void forEachCourseGrade(String courseId, ScoreRange range, GradeVisitor visitor) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return;
+            }
+            synchronized (aggregate) {
+                RankingTree ranking = aggregate.ranking;
+                int from = ranking.countAbove(range.getMax(), !range.isMaxInclusive());
+                int to = ranking.countAbove(range.getMin(), range.isMinInclusive());
+                ranking.forEach(from, to, courseId, visitor);
+            }
+        } finally {
+            metrics.record(OperationType.GRADE_RANGE, begin);
         }
+    }
 
-        double average = sum / count;
+    /**
+     * 获取课程成绩的分布摘要，可查询中位数、任意分位数和百分位排名
+     * @param courseId 课程编号
+     * @return 摘要的副本，课程无成绩记录返回null
+     */
+    public ScoreSketch getScoreSketch(String courseId) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            CourseAggregate aggregate = courseAggregates.get(courseId);
+            if (aggregate == null) {
+                return null;
+            }
+            synchronized (aggregate) {
+                return aggregate.sketch.copy();
+            }
+        } finally {
+            metrics.record(OperationType.SCORE_SKETCH, begin);
+        }
+    }
+
+    /**
+     * 把多门课程的成绩分布合并成一个摘要，例如某教师所授全部课程
+     * 逐门课程在其锁内并入，不复制各课程的摘要
+     * @param courseIds 课程编号
+     * @return 合并后的摘要，没有成绩时为空摘要
+     */
+    public ScoreSketch mergeScoreSketches(Collection<String> courseIds) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            ScoreSketch result = new ScoreSketch();
+            for (String courseId : courseIds) {
+                CourseAggregate aggregate = courseAggregates.get(courseId);
+                if (aggregate != null) {
+                    synchronized (aggregate) {
+                        result.merge(aggregate.sketch);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            metrics.record(OperationType.SCORE_SKETCH, begin);
+        }
+    }
+
+    /**
+     * @return 当前有成绩记录的课程编号
+     */
+    public List<String> getCourseIds() {
+        return new ArrayList<>(courseAggregates.keySet());
+    }
+
+    /**
+     * 成绩统计信息
+     * @param courseId 课程编号
+     */
+    public void displayCourseStatistics(String courseId) {
+        CourseStats stats = getCourseStats(courseId);
+        if (stats == null) {
+            System.out.println("该课程暂无成绩记录！");
+            return;
+        }
 
         System.out.println("===== 课程成绩统计 =====");
         System.out.println("课程编号: " + courseId);
-        System.out.println("平均成绩: " + String.format("%.1f", average));
-        System.out.println("最高成绩: " + String.format("%.1f", max));
-        System.out.println("最低成绩: " + String.format("%.1f", min));
+        System.out.println("平均成绩: " + String.format("%.1f", stats.getAverage()));
+        System.out.println("最高成绩: " + String.format("%.1f", stats.getMax()));
+        System.out.println("最低成绩: " + String.format("%.1f", stats.getMin()));
+        ScoreSketch sketch = getScoreSketch(courseId);
+        if (sketch != null) {
+            System.out.println("中位数: " + String.format("%.1f", sketch.median()));
+            System.out.println("90分位: " + String.format("%.1f", sketch.quantile(0.9)));
+        }
         System.out.println("成绩分布:");
 
         // 成绩分段统计
-        int[] ranges = new int[10]; // 0-9, 10-19, ..., 90-100
-        for (double grade : courseGrades.values()) {
-            int index = (int)(grade / 10);
-            if (index >= 10) index = 9; // 100分放在90-100区间
-            ranges[index]++;
-        }
-
-        for (int i = 0; i < ranges.length; i++) {
+        for (int i = 0; i < CourseStats.RANGE_COUNT; i++) {
             int start = i * 10;
             int end = (i == 9) ? 100 : start + 9;
             System.out.printf("%d-%d分: %d人 (%.1f%%)\n",
-                    start, end, ranges[i],
-                    (double)ranges[i] / count * 100);
+                    start, end, stats.getRangeCount(i),
+                    (double)stats.getRangeCount(i) / stats.getCount() * 100);
+        }
+    }
+
+    private CourseAggregate newAggregate(String courseId) {
+        Double credit = courseCredits.get(courseId);
+        return new CourseAggregate(credit != null ? credit : 0);
+    }
+
+    /**
+     * 按课程管理类中的当前学分同步某门课程，课程不存在时学分视为0
+     * 串行执行并总是读取最新状态，乱序到达的课程事件最终也会收敛到正确的学分
+     */
+    private void refreshCredit(String courseId) {
+        synchronized (courseCredits) {
+            Course course = boundCourses.getCourse(courseId);
+            double credit = course != null ? course.getCredit() : 0;
+            if (credit != 0) {
+                courseCredits.put(courseId, credit);
+            } else {
+                courseCredits.remove(courseId);
+            }
+
+            CourseAggregate aggregate;
+            while ((aggregate = courseAggregates.get(courseId)) != null) {
+                synchronized (aggregate) {
+                    if (aggregate.retired) {
+                        continue;
+                    }
+                    applyCredit(courseId, aggregate, credit);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 第一次持有新统计量的锁时，按当前学分校正
+     * newAggregate在统计量发布之前读取学分，同时进行的refreshCredit可能已经更新了学分，却因为还看不到该统计量而跳过它；
+     * 发布之后的第一次加锁一定晚于这样的更新，此时再读一次学分即可收敛。调用方须持有该课程的锁
+     */
+    private void reconcileCredit(String courseId, CourseAggregate aggregate) {
+        if (!aggregate.creditReconciled) {
+            aggregate.creditReconciled = true;
+            Double credit = courseCredits.get(courseId);
+            applyCredit(courseId, aggregate, credit != null ? credit : 0);
+        }
+    }
+
+    /**
+     * 把课程成绩计入GPA时使用的学分改为credit，只调整选了这门课的学生；调用方须持有该课程的锁
+     */
+    private void applyCredit(String courseId, CourseAggregate aggregate, double credit) {
+        double oldCredit = aggregate.credit;
+        if (oldCredit != credit) {
+            aggregate.credit = credit;
+            store.forEachCourseGrade(courseId, (studentId, cid, grade) ->
+                    adjustGpa(studentId, grade, oldCredit, grade, credit));
+            eventSink.courseCreditChanged(courseId, oldCredit, credit);
+        }
+    }
+
+    /**
+     * 调整学生GPA累计量：移除旧成绩的贡献并加入新成绩的贡献
+     * 调用方须持有该课程的锁；成绩为NaN或学分为0表示没有对应贡献
+     */
+    private void adjustGpa(String studentId, double oldGrade, double oldCredit,
+                           double newGrade, double newCredit) {
+        boolean removes = !Double.isNaN(oldGrade) && oldCredit != 0;
+        boolean adds = !Double.isNaN(newGrade) && newCredit != 0;
+        if (!removes && !adds) {
+            return;
+        }
+        StudentGpa gpa = studentGpas.computeIfAbsent(studentId, k -> new StudentGpa());
+        synchronized (gpa) {
+            if (removes) {
+                gpa.remove(oldGrade, oldCredit);
+            }
+            if (adds) {
+                gpa.add(newGrade, newCredit);
+            }
+        }
+    }
+
+    /**
+     * 计算成绩所在分段
+     * @param grade 成绩
+     * @return 分段下标 0-9, 对应 0-9, 10-19, ..., 90-100
+     */
+    private static int rangeIndex(double grade) {
+        int index = (int)(grade / 10);
+        if (index >= CourseStats.RANGE_COUNT) index = CourseStats.RANGE_COUNT - 1; // 100分放在90-100区间
+        return index;
+    }
+
+    /**
+     * 课程成绩累计量
+     * 录入、覆盖和删除成绩时增量更新，最高/最低分取自排名树两端，分位数取自分布摘要。
+     * 同时作为该课程成绩读写的锁；成绩删空后标记为retired并从映射表移除。
+     * credit是该课程成绩当前计入GPA时使用的学分，creditReconciled表示发布后是否已按当前学分校正过
+     */
+    private static class CourseAggregate {
+        boolean retired;
+        boolean creditReconciled;
+        double credit;
+        int count;
+        double sum;
+        final int[] ranges = new int[CourseStats.RANGE_COUNT];
+        final RankingTree ranking = new RankingTree();
+        final ScoreSketch sketch = new ScoreSketch();
+
+        CourseAggregate(double credit) {
+            this.credit = credit;
+        }
+
+        void add(String studentId, double grade) {
+            count++;
+            sum += grade;
+            ranges[rangeIndex(grade)]++;
+            ranking.insert(studentId, grade);
+            sketch.add(grade);
+        }
+
+        /**
+         * 由一门课程的全部成绩一次建成各项统计量，调用方须保证统计量为空且学号不重复
+         */
+        void build(String[] studentIds, double[] grades, int n) {
+            for (int i = 0; i < n; i++) {
+                count++;
+                sum += grades[i];
+                ranges[rangeIndex(grades[i])]++;
+                sketch.add(grades[i]);
+            }
+            ranking.build(studentIds, grades, n);
+        }
+
+        void remove(String studentId, double grade) {
+            count--;
+            sum -= grade;
+            ranges[rangeIndex(grade)]--;
+            ranking.remove(studentId, grade);
+            sketch.remove(grade);
+        }
+
+        double max() {
+            return ranking.gradeAt(0);
+        }
+
+        double min() {
+            return ranking.gradeAt(count - 1);
+        }
+    }
+
+    /**
+     * 学生的学分加权累计量，以自身为锁
+     */
+    private static class StudentGpa {
+        int courses;
+        double weightedSum;
+        double creditSum;
+
+        void add(double grade, double credit) {
+            courses++;
+            weightedSum += grade * credit;
+            creditSum += credit;
+        }
+
+        void remove(double grade, double credit) {
+            if (--courses == 0) {
+                // 清零而不是相减，避免浮点误差累积
+                weightedSum = 0;
+                creditSum = 0;
+            } else {
+                weightedSum -= grade * credit;
+                creditSum -= credit;
+            }
+        }
+
+        double value() {
+            return courses > 0 && creditSum > 0 ? weightedSum / creditSum : -1;
+        }
+    }
+
+    /**
+     * GPA排行中的一项
+     */
+    private static class GpaRank {
+        final String studentId;
+        final double gpa;
+
+        GpaRank(String studentId, double gpa) {
+            this.studentId = studentId;
+            this.gpa = gpa;
+        }
+    }
+
+    /**
+     * 课程成绩统计快照
+     */
+    public static class CourseStats {
+        public static final int RANGE_COUNT = 10;
+
+        private final String courseId;
+        private final int count;
+        private final double sum;
+        private final double min;
+        private final double max;
+        private final int[] ranges;
+
+        CourseStats(String courseId, int count, double sum,
+                    double min, double max, int[] ranges) {
+            this.courseId = courseId;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.ranges = ranges;
+        }
+
+        /**
+         * 由一组成绩直接计算统计快照，用于不经过增量累计量的只读视图
+         * @param courseId 课程编号
+         * @param grades 成绩，不能为空
+         * @return 统计快照
+         */
+        public static CourseStats of(String courseId, Collection<Double> grades) {
+            int[] ranges = new int[RANGE_COUNT];
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (double grade : grades) {
+                sum += grade;
+                min = Math.min(min, grade);
+                max = Math.max(max, grade);
+                ranges[rangeIndex(grade)]++;
+            }
+            return new CourseStats(courseId, grades.size(), sum, min, max, ranges);
+        }
+
+        public String getCourseId() { return courseId; }
+        public int getCount() { return count; }
+        public double getSum() { return sum; }
+        public double getAverage() { return sum / count; }
+        public double getMin() { return min; }
+        public double getMax() { return max; }
+        public int getRangeCount(int index) { return ranges[index]; }
+        public int[] getRanges() { return ranges.clone(); }
+
+        @Override
+        public String toString() {
+            return String.format("课程编号: %s, 人数: %d, 平均: %.1f, 最高: %.1f, 最低: %.1f",
+                    courseId, count, getAverage(), max, min);
         }
     }
 }
\ No newline at end of file
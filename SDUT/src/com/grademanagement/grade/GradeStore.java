@@ -0,0 +1,94 @@
+package com.grademanagement.grade;
+
+/**
+ * 成绩存储接口
+ * 同时提供按学生和按课程两个方向的访问，成绩以double传递，
+ * 不存在的成绩用{@link Double#NaN}表示
+ */
+public interface GradeStore {
+
+    /**
+     * 写入成绩
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param grade 成绩
+     * @return 覆盖前的成绩，新增返回NaN
+     */
+    double put(String studentId, String courseId, double grade);
+
+    /**
+     * 删除成绩
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @return 被删除的成绩，不存在返回NaN
+     */
+    double remove(String studentId, String courseId);
+
+    /**
+     * 查询成绩
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @return 成绩，不存在返回NaN
+     */
+    double get(String studentId, String courseId);
+
+    /**
+     * @param studentId 学号
+     * @return 该学生的成绩条数
+     */
+    int studentGradeCount(String studentId);
+
+    /**
+     * @param courseId 课程编号
+     * @return 该课程的成绩条数
+     */
+    int courseGradeCount(String courseId);
+
+    /**
+     * 遍历某学生的所有成绩
+     * @param studentId 学号
+     * @param visitor 回调
+     */
+    void forEachStudentGrade(String studentId, GradeVisitor visitor);
+
+    /**
+     * 遍历某课程的所有成绩
+     * @param courseId 课程编号
+     * @param visitor 回调
+     */
+    void forEachCourseGrade(String courseId, GradeVisitor visitor);
+
+    /**
+     * 遍历全部成绩
+     * @param visitor 回调
+     */
+    void forEach(GradeVisitor visitor);
+
+    /**
+     * @return 成绩总条数
+     */
+    int size();
+
+    /**
+     * 为即将批量写入的课程预留空间，默认不做处理
+     * @param courseId 课程编号
+     * @param additional 预计新增的成绩条数
+     */
+    default void reserveCourse(String courseId, int additional) {
+    }
+
+    /**
+     * 批量写入字典编码的成绩列，第i条为(dictionary[studentRefs[i]], dictionary[courseRefs[i]], grades[i])
+     * 默认逐条调用put，实现类可以按字典下标一次解析编码、一次分配行空间
+     * @param dictionary 字符串字典
+     * @param studentRefs 学号列，均为有效下标
+     * @param courseRefs 课程编号列，均为有效下标
+     * @param grades 成绩列
+     * @param count 成绩条数
+     */
+    default void putAll(String[] dictionary, int[] studentRefs, int[] courseRefs, double[] grades, int count) {
+        for (int i = 0; i < count; i++) {
+            put(dictionary[studentRefs[i]], dictionary[courseRefs[i]], grades[i]);
+        }
+    }
+}
\ No newline at end of file
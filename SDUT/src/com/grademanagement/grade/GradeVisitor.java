@@ -0,0 +1,15 @@
+package com.grademanagement.grade;
+
+/**
+ * 成绩遍历回调
+ * 以基本类型传递成绩，遍历时不产生装箱对象
+ */
+@FunctionalInterface
+public interface GradeVisitor {
+    /**
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param grade 成绩
+     */
+    void visit(String studentId, String courseId, double grade);
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.grademanagement.grade;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于嵌套HashMap的成绩存储
+ * 按学生和按课程各维护一份映射表
+ */
+public class HashGradeStore implements GradeStore {
+    private final Map<String, Map<String, Double>> grades; // <studentId, <courseId, grade>>
+    private final Map<String, Map<String, Double>> courseIndex; // <courseId, <studentId, grade>>
+    private int size;
+
+    public HashGradeStore() {
+        this.grades = new HashMap<>();
+        this.courseIndex = new HashMap<>();
+    }
+
+    @Override
+    public double put(String studentId, String courseId, double grade) {
+        Double previous = grades.computeIfAbsent(studentId, k -> new HashMap<>()).put(courseId, grade);
+        courseIndex.computeIfAbsent(courseId, k -> new HashMap<>()).put(studentId, grade);
+        if (previous == null) {
+            size++;
+            return Double.NaN;
+        }
+        return previous;
+    }
+
+    @Override
+    public double remove(String studentId, String courseId) {
+        Map<String, Double> studentGrades = grades.get(studentId);
+        if (studentGrades == null) {
+            return Double.NaN;
+        }
+        Double removed = studentGrades.remove(courseId);
+        if (removed == null) {
+            return Double.NaN;
+        }
+
+        // 如果该学生没有其他成绩记录，则移除学生条目
+        if (studentGrades.isEmpty()) {
+            grades.remove(studentId);
+        }
+
+        Map<String, Double> enrolled = courseIndex.get(courseId);
+        enrolled.remove(studentId);
+        if (enrolled.isEmpty()) {
+            courseIndex.remove(courseId);
+        }
+        size--;
+        return removed;
+    }
+
+    @Override
+    public double get(String studentId, String courseId) {
+        Map<String, Double> studentGrades = grades.get(studentId);
+        if (studentGrades == null) {
+            return Double.NaN;
+        }
+        Double grade = studentGrades.get(courseId);
+        return grade != null ? grade : Double.NaN;
+    }
+
+    @Override
+    public int studentGradeCount(String studentId) {
+        Map<String, Double> studentGrades = grades.get(studentId);
+        return studentGrades != null ? studentGrades.size() : 0;
+    }
+
+    @Override
+    public int courseGradeCount(String courseId) {
+        Map<String, Double> enrolled = courseIndex.get(courseId);
+        return enrolled != null ? enrolled.size() : 0;
+    }
+
+    @Override
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        Map<String, Double> studentGrades = grades.get(studentId);
+        if (studentGrades == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> entry : studentGrades.entrySet()) {
+            visitor.visit(studentId, entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void forEachCourseGrade(String courseId, GradeVisitor visitor) {
+        Map<String, Double> enrolled = courseIndex.get(courseId);
+        if (enrolled == null) {
+            return;
+        }
+        for (Map.Entry<String, Double> entry : enrolled.entrySet()) {
+            visitor.visit(entry.getKey(), courseId, entry.getValue());
+        }
+    }
+
+    @Override
+    public void forEach(GradeVisitor visitor) {
+        for (Map.Entry<String, Map<String, Double>> row : grades.entrySet()) {
+            String studentId = row.getKey();
+            for (Map.Entry<String, Double> entry : row.getValue().entrySet()) {
+                visitor.visit(studentId, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void reserveCourse(String courseId, int additional) {
+        courseIndex.computeIfAbsent(courseId, k -> new HashMap<>(additional * 4 / 3 + 1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,351 @@
+package com.grademanagement.grade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 课程成绩排名树
+ * 按成绩降序、学号升序排列的顺序统计树（带子树大小的Treap），
+ * 插入、删除、查询名次和取第k名均为O(log n)，取连续k名为O(log n + k)
+ */
+class RankingTree {
+    private static final Random PRIORITIES = new Random();
+
+    private Node root;
+
+    /**
+     * 插入一条成绩
+     * @param studentId 学号
+     * @param grade 成绩
+     */
+    void insert(String studentId, double grade) {
+        root = insert(root, new Node(studentId, grade, PRIORITIES.nextInt()));
+    }
+
+    /**
+     * 由一门课程的全部成绩一次建树，替换原有内容
+     * 先按名次排序：成绩换算为降序的名次段后与下标拼成long排序，只在同分的一段内比较学号；
+     * 再沿名次顺序用栈建成笛卡尔树。总耗时O(n log n)，排序不经过比较器也不逐个访问节点对象。
+     * 优先级同样随机生成，得到的树与逐条插入的树服从相同的分布
+     * @param studentIds 学号，同一学号只能出现一次
+     * @param grades 成绩，与学号一一对应
+     * @param count 条数
+     */
+    void build(String[] studentIds, double[] grades, int count) {
+        // 加0.0把-0.0归为0.0，与compare中的同分判断一致
+        double[] distinct = new double[count];
+        for (int i = 0; i < count; i++) {
+            distinct[i] = grades[i] + 0.0;
+        }
+        Arrays.sort(distinct);
+        int levels = 0;
+        for (int i = 0; i < count; i++) {
+            if (levels == 0 || distinct[i] != distinct[levels - 1]) {
+                distinct[levels++] = distinct[i];
+            }
+        }
+        // 高32位是成绩从高到低的名次段，低32位是下标
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            long level = levels - 1 - Arrays.binarySearch(distinct, 0, levels, grades[i] + 0.0);
+            keys[i] = level << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        String[] orderedIds = new String[count];
+        for (int k = 0; k < count; k++) {
+            orderedIds[k] = studentIds[(int) keys[k]];
+        }
+        Node[] rightSpine = new Node[count]; // 当前树的右链，优先级自底向上递减
+        int top = 0;
+        for (int start = 0, end; start < count; start = end) {
+            double grade = grades[(int) keys[start]];
+            end = start + 1;
+            while (end < count && keys[end] >>> 32 == keys[start] >>> 32) {
+                end++;
+            }
+            Arrays.sort(orderedIds, start, end); // 同分按学号升序
+            for (int k = start; k < end; k++) {
+                Node node = new Node(orderedIds[k], grade, PRIORITIES.nextInt());
+                top = push(rightSpine, top, node);
+            }
+        }
+        root = top > 0 ? rightSpine[0] : null;
+        updateSizes(root);
+    }
+
+    /**
+     * 把名次最低的新节点接到笛卡尔树上：弹出优先级比它低的右链节点作为其左子树，再把它接到右链末尾
+     * @return 右链新的长度
+     */
+    private static int push(Node[] rightSpine, int top, Node node) {
+        Node last = null;
+        while (top > 0 && rightSpine[top - 1].priority < node.priority) {
+            last = rightSpine[--top];
+        }
+        node.left = last;
+        if (top > 0) {
+            rightSpine[top - 1].right = node;
+        }
+        rightSpine[top++] = node;
+        return top;
+    }
+
+    /**
+     * 后序计算子树大小，递归深度即树高，期望为O(log n)
+     */
+    private static int updateSizes(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        node.size = 1 + updateSizes(node.left) + updateSizes(node.right);
+        return node.size;
+    }
+
+    /**
+     * 删除一条成绩
+     * @param studentId 学号
+     * @param grade 该学生当前成绩
+     */
+    void remove(String studentId, double grade) {
+        root = remove(root, studentId, grade);
+    }
+
+    /**
+     * @return 树中成绩条数
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * 查询名次
+     * @param studentId 学号
+     * @param grade 该学生当前成绩
+     * @return 名次（从1开始），不存在返回-1
+     */
+    int rankOf(String studentId, double grade) {
+        int before = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(studentId, grade, node);
+            if (cmp == 0) {
+                return before + size(node.left) + 1;
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 取第index名的成绩
+     * @param index 名次下标（从0开始）
+     * @return 成绩
+     */
+    double gradeAt(int index) {
+        Node node = root;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.grade;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        throw new IndexOutOfBoundsException("名次越界: " + index);
+    }
+
+    /**
+     * 取连续名次的学号
+     * @param from 起始名次下标（从0开始，不能为负）
+     * @param count 最多返回条数（不能为负）
+     * @return 学号列表
+     */
+    List<String> slice(int from, int count) {
+        // 不计算from + count，避免count接近Integer.MAX_VALUE时溢出
+        int to = from >= size() ? from : from + Math.min(count, size() - from);
+        List<String> result = new ArrayList<>(Math.max(0, to - from));
+        if (from < to) {
+            collect(root, 0, from, to, result);
+        }
+        return result;
+    }
+
+    private static void collect(Node node, int offset, int from, int to, List<String> result) {
+        if (node == null) {
+            return;
+        }
+        int index = offset + size(node.left);
+        if (from < index) {
+            collect(node.left, offset, from, to, result);
+        }
+        if (index >= from && index < to) {
+            result.add(node.studentId);
+        }
+        if (index + 1 < to) {
+            collect(node.right, index + 1, from, to, result);
+        }
+    }
+
+    /**
+     * 统计排在某个成绩边界之前的条数
+     * 成绩降序排列，成绩高于边界的记录总在前面，因此一个成绩区间对应一段连续的名次
+     * @param bound 成绩边界
+     * @param includeBound 等于边界的成绩是否计入
+     * @return 成绩高于（或不低于）边界的条数
+     */
+    int countAbove(double bound, boolean includeBound) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.grade > bound || (includeBound && node.grade == bound)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按名次顺序遍历一段连续名次
+     * @param from 起始名次下标（从0开始，包含）
+     * @param to 结束名次下标（不包含）
+     * @param courseId 回调中使用的课程编号
+     * @param visitor 回调
+     */
+    void forEach(int from, int to, String courseId, GradeVisitor visitor) {
+        to = Math.min(size(), to);
+        if (from < to) {
+            visit(root, 0, from, to, courseId, visitor);
+        }
+    }
+
+    private static void visit(Node node, int offset, int from, int to, String courseId, GradeVisitor visitor) {
+        if (node == null) {
+            return;
+        }
+        int index = offset + size(node.left);
+        if (from < index) {
+            visit(node.left, offset, from, to, courseId, visitor);
+        }
+        if (index >= from && index < to) {
+            visitor.visit(node.studentId, courseId, node.grade);
+        }
+        if (index + 1 < to) {
+            visit(node.right, index + 1, from, to, courseId, visitor);
+        }
+    }
+
+    /**
+     * 比较顺序：成绩高的在前，同分按学号升序
+     */
+    private static int compare(String studentId, double grade, Node node) {
+        if (grade != node.grade) {
+            return grade > node.grade ? -1 : 1;
+        }
+        return studentId.compareTo(node.studentId);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.studentId, added.grade, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node remove(Node node, String studentId, double grade) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(studentId, grade, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, studentId, grade);
+        } else {
+            node.right = remove(node.right, studentId, grade);
+        }
+        node.update();
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        node.update();
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        node.update();
+        return pivot;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * 树节点
+     */
+    private static class Node {
+        final String studentId;
+        final double grade;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(String studentId, double grade, int priority) {
+            this.studentId = studentId;
+            this.grade = grade;
+            this.priority = priority;
+        }
+
+        void update() {
+            size = 1 + RankingTree.size(left) + RankingTree.size(right);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.grademanagement.grade;
+
+/**
+ * 成绩区间
+ * 上下限可分别设为开或闭，用于按成绩范围查询，例如不及格为below(60)，优秀为atLeast(90)
+ */
+public final class ScoreRange {
+    public static final ScoreRange ALL =
+            new ScoreRange(Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true);
+
+    private final double min;
+    private final boolean minInclusive;
+    private final double max;
+    private final boolean maxInclusive;
+
+    private ScoreRange(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            throw new IllegalArgumentException("成绩区间的上下限不能为NaN");
+        }
+        if (min > max) {
+            throw new IllegalArgumentException("成绩区间下限大于上限: " + min + " > " + max);
+        }
+        this.min = min;
+        this.minInclusive = minInclusive;
+        this.max = max;
+        this.maxInclusive = maxInclusive;
+    }
+
+    /**
+     * @return 闭区间[min, max]
+     */
+    public static ScoreRange between(double min, double max) {
+        return new ScoreRange(min, true, max, true);
+    }
+
+    /**
+     * @return 低于max的成绩
+     */
+    public static ScoreRange below(double max) {
+        return new ScoreRange(Double.NEGATIVE_INFINITY, true, max, false);
+    }
+
+    /**
+     * @return 不低于min的成绩
+     */
+    public static ScoreRange atLeast(double min) {
+        return new ScoreRange(min, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * @param min 下限
+     * @param minInclusive 是否包含下限
+     * @param max 上限
+     * @param maxInclusive 是否包含上限
+     */
+    public static ScoreRange of(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        return new ScoreRange(min, minInclusive, max, maxInclusive);
+    }
+
+    public boolean contains(double grade) {
+        return (minInclusive ? grade >= min : grade > min)
+                && (maxInclusive ? grade <= max : grade < max);
+    }
+
+    public double getMin() { return min; }
+    public boolean isMinInclusive() { return minInclusive; }
+    public double getMax() { return max; }
+    public boolean isMaxInclusive() { return maxInclusive; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScoreRange)) return false;
+        ScoreRange that = (ScoreRange) o;
+        return Double.compare(min, that.min) == 0 && minInclusive == that.minInclusive
+                && Double.compare(max, that.max) == 0 && maxInclusive == that.maxInclusive;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(min);
+        result = 31 * result + (minInclusive ? 1 : 0);
+        result = 31 * result + Double.hashCode(max);
+        result = 31 * result + (maxInclusive ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return (minInclusive ? "[" : "(") + min + ", " + max + (maxInclusive ? "]" : ")");
+    }
+}
\ No newline at end of file
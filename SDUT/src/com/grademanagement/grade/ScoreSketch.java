@@ -0,0 +1,198 @@
+package com.grademanagement.grade;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 成绩分布摘要
+ * 成绩的取值范围固定为0到100，按0.1分一格计数，共1001格，每个摘要固定占用约4KB，与成绩条数无关。
+ * 录入、删除都是O(1)；分位数和百分位排名扫描各格，也是常数时间。
+ * 两个摘要逐格相加即可合并，合并结果与直接把两组成绩放入同一个摘要完全相同，
+ * 因此可以把多门课程的摘要合并成教师或院系的分布。
+ * <p>
+ * 误差界：成绩按四舍五入归入最近的格，保留一位小数的成绩没有误差，分位数和百分位排名都与精确结果相同；
+ * 更多位小数的成绩，分位数的误差不超过0.05分，百分位排名只会在与查询成绩相差不到0.05分的成绩上判断有误。
+ * 与t-digest、KLL等流式摘要不同，本摘要支持删除，成绩被覆盖或删除后结果仍然准确。
+ * <p>
+ * 分位数使用最近秩定义：q分位数是使不高于它的成绩占比不小于q的最小成绩，即升序第⌈q·n⌉条（至少第1条）。
+ * 秩按q的十进制写法精确计算，不受二进制浮点舍入影响，例如25条成绩的0.28分位取第7条而不是第8条。非线程安全
+ */
+public final class ScoreSketch {
+    public static final double MIN_SCORE = 0;
+    public static final double MAX_SCORE = 100;
+
+    private static final int SCALE = 10; // 每分的格数
+    private static final int BINS = (int) (MAX_SCORE * SCALE) + 1;
+
+    private final int[] counts = new int[BINS];
+    private long count;
+
+    public ScoreSketch() {
+    }
+
+    /**
+     * @return 与本摘要内容相同的新摘要
+     */
+    public ScoreSketch copy() {
+        ScoreSketch copy = new ScoreSketch();
+        copy.merge(this);
+        return copy;
+    }
+
+    private static int binOf(double score) {
+        if (!(score >= MIN_SCORE && score <= MAX_SCORE)) {
+            throw new IllegalArgumentException("成绩必须在" + MIN_SCORE + "到" + MAX_SCORE + "之间: " + score);
+        }
+        return (int) Math.round(score * SCALE);
+    }
+
+    private static double valueOf(int bin) {
+        return bin / (double) SCALE;
+    }
+
+    /**
+     * @param score 成绩
+     */
+    public void add(double score) {
+        counts[binOf(score)]++;
+        count++;
+    }
+
+    /**
+     * @param score 此前加入的成绩
+     * @throws IllegalArgumentException 摘要中没有该成绩
+     */
+    public void remove(double score) {
+        int bin = binOf(score);
+        if (counts[bin] == 0) {
+            throw new IllegalArgumentException("成绩分布中没有该成绩: " + score);
+        }
+        counts[bin]--;
+        count--;
+    }
+
+    /**
+     * 把另一个摘要的成绩并入本摘要
+     * @param other 另一个摘要
+     */
+    public void merge(ScoreSketch other) {
+        int[] source = other.counts;
+        for (int i = 0; i < BINS; i++) {
+            counts[i] += source[i];
+        }
+        count += other.count;
+    }
+
+    /**
+     * @return 成绩条数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param q 分位，0到1之间，0为最低分，1为最高分
+     * @return q分位数，没有成绩时返回-1
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("分位必须在0到1之间: " + q);
+        }
+        if (count == 0) {
+            return -1;
+        }
+        return valueAtRank(rank(BigDecimal.valueOf(q)));
+    }
+
+    /**
+     * @return 中位数（偶数条时取较低的一个），没有成绩时返回-1
+     */
+    public double median() {
+        return quantile(0.5);
+    }
+
+    /**
+     * @param p 百分位，0到100之间
+     * @return 第p百分位数，没有成绩时返回-1
+     */
+    public double percentile(double p) {
+        if (!(p >= 0 && p <= 100)) {
+            throw new IllegalArgumentException("百分位必须在0到100之间: " + p);
+        }
+        if (count == 0) {
+            return -1;
+        }
+        // 不先算p / 100，避免除法舍入改变秩
+        return valueAtRank(rank(BigDecimal.valueOf(p).movePointLeft(2)));
+    }
+
+    /**
+     * 最近秩：⌈fraction·count⌉，至少为1，fraction为精确的十进制数
+     */
+    private long rank(BigDecimal fraction) {
+        long rank = fraction.multiply(BigDecimal.valueOf(count)).setScale(0, RoundingMode.CEILING).longValueExact();
+        return Math.max(1, rank);
+    }
+
+    /**
+     * @param rank 升序秩，1到count之间
+     * @return 第rank条成绩所在格的取值
+     */
+    private double valueAtRank(long rank) {
+        long seen = 0;
+        for (int i = 0; i < BINS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        throw new IllegalStateException("秩超出成绩条数: " + rank + " > " + count);
+    }
+
+    /**
+     * 百分位排名
+     * @param score 成绩
+     * @return 不高于该成绩的成绩所占百分比（0到100），没有成绩时返回-1
+     */
+    public double percentRank(double score) {
+        if (count == 0) {
+            return -1;
+        }
+        return countAtMost(score) * 100.0 / count;
+    }
+
+    /**
+     * @param score 成绩
+     * @return 不高于该成绩的成绩条数
+     */
+    public long countAtMost(double score) {
+        if (score < MIN_SCORE) {
+            return 0;
+        }
+        if (score >= MAX_SCORE) {
+            return count;
+        }
+        // 找出取值不高于score的最后一格，逐格比较避免乘法的舍入误差
+        int last = (int) Math.floor(score * SCALE);
+        while (last + 1 < BINS && valueOf(last + 1) <= score) {
+            last++;
+        }
+        while (last >= 0 && valueOf(last) > score) {
+            last--;
+        }
+        long result = 0;
+        for (int i = 0; i <= last; i++) {
+            result += counts[i];
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "成绩条数: 0";
+        }
+        return String.format("成绩条数: %d, 中位数: %.1f, 25分位: %.1f, 75分位: %.1f, 90分位: %.1f",
+                count, median(), quantile(0.25), quantile(0.75), quantile(0.9));
+    }
+}
\ No newline at end of file
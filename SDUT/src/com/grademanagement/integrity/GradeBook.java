@@ -0,0 +1,204 @@
+package com.grademanagement.integrity;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.event.CompositeEventSink;
+import com.grademanagement.event.EntityType;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 学生、课程、成绩之间的引用完整性
+ * 通过本类录入成绩时检查学号和课程编号都存在；作为事件接收器挂到学生和课程管理类上，
+ * 学生或课程被删除后（无论是否经由本类）级联删除其全部成绩。
+ * 级联删除借助成绩存储的学生行和课程行定位受影响的成绩，耗时与被删除的成绩条数成正比，
+ * 不扫描其他成绩。
+ * <p>
+ * 学号和课程编号各按哈希分段加读写锁：录入成绩持有学号段和课程编号段的读锁，
+ * 级联删除持有被删除键所在段的写锁，因此检查通过的成绩不会在学生或课程删除之后才写入。
+ * 直接调用成绩管理类录入的成绩不经过检查
+ */
+public class GradeBook implements EventSink, Closeable {
+    public static final String MSG_UNKNOWN_STUDENT = "该学号不存在，不能录入成绩！";
+    public static final String MSG_UNKNOWN_COURSE = "该课程编号不存在，不能录入成绩！";
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+    private final ReadWriteLock[] studentLocks = newLocks();
+    private final ReadWriteLock[] courseLocks = newLocks();
+    private volatile EventSink eventSink = EventSink.NOOP;
+
+    public GradeBook(StudentManager studentManager, CourseManager courseManager, GradeManager gradeManager) {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+        studentManager.addEventSink(this);
+        courseManager.addEventSink(this);
+    }
+
+    private static ReadWriteLock[] newLocks() {
+        ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
+
+    private static ReadWriteLock lockFor(ReadWriteLock[] locks, String key) {
+        int h = key.hashCode();
+        return locks[(h ^ (h >>> 16)) & (locks.length - 1)];
+    }
+
+    /**
+     * 从学生和课程管理类上注销，之后不再级联删除
+     */
+    @Override
+    public void close() {
+        studentManager.removeEventSink(this);
+        courseManager.removeEventSink(this);
+    }
+
+    /**
+     * 注册事件接收器，接收因学号或课程编号不存在而被拒绝的成绩录入
+     * @param sink 事件接收器
+     */
+    public synchronized void addEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.add(eventSink, sink);
+    }
+
+    /**
+     * @param sink 事件接收器
+     */
+    public synchronized void removeEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.remove(eventSink, sink);
+    }
+
+    /**
+     * 录入或更新成绩，学号和课程编号必须存在
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param grade 成绩
+     * @return 操作是否成功
+     */
+    public boolean recordGrade(String studentId, String courseId, double grade) {
+        if (studentId == null || courseId == null) {
+            eventSink.rejected(EntityType.GRADE, studentId, courseId, GradeManager.MSG_MISSING_KEY);
+            return false;
+        }
+        Lock studentLock = lockFor(studentLocks, studentId).readLock();
+        Lock courseLock = lockFor(courseLocks, courseId).readLock();
+        studentLock.lock();
+        try {
+            courseLock.lock();
+            try {
+                if (studentManager.getStudent(studentId) == null) {
+                    eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_UNKNOWN_STUDENT);
+                    return false;
+                }
+                if (courseManager.getCourse(courseId) == null) {
+                    eventSink.rejected(EntityType.GRADE, studentId, courseId, MSG_UNKNOWN_COURSE);
+                    return false;
+                }
+                return gradeManager.recordGrade(studentId, courseId, grade);
+            } finally {
+                courseLock.unlock();
+            }
+        } finally {
+            studentLock.unlock();
+        }
+    }
+
+    /**
+     * 删除学生及其全部成绩
+     * @param studentId 学号
+     * @return 删除是否成功
+     */
+    public boolean removeStudent(String studentId) {
+        return studentManager.removeStudent(studentId);
+    }
+
+    /**
+     * 删除课程及其全部成绩
+     * @param courseId 课程编号
+     * @return 删除是否成功
+     */
+    public boolean removeCourse(String courseId) {
+        return courseManager.removeCourse(courseId);
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        String studentId = student.getStudentId();
+        Lock lock = lockFor(studentLocks, studentId).writeLock();
+        lock.lock();
+        try {
+            // 事件在学生管理类的键锁之外发出，学号可能已被重新添加
+            if (studentManager.getStudent(studentId) != null) {
+                return;
+            }
+            for (String courseId : gradeManager.getStudentGrades(studentId).keySet()) {
+                gradeManager.removeGrade(studentId, courseId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        String courseId = course.getCourseId();
+        Lock lock = lockFor(courseLocks, courseId).writeLock();
+        lock.lock();
+        try {
+            if (courseManager.getCourse(courseId) != null) {
+                return;
+            }
+            for (String studentId : gradeManager.getGradeRanking(courseId)) {
+                gradeManager.removeGrade(studentId, courseId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除学号或课程编号已不存在的成绩
+     * 用于清理接入本类之前或绕过本类录入的成绩，需要遍历全部成绩
+     * @return 删除的成绩条数
+     */
+    public int removeOrphanedGrades() {
+        List<String[]> orphans = new ArrayList<>();
+        gradeManager.forEachGrade((studentId, courseId, grade) -> {
+            if (studentManager.getStudent(studentId) == null || courseManager.getCourse(courseId) == null) {
+                orphans.add(new String[]{studentId, courseId});
+            }
+        });
+        int removed = 0;
+        for (String[] orphan : orphans) {
+            Lock studentLock = lockFor(studentLocks, orphan[0]).writeLock();
+            studentLock.lock();
+            try {
+                // 收集之后学生或课程可能被重新添加，删除前再检查一次
+                if ((studentManager.getStudent(orphan[0]) == null || courseManager.getCourse(orphan[1]) == null)
+                        && gradeManager.removeGrade(orphan[0], orphan[1])) {
+                    removed++;
+                }
+            } finally {
+                studentLock.unlock();
+            }
+        }
+        return removed;
+    }
+}
\ No newline at end of file
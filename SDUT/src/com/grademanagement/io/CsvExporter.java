@@ -0,0 +1,134 @@
+package com.grademanagement.io;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.snapshot.DataSource;
+import com.grademanagement.snapshot.DataView;
+import com.grademanagement.snapshot.SnapshotStore;
+import com.grademanagement.student.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 表格导出
+ * 输出格式与{@link CsvImporter}一致，导出的文件可原样导入。
+ * 每次导出只取一次视图，数据来源为{@link SnapshotStore}时导出的是同一时刻的数据
+ */
+public class CsvExporter {
+    private final DataSource source;
+    private final CsvFormat format;
+
+    public CsvExporter(DataSource source, CsvFormat format) {
+        this.source = source;
+        this.format = format;
+    }
+
+    /**
+     * 导出学生表，文件已存在时覆盖
+     * @param file 文件
+     * @return 导出的行数
+     */
+    public int exportStudents(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            return exportStudents(channel);
+        }
+    }
+
+    /**
+     * @param channel 输出通道，不会被关闭
+     * @return 导出的行数
+     */
+    public int exportStudents(WritableByteChannel channel) throws IOException {
+        CsvWriter out = new CsvWriter(channel, format);
+        out.record(CsvFormat.STUDENT_COLUMNS);
+        int count = 0;
+        for (Student student : source.currentView().getAllStudents()) {
+            out.field(student.getStudentId())
+                    .field(student.getName())
+                    .field(student.getAge())
+                    .field(student.getGender())
+                    .field(student.getDepartment())
+                    .endRecord();
+            count++;
+        }
+        out.finish();
+        return count;
+    }
+
+    /**
+     * 导出课程表，文件已存在时覆盖
+     * @param file 文件
+     * @return 导出的行数
+     */
+    public int exportCourses(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            return exportCourses(channel);
+        }
+    }
+
+    /**
+     * @param channel 输出通道，不会被关闭
+     * @return 导出的行数
+     */
+    public int exportCourses(WritableByteChannel channel) throws IOException {
+        CsvWriter out = new CsvWriter(channel, format);
+        out.record(CsvFormat.COURSE_COLUMNS);
+        int count = 0;
+        for (Course course : source.currentView().getAllCourses()) {
+            out.field(course.getCourseId())
+                    .field(course.getCourseName())
+                    .field(course.getCredit())
+                    .field(course.getTeacher())
+                    .field(course.getSchedule())
+                    .endRecord();
+            count++;
+        }
+        out.finish();
+        return count;
+    }
+
+    /**
+     * 导出成绩表，文件已存在时覆盖
+     * @param file 文件
+     * @return 导出的行数
+     */
+    public int exportGrades(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            return exportGrades(channel);
+        }
+    }
+
+    /**
+     * @param channel 输出通道，不会被关闭
+     * @return 导出的行数
+     */
+    public int exportGrades(WritableByteChannel channel) throws IOException {
+        CsvWriter out = new CsvWriter(channel, format);
+        out.record(CsvFormat.GRADE_COLUMNS);
+        DataView view = source.currentView();
+        int[] count = new int[1];
+        try {
+            view.forEachGrade((studentId, courseId, grade) -> {
+                try {
+                    out.field(studentId).field(courseId).field(grade).endRecord();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.finish();
+        return count[0];
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+}
\ No newline at end of file
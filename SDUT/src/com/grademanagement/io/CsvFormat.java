@@ -0,0 +1,25 @@
+package com.grademanagement.io;
+
+/**
+ * 文本表格格式
+ * 两种格式只有分隔符不同：包含分隔符、双引号或换行的字段用双引号括起，字段内的双引号写成两个。
+ * 文件按UTF-8编码，第一行为表头，列顺序固定为下列表头的顺序；空字段表示null
+ */
+public enum CsvFormat {
+    CSV((byte) ','),
+    TSV((byte) '\t');
+
+    static final String[] STUDENT_COLUMNS = {"学号", "姓名", "年龄", "性别", "院系"};
+    static final String[] COURSE_COLUMNS = {"课程编号", "课程名称", "学分", "授课教师", "上课时间"};
+    static final String[] GRADE_COLUMNS = {"学号", "课程编号", "成绩"};
+
+    private final byte delimiter;
+
+    CsvFormat(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public byte getDelimiter() {
+        return delimiter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.grademanagement.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 表格导入结果
+ * 被拒绝的行全部计数，但只保留行号最小的MAX_RECORDED_ERRORS条明细
+ */
+public class CsvImportResult {
+    public static final int MAX_RECORDED_ERRORS = 1000;
+
+    private long rowCount;
+    private long acceptedCount;
+    private long rejectedCount;
+    private List<RowError> errors = new ArrayList<>();
+    private long bytesRead;
+    private long elapsedNanos;
+
+    void row() {
+        rowCount++;
+    }
+
+    void accepted(long count) {
+        acceptedCount += count;
+    }
+
+    void reject(long line, String reason) {
+        rejectedCount++;
+        if (errors.size() < MAX_RECORDED_ERRORS) {
+            errors.add(new RowError(line, reason));
+        }
+    }
+
+    /**
+     * 按行号排序并只保留前MAX_RECORDED_ERRORS条，由导入器在合并解析错误和管理类拒绝后调用
+     */
+    void finish(long bytesRead, long elapsedNanos) {
+        errors.sort((a, b) -> Long.compare(a.line, b.line));
+        if (errors.size() > MAX_RECORDED_ERRORS) {
+            errors = new ArrayList<>(errors.subList(0, MAX_RECORDED_ERRORS));
+        }
+        this.bytesRead = bytesRead;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 记录一条错误明细但不计数，用于管理类已计数的拒绝
+     */
+    void recordError(long line, String reason) {
+        errors.add(new RowError(line, reason));
+    }
+
+    void rejected(long count) {
+        rejectedCount += count;
+    }
+
+    /**
+     * @return 数据行数，不含表头和空行
+     */
+    public long getRowCount() { return rowCount; }
+    public long getAcceptedCount() { return acceptedCount; }
+    public long getRejectedCount() { return rejectedCount; }
+    /** @return 被拒绝的行，按行号升序，最多MAX_RECORDED_ERRORS条 */
+    public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+    public long getBytesRead() { return bytesRead; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /**
+     * @return 每秒处理的行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowCount * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("读取%d行, 成功%d条, 拒绝%d条, %d字节, 耗时%.1fms, %.0f行/秒",
+                rowCount, acceptedCount, rejectedCount, bytesRead, elapsedNanos / 1e6, getRowsPerSecond());
+    }
+
+    /**
+     * 被拒绝的行
+     */
+    public static class RowError {
+        private final long line;
+        private final String reason;
+
+        RowError(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * @return 记录起始行号（从1开始，含表头）
+         */
+        public long getLine() { return line; }
+        public String getReason() { return reason; }
+
+        @Override
+        public String toString() {
+            return String.format("第%d行: %s", line, reason);
+        }
+    }
+}
\ No newline at end of file
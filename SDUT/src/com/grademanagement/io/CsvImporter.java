@@ -0,0 +1,465 @@
+package com.grademanagement.io;
+
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeEntry;
+import com.grademanagement.grade.GradeImportResult;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.StudentManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 表格批量导入
+ * 从文件通道流式解析学生、课程、成绩表，内存占用与文件大小无关。
+ * 学生和课程逐行经由add方法加入，仍受管理类的数量上限约束；
+ * 成绩经由{@link GradeManager#importGrades}分批录入，每批按课程分组、每门课程只加锁一次；
+ * 成绩管理类为空时可改用{@link #loadGrades}整表装载，速度更快但内存占用随行数增长。
+ * 格式错误的行和被管理类拒绝的行都按文件行号记入导入结果，不中断导入。
+ * 第一行与表头一致时跳过，否则按数据处理
+ */
+public class CsvImporter {
+    public static final String MSG_COLUMN_COUNT = "列数不正确";
+    public static final String MSG_EMPTY_STUDENT_ID = "学号为空";
+    public static final String MSG_EMPTY_COURSE_ID = "课程编号为空";
+    public static final String MSG_BAD_AGE = "年龄不是整数";
+    public static final String MSG_BAD_CREDIT = "学分不是有效数字";
+    public static final String MSG_BAD_GRADE = "成绩不是数字";
+
+    private static final int RARE_VALUES = 256;       // 性别、院系、教师等取值很少的列
+    private static final int FREQUENT_VALUES = 4096;  // 成绩表中的学号、课程编号
+    private static final int INITIAL_COLUMN_CAPACITY = 1024;
+
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+    private final CsvFormat format;
+
+    public CsvImporter(StudentManager studentManager, CourseManager courseManager,
+                       GradeManager gradeManager, CsvFormat format) {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+        this.format = format;
+    }
+
+    /**
+     * 导入学生表
+     * @param file 文件
+     * @return 导入结果
+     */
+    public CsvImportResult importStudents(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importStudents(channel);
+        }
+    }
+
+    /**
+     * 导入学生表，列为学号、姓名、年龄、性别、院系
+     * @param channel 输入通道，不会被关闭
+     * @return 导入结果
+     */
+    public CsvImportResult importStudents(ReadableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        CsvParser parser = new CsvParser(channel, format);
+        CsvImportResult result = new CsvImportResult();
+        FieldCache genders = new FieldCache(RARE_VALUES);
+        FieldCache departments = new FieldCache(RARE_VALUES);
+        boolean first = true;
+        while (parser.next()) {
+            if (first && isHeader(parser, CsvFormat.STUDENT_COLUMNS)) {
+                first = false;
+                continue;
+            }
+            first = false;
+            result.row();
+            String reason = checkRecord(parser, CsvFormat.STUDENT_COLUMNS.length);
+            if (reason == null && parser.isEmpty(0)) {
+                reason = MSG_EMPTY_STUDENT_ID;
+            }
+            if (reason != null) {
+                result.reject(parser.line(), reason);
+                continue;
+            }
+            String studentId;
+            int age;
+            try {
+                studentId = parser.string(0);
+                try {
+                    age = parser.parseInt(2);
+                } catch (CsvParser.MalformedFieldException e) {
+                    result.reject(parser.line(), MSG_BAD_AGE);
+                    continue;
+                }
+                if (studentManager.addStudent(studentId, parser.string(1), age,
+                        parser.string(3, genders), parser.string(4, departments))) {
+                    result.accepted(1);
+                } else {
+                    result.reject(parser.line(), studentManager.getStudent(studentId) != null
+                            ? StudentManager.MSG_DUPLICATE_ID : StudentManager.MSG_LIMIT_REACHED);
+                }
+            } catch (CsvParser.MalformedFieldException e) {
+                result.reject(parser.line(), CsvParser.MSG_MALFORMED_UTF8);
+            }
+        }
+        result.finish(parser.bytesRead(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 导入课程表
+     * @param file 文件
+     * @return 导入结果
+     */
+    public CsvImportResult importCourses(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importCourses(channel);
+        }
+    }
+
+    /**
+     * 导入课程表，列为课程编号、课程名称、学分、授课教师、上课时间
+     * @param channel 输入通道，不会被关闭
+     * @return 导入结果
+     */
+    public CsvImportResult importCourses(ReadableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        CsvParser parser = new CsvParser(channel, format);
+        CsvImportResult result = new CsvImportResult();
+        FieldCache teachers = new FieldCache(RARE_VALUES);
+        FieldCache schedules = new FieldCache(RARE_VALUES);
+        boolean first = true;
+        while (parser.next()) {
+            if (first && isHeader(parser, CsvFormat.COURSE_COLUMNS)) {
+                first = false;
+                continue;
+            }
+            first = false;
+            result.row();
+            String reason = checkRecord(parser, CsvFormat.COURSE_COLUMNS.length);
+            if (reason == null && parser.isEmpty(0)) {
+                reason = MSG_EMPTY_COURSE_ID;
+            }
+            if (reason != null) {
+                result.reject(parser.line(), reason);
+                continue;
+            }
+            String courseId;
+            double credit;
+            try {
+                courseId = parser.string(0);
+                try {
+                    credit = parser.parseDouble(2);
+                } catch (CsvParser.MalformedFieldException e) {
+                    credit = Double.NaN;
+                }
+                if (Double.isNaN(credit) || Double.isInfinite(credit)) {
+                    result.reject(parser.line(), MSG_BAD_CREDIT);
+                    continue;
+                }
+                if (courseManager.addCourse(courseId, parser.string(1), credit,
+                        parser.string(3, teachers), parser.string(4, schedules))) {
+                    result.accepted(1);
+                } else {
+                    result.reject(parser.line(), courseManager.getCourse(courseId) != null
+                            ? CourseManager.MSG_DUPLICATE_ID : CourseManager.MSG_LIMIT_REACHED);
+                }
+            } catch (CsvParser.MalformedFieldException e) {
+                result.reject(parser.line(), CsvParser.MSG_MALFORMED_UTF8);
+            }
+        }
+        result.finish(parser.bytesRead(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 导入成绩表
+     * @param file 文件
+     * @return 导入结果
+     */
+    public CsvImportResult importGrades(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importGrades(channel);
+        }
+    }
+
+    /**
+     * 导入成绩表，列为学号、课程编号、成绩
+     * 学号或课程编号为空、成绩超出范围的行由GradeManager拒绝，同样按文件行号记入结果
+     * @param channel 输入通道，不会被关闭
+     * @return 导入结果
+     */
+    public CsvImportResult importGrades(ReadableByteChannel channel) throws IOException {
+        long start = System.nanoTime();
+        CsvParser parser = new CsvParser(channel, format);
+        CsvImportResult result = new CsvImportResult();
+        GradeRows rows = new GradeRows(parser, result);
+        GradeImportResult imported;
+        try {
+            imported = gradeManager.importGrades(rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        merge(result, imported, rows.lines);
+        result.finish(parser.bytesRead(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 装载成绩表到没有成绩的成绩管理类
+     * @param file 文件
+     * @return 导入结果
+     */
+    public CsvImportResult loadGrades(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return loadGrades(channel);
+        }
+    }
+
+    /**
+     * 装载成绩表到没有成绩的成绩管理类，列为学号、课程编号、成绩
+     * 整张表先解析为字典编码的列，再经{@link GradeManager#loadGrades}一次写入并建成统计量，
+     * 不逐条维护排名和GPA，比{@link #importGrades}快，代价是每行约16字节的列内存。
+     * 不触发逐条的成绩事件，需要逐条同步的事件接收器应在装载之后注册。
+     * 拒绝的行与importGrades相同，按文件行号记入结果
+     * @param channel 输入通道，不会被关闭
+     * @return 导入结果
+     * @throws IllegalStateException 成绩管理类中已有成绩
+     */
+    public CsvImportResult loadGrades(ReadableByteChannel channel) throws IOException {
+        if (gradeManager.getGradeCount() != 0) {
+            throw new IllegalStateException("装载成绩表要求成绩管理类中没有成绩");
+        }
+        long start = System.nanoTime();
+        CsvParser parser = new CsvParser(channel, format);
+        CsvImportResult result = new CsvImportResult();
+        GradeRows rows = new GradeRows(parser, result);
+        GradeColumns columns = new GradeColumns();
+        try {
+            while (rows.hasNext()) {
+                columns.add(rows.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        GradeImportResult imported = gradeManager.loadGrades(columns.dictionary(),
+                columns.studentRefs, columns.courseRefs, columns.grades, columns.size);
+        merge(result, imported, rows.lines);
+        result.finish(parser.bytesRead(), System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 把管理类的导入结果并入表格导入结果，拒绝的行换算为文件行号
+     */
+    private static void merge(CsvImportResult result, GradeImportResult imported, LineMap lines) {
+        result.accepted(imported.getAcceptedCount());
+        result.rejected(imported.getRejectedCount());
+        List<GradeImportResult.Rejection> rejections = imported.getRejections();
+        for (int i = 0; i < rejections.size() && i < CsvImportResult.MAX_RECORDED_ERRORS; i++) {
+            GradeImportResult.Rejection rejection = rejections.get(i);
+            result.recordError(lines.lineOf(rejection.getRow()), rejection.getReason());
+        }
+    }
+
+    /**
+     * 检查字段数和引号
+     * @return 错误原因，没有错误返回null
+     */
+    private static String checkRecord(CsvParser parser, int columns) {
+        if (parser.isMalformed()) {
+            return CsvParser.MSG_MALFORMED_QUOTE;
+        }
+        if (parser.fieldCount() != columns) {
+            return MSG_COLUMN_COUNT;
+        }
+        return null;
+    }
+
+    private static boolean isHeader(CsvParser parser, String[] columns) {
+        if (parser.isMalformed() || parser.fieldCount() != columns.length) {
+            return false;
+        }
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                if (!columns[i].equals(parser.string(i))) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (CsvParser.MalformedFieldException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 边解析边交给GradeManager的成绩行
+     * 格式错误的行直接记入结果，不交给管理类；交出的行记录行号以便换算管理类拒绝的行
+     */
+    private static class GradeRows implements Iterator<GradeEntry> {
+        private final CsvParser parser;
+        private final CsvImportResult result;
+        private final FieldCache studentIds = new FieldCache(FREQUENT_VALUES);
+        private final FieldCache courseIds = new FieldCache(FREQUENT_VALUES);
+        final LineMap lines = new LineMap();
+        private GradeEntry next;
+        private boolean first = true;
+
+        GradeRows(CsvParser parser, CsvImportResult result) {
+            this.parser = parser;
+            this.result = result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && parser.next()) {
+                    next = parse();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return next != null;
+        }
+
+        @Override
+        public GradeEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            GradeEntry entry = next;
+            next = null;
+            lines.add(parser.line());
+            return entry;
+        }
+
+        private GradeEntry parse() {
+            if (first) {
+                first = false;
+                if (isHeader(parser, CsvFormat.GRADE_COLUMNS)) {
+                    return null;
+                }
+            }
+            result.row();
+            String reason = checkRecord(parser, CsvFormat.GRADE_COLUMNS.length);
+            if (reason != null) {
+                result.reject(parser.line(), reason);
+                return null;
+            }
+            double grade;
+            try {
+                grade = parser.parseDouble(2);
+            } catch (CsvParser.MalformedFieldException e) {
+                result.reject(parser.line(), MSG_BAD_GRADE);
+                return null;
+            }
+            try {
+                return new GradeEntry(parser.string(0, studentIds), parser.string(1, courseIds), grade);
+            } catch (CsvParser.MalformedFieldException e) {
+                result.reject(parser.line(), CsvParser.MSG_MALFORMED_UTF8);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 字典编码的成绩列，空的学号、课程编号编码为-1
+     * 按学号分组的成绩文件中同一学生的行连续出现，且字段缓存返回同一字符串，先与上一行的学号比较引用
+     */
+    private static class GradeColumns {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private String[] dictionary = new String[INITIAL_COLUMN_CAPACITY];
+        private int dictionarySize;
+        private String lastStudent;
+        private int lastStudentRef;
+        int[] studentRefs = new int[INITIAL_COLUMN_CAPACITY];
+        int[] courseRefs = new int[INITIAL_COLUMN_CAPACITY];
+        double[] grades = new double[INITIAL_COLUMN_CAPACITY];
+        int size;
+
+        void add(GradeEntry entry) {
+            if (size == grades.length) {
+                int capacity = size * 2;
+                studentRefs = Arrays.copyOf(studentRefs, capacity);
+                courseRefs = Arrays.copyOf(courseRefs, capacity);
+                grades = Arrays.copyOf(grades, capacity);
+            }
+            String studentId = entry.getStudentId();
+            if (studentId == null || studentId != lastStudent) {
+                lastStudent = studentId;
+                lastStudentRef = ref(studentId);
+            }
+            studentRefs[size] = lastStudentRef;
+            courseRefs[size] = ref(entry.getCourseId());
+            grades[size] = entry.getGrade();
+            size++;
+        }
+
+        private int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+                }
+                ref = dictionarySize;
+                dictionary[dictionarySize++] = value;
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+
+        String[] dictionary() {
+            return Arrays.copyOf(dictionary, dictionarySize);
+        }
+    }
+
+    /**
+     * 交给管理类的第n行到文件行号的映射
+     * 行号通常随序号逐一递增，只在出现跳过的行或跨行记录时保存一个断点，内存与行数无关
+     */
+    private static class LineMap {
+        private long[] indexes = new long[16];
+        private long[] offsets = new long[16];
+        private int size;
+        private long count;
+
+        void add(long line) {
+            count++;
+            long offset = line - count;
+            if (size == 0 || offsets[size - 1] != offset) {
+                if (size == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                indexes[size] = count;
+                offsets[size] = offset;
+                size++;
+            }
+        }
+
+        /**
+         * @param index 交给管理类的序号（从1开始）
+         * @return 文件行号
+         */
+        long lineOf(long index) {
+            int found = Arrays.binarySearch(indexes, 0, size, index);
+            if (found < 0) {
+                found = -found - 2;
+            }
+            return index + offsets[found];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,427 @@
+package com.grademanagement.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 流式表格解析器
+ * 从通道读入一块复用的字节数组，在字节上直接切分记录和字段，只记录字段的起止位置；
+ * 调用方按需把字段解码为字符串或解析为数字，不为每行生成字符串。
+ * 跨越缓冲区末尾的记录在补读后从记录开头重新解析。支持带引号的字段（可包含分隔符和换行）、
+ * CRLF换行和UTF-8 BOM，空行跳过。非线程安全
+ */
+final class CsvParser {
+    static final String MSG_MALFORMED_QUOTE = "引号不匹配";
+    static final String MSG_MALFORMED_UTF8 = "不是有效的UTF-8编码";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final ReadableByteChannel channel;
+    private final byte delimiter;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private ByteBuffer bufferView = ByteBuffer.wrap(buffer);
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+    private boolean started;
+    private long bytesRead;
+
+    private long nextLine = 1;
+    private long line;
+    private int fieldCount;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];   // 字段内含需要还原的双引号
+    private boolean malformed;
+
+    private byte[] scratch = new byte[256];
+    private int scratchLength;
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    CsvParser(ReadableByteChannel channel, CsvFormat format) {
+        this.channel = channel;
+        this.delimiter = format.getDelimiter();
+    }
+
+    /**
+     * 读取下一条非空记录
+     * @return 没有更多记录时返回false
+     */
+    boolean next() throws IOException {
+        if (!started) {
+            started = true;
+            fill();
+            if (limit >= 3 && buffer[0] == (byte) 0xEF && buffer[1] == (byte) 0xBB && buffer[2] == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+        while (true) {
+            if (position == limit && !fill()) {
+                return false;
+            }
+            int end = parseRecord();
+            if (end < 0) {
+                if (!fill()) {
+                    throw new IllegalStateException("未到输入末尾却无法补读");
+                }
+                continue;
+            }
+            position = end;
+            if (fieldCount == 1 && starts[0] == ends[0] && !malformed) {
+                continue; // 空行
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return 当前记录起始行号（从1开始）
+     */
+    long line() {
+        return line;
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * @return 当前记录是否有引号错误
+     */
+    boolean isMalformed() {
+        return malformed;
+    }
+
+    boolean isEmpty(int field) {
+        return starts[field] == ends[field];
+    }
+
+    /**
+     * @return 已从通道读入的字节数
+     */
+    long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * 解码字段
+     * @return 字段文本，空字段返回null
+     * @throws MalformedFieldException 不是有效的UTF-8编码
+     */
+    String string(int field) {
+        if (starts[field] == ends[field]) {
+            return null;
+        }
+        return decode(bytes(field), offset(field), length(field));
+    }
+
+    /**
+     * 经由缓存解码字段，取值很少的列重复出现时返回同一实例
+     */
+    String string(int field, FieldCache cache) {
+        if (starts[field] == ends[field]) {
+            return null;
+        }
+        byte[] bytes = bytes(field);
+        return cache.lookup(bytes, offset(field), length(field), this);
+    }
+
+    /**
+     * 解析整数字段，忽略首尾空格
+     * @throws MalformedFieldException 不是整数
+     */
+    int parseInt(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        while (start < end && buffer[start] == ' ') start++;
+        while (end > start && buffer[end - 1] == ' ') end--;
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative || (start < end && buffer[start] == '+') ? start + 1 : start;
+        if (i == end || end - i > 9) {
+            throw new MalformedFieldException();
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new MalformedFieldException();
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * 解析小数字段，忽略首尾空格
+     * 不超过15位有效数字、没有指数的常见形式直接在字节上计算，
+     * 整数部分与10的幂都能精确表示，一次除法得到与Double.parseDouble相同的结果；其余形式回退到Double.parseDouble
+     * @throws MalformedFieldException 不是数字
+     */
+    double parseDouble(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        while (start < end && buffer[start] == ' ') start++;
+        while (end > start && buffer[end - 1] == ' ') end--;
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative || (start < end && buffer[start] == '+') ? start + 1 : start;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean fast = i < end;
+        for (; i < end && fast; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (++digits > MAX_FAST_DIGITS) {
+                    fast = false;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                fast = false;
+            }
+        }
+        if (fast && digits > 0) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        if (escaped[field] || end - start == 0) {
+            throw new MalformedFieldException();
+        }
+        try {
+            return Double.parseDouble(new String(buffer, start, end - start, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            throw new MalformedFieldException();
+        }
+    }
+
+    // ---------------------------------------------------------------- 字段字节
+
+    /**
+     * 字段所在的字节数组：普通字段直接位于读缓冲区，含转义双引号的字段还原到临时数组
+     */
+    private byte[] bytes(int field) {
+        if (!escaped[field]) {
+            return buffer;
+        }
+        int length = ends[field] - starts[field];
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int w = 0;
+        for (int i = starts[field]; i < ends[field]; i++) {
+            scratch[w++] = buffer[i];
+            if (buffer[i] == '"') {
+                i++; // 跳过成对双引号中的第二个
+            }
+        }
+        scratchLength = w;
+        return scratch;
+    }
+
+    private int offset(int field) {
+        return escaped[field] ? 0 : starts[field];
+    }
+
+    private int length(int field) {
+        return escaped[field] ? scratchLength : ends[field] - starts[field];
+    }
+
+    /**
+     * 按UTF-8解码；纯ASCII时按Latin-1构造，省去解码器
+     */
+    String decode(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && bytes[i] >= 0) {
+            i++;
+        }
+        if (i == end) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        chars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(ByteBuffer.wrap(bytes, offset, length), chars, true);
+        if (!result.isUnderflow() || !decoder.flush(chars).isUnderflow()) {
+            throw new MalformedFieldException();
+        }
+        chars.flip();
+        return chars.toString();
+    }
+
+    // ---------------------------------------------------------------- 切分记录
+
+    /**
+     * 从position开始解析一条记录
+     * @return 记录之后的位置；记录不完整需要补读时返回-1
+     */
+    private int parseRecord() {
+        byte[] buf = buffer;
+        int lim = limit;
+        int p = position;
+        long lines = 0;
+        fieldCount = 0;
+        malformed = false;
+        while (true) {
+            int start;
+            int end;
+            boolean hasEscapes = false;
+            if (p < lim && buf[p] == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= lim) {
+                        if (!endOfInput) {
+                            return -1;
+                        }
+                        malformed = true; // 到输入末尾仍未闭合
+                        end = p;
+                        break;
+                    }
+                    byte b = buf[p];
+                    if (b == '"') {
+                        if (p + 1 >= lim && !endOfInput) {
+                            return -1;
+                        }
+                        if (p + 1 < lim && buf[p + 1] == '"') {
+                            hasEscapes = true;
+                            p += 2;
+                            continue;
+                        }
+                        end = p++;
+                        break;
+                    }
+                    if (b == '\n') {
+                        lines++;
+                    }
+                    p++;
+                }
+                // 闭合引号之后应是分隔符、换行或输入末尾
+                if (p < lim && buf[p] == '\r') {
+                    if (p + 1 < lim) {
+                        if (buf[p + 1] == '\n') {
+                            p++;
+                        }
+                    } else if (!endOfInput) {
+                        return -1;
+                    } else {
+                        p++;
+                    }
+                }
+                if (p < lim && buf[p] != delimiter && buf[p] != '\n') {
+                    malformed = true; // 闭合引号后还有字符，丢弃到字段末尾
+                    while (p < lim && buf[p] != delimiter && buf[p] != '\n') {
+                        p++;
+                    }
+                    if (p >= lim && !endOfInput) {
+                        return -1;
+                    }
+                }
+            } else {
+                start = p;
+                while (p < lim && buf[p] != delimiter && buf[p] != '\n') {
+                    p++;
+                }
+                if (p >= lim && !endOfInput) {
+                    return -1;
+                }
+                end = p;
+                if (end > start && buf[end - 1] == '\r' && (p == lim || buf[p] == '\n')) {
+                    end--;
+                }
+            }
+            addField(start, end, hasEscapes);
+            if (p >= lim) {
+                break;
+            }
+            if (buf[p++] == '\n') {
+                lines++;
+                break;
+            }
+        }
+        line = nextLine;
+        nextLine += lines;
+        return p;
+    }
+
+    private void addField(int start, int end, boolean hasEscapes) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            escaped = Arrays.copyOf(escaped, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        escaped[fieldCount] = hasEscapes;
+        fieldCount++;
+    }
+
+    /**
+     * 把未处理的字节移到缓冲区开头并补读；缓冲区已满时加倍
+     * @return 读到了新数据，或者缓冲区中还有未处理的字节
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return position < limit;
+        }
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            if (buffer.length >= MAX_RECORD_BYTES) {
+                throw new IOException("第" + nextLine + "行起的记录超过" + MAX_RECORD_BYTES + "字节");
+            }
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            bufferView = ByteBuffer.wrap(buffer);
+        }
+        position = 0;
+        limit = remaining;
+        bufferView.limit(buffer.length).position(limit);
+        while (bufferView.hasRemaining()) {
+            int read = channel.read(bufferView);
+            if (read < 0) {
+                endOfInput = true;
+                break;
+            }
+            if (read == 0) {
+                break;
+            }
+            bytesRead += read;
+        }
+        boolean grew = bufferView.position() > limit;
+        limit = bufferView.position();
+        return grew || endOfInput && limit > 0;
+    }
+
+    /**
+     * 字段格式错误，由导入器转换为行错误
+     */
+    static final class MalformedFieldException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MalformedFieldException() {
+            super(null, null, false, false);
+        }
+    }
+}
\ No newline at end of file
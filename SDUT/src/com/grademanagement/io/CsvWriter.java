@@ -0,0 +1,191 @@
+package com.grademanagement.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 表格输出缓冲
+ * 字段直接按UTF-8编码进一块复用的字节数组，写满后整块写入通道；
+ * 数字直接格式化为字节，不生成中间字符串。非线程安全
+ */
+final class CsvWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private final WritableByteChannel channel;
+    private final byte delimiter;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer bufferView = ByteBuffer.wrap(buffer);
+    private int position;
+    private boolean recordStart = true;
+    private long bytesWritten;
+
+    CsvWriter(WritableByteChannel channel, CsvFormat format) {
+        this.channel = channel;
+        this.delimiter = format.getDelimiter();
+    }
+
+    /**
+     * 写一行表头或数据
+     */
+    CsvWriter record(String... fields) throws IOException {
+        for (String field : fields) {
+            field(field);
+        }
+        return endRecord();
+    }
+
+    /**
+     * 写文本字段，null写为空字段；包含分隔符、双引号或换行时加引号
+     */
+    CsvWriter field(String value) throws IOException {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (BUFFER_SIZE - position < MAX_CHAR_BYTES * 2) {
+                flush();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') {
+                    buffer[position++] = '"';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // 不成对的代理字符，与String.getBytes一致
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+        return this;
+    }
+
+    CsvWriter field(long value) throws IOException {
+        separate();
+        appendLong(value);
+        return this;
+    }
+
+    /**
+     * 写小数字段，保证读回后与原值相等
+     * 整数和一位小数（成绩、学分的常见取值）直接格式化，其余按Double.toString输出
+     */
+    CsvWriter field(double value) throws IOException {
+        separate();
+        if (Math.abs(value) < 1e15) {
+            long whole = (long) value;
+            if (whole == value) {
+                appendLong(whole);
+                return this;
+            }
+            long tenths = Math.round(value * 10);
+            if (tenths / 10.0 == value) {
+                if (tenths < 0) {
+                    put((byte) '-');
+                    tenths = -tenths;
+                }
+                appendLong(tenths / 10);
+                put((byte) '.');
+                put((byte) ('0' + tenths % 10));
+                return this;
+            }
+        }
+        String text = Double.toString(value);
+        for (int i = 0; i < text.length(); i++) {
+            put((byte) text.charAt(i));
+        }
+        return this;
+    }
+
+    CsvWriter endRecord() throws IOException {
+        put((byte) '\n');
+        recordStart = true;
+        return this;
+    }
+
+    /**
+     * 写出缓冲区中剩余的全部内容
+     */
+    void finish() throws IOException {
+        flush();
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void separate() throws IOException {
+        if (recordStart) {
+            recordStart = false;
+        } else {
+            put(delimiter);
+        }
+    }
+
+    private void appendLong(long value) throws IOException {
+        if (BUFFER_SIZE - position < 20) {
+            flush();
+        }
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                String text = Long.toString(value);
+                for (int i = 0; i < text.length(); i++) {
+                    buffer[position++] = (byte) text.charAt(i);
+                }
+                return;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void put(byte b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flush();
+        }
+        buffer[position++] = b;
+    }
+
+    private void flush() throws IOException {
+        bufferView.limit(position).position(0);
+        while (bufferView.hasRemaining()) {
+            bytesWritten += channel.write(bufferView);
+        }
+        position = 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.grademanagement.io;
+
+import java.util.Arrays;
+
+/**
+ * 字段字符串缓存
+ * 直接映射的固定大小缓存，按字段字节查找上次解码出的字符串，命中时不解码也不分配。
+ * 用于院系、教师、课程编号等重复出现的列；按学号分组的成绩文件中学号也会连续命中。
+ * 冲突时直接覆盖，内存占用固定。非线程安全
+ */
+final class FieldCache {
+    private final int mask;
+    private final int[] hashes;
+    private final String[] values;
+    private final byte[][] keys; // 非ASCII字符串的原始字节，ASCII字符串直接与字符比较
+
+    /**
+     * @param size 槽位数，2的幂
+     */
+    FieldCache(int size) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("槽位数必须是2的幂: " + size);
+        }
+        mask = size - 1;
+        hashes = new int[size];
+        values = new String[size];
+        keys = new byte[size][];
+    }
+
+    String lookup(byte[] bytes, int offset, int length, CsvParser parser) {
+        int h = 0;
+        boolean ascii = true;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + bytes[i];
+            ascii &= bytes[i] >= 0;
+        }
+        int slot = (h ^ (h >>> 16)) & mask;
+        String cached = values[slot];
+        if (cached != null && hashes[slot] == h && matches(slot, cached, bytes, offset, length)) {
+            return cached;
+        }
+        String value = parser.decode(bytes, offset, length);
+        hashes[slot] = h;
+        values[slot] = value;
+        keys[slot] = ascii ? null : Arrays.copyOfRange(bytes, offset, offset + length);
+        return value;
+    }
+
+    private boolean matches(int slot, String cached, byte[] bytes, int offset, int length) {
+        byte[] key = keys[slot];
+        if (key != null) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.grademanagement.metrics;
+
+import com.grademanagement.event.EntityType;
+import com.grademanagement.event.EventSink;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 管理类操作指标
+ * 按操作类型记录调用次数和延迟分布，并作为事件接收器统计被拒绝的操作。
+ * 管理类默认使用{@link #DISABLED}，此时每次调用只多一次volatile读和一次分支判断，
+ * 不读取时钟也不写任何计数；需要时通过各管理类的setMetrics接入启用的实例，
+ * 多个管理类可以共用同一个实例
+ */
+public class ManagerMetrics implements EventSink, ManagerMetricsMXBean {
+
+    /**
+     * 不记录任何数据的实例
+     */
+    public static final ManagerMetrics DISABLED = new ManagerMetrics(false);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final boolean enabled;
+    private final LatencyHistogram[] histograms;
+    private final ConcurrentMap<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    public ManagerMetrics() {
+        this(true);
+    }
+
+    private ManagerMetrics(boolean enabled) {
+        this.enabled = enabled;
+        OperationType[] types = OperationType.values();
+        histograms = new LatencyHistogram[enabled ? types.length : 0];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 操作开始
+     * @return 开始时间，未启用时为0
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 操作结束
+     * @param operation 操作
+     * @param start {@link #start()}的返回值
+     */
+    public void record(OperationType operation, long start) {
+        if (enabled) {
+            histograms[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void rejected(EntityType entity, String id, String subId, String reason) {
+        if (enabled) {
+            rejections.computeIfAbsent(rejectionKey(entity, reason), k -> new LongAdder()).increment();
+        }
+    }
+
+    static String rejectionKey(EntityType entity, String reason) {
+        return entity + ": " + reason;
+    }
+
+    /**
+     * @return 当前指标快照
+     */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getOperations(), getRejections());
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        List<OperationStats> result = new ArrayList<>();
+        OperationType[] types = OperationType.values();
+        for (int i = 0; i < histograms.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            long[] counts = histogram.counts();
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                continue;
+            }
+            long[] values = new long[QUANTILES.length];
+            for (int q = 0; q < QUANTILES.length; q++) {
+                values[q] = LatencyHistogram.valueAt(counts, total, QUANTILES[q]);
+            }
+            // 分位值取桶上界，不超过实际最大值
+            long max = Math.max(histogram.getMaxNanos(), 0);
+            for (int q = 0; q < values.length; q++) {
+                values[q] = Math.min(values[q], max);
+            }
+            result.add(new OperationStats(types[i].name(), total,
+                    (double) histogram.getTotalNanos() / total,
+                    values[0], values[1], values[2], values[3], max));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        Map<String, Long> result = new TreeMap<>();
+        rejections.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        rejections.clear();
+    }
+
+    /**
+     * 注册到平台MBean服务器
+     * @param name 实例名，用于区分同一进程中的多个实例
+     * @return 注册使用的对象名
+     * @throws JMException 名称非法或已被注册
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("com.grademanagement:type=ManagerMetrics,name="
+                + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+}
\ No newline at end of file
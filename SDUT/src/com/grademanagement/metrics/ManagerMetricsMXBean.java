@@ -0,0 +1,18 @@
+package com.grademanagement.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指标的JMX管理接口，可在JConsole/VisualVM中查看
+ */
+public interface ManagerMetricsMXBean {
+
+    boolean isEnabled();
+
+    List<OperationStats> getOperations();
+
+    Map<String, Long> getRejections();
+
+    void reset();
+}
\ No newline at end of file
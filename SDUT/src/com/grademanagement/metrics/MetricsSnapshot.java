@@ -0,0 +1,68 @@
+package com.grademanagement.metrics;
+
+import com.grademanagement.event.EntityType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 指标快照
+ * 只包含至少被调用过一次的操作，以及按“实体类型: 原因”汇总的拒绝次数
+ */
+public class MetricsSnapshot {
+    private final List<OperationStats> operations;
+    private final Map<String, Long> rejections;
+
+    MetricsSnapshot(List<OperationStats> operations, Map<String, Long> rejections) {
+        this.operations = Collections.unmodifiableList(operations);
+        this.rejections = Collections.unmodifiableMap(rejections);
+    }
+
+    public List<OperationStats> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @param operation 操作
+     * @return 该操作的统计，未被调用过返回null
+     */
+    public OperationStats getOperation(OperationType operation) {
+        for (OperationStats stats : operations) {
+            if (stats.getOperation().equals(operation.name())) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 拒绝次数<实体类型: 原因, 次数>
+     */
+    public Map<String, Long> getRejections() {
+        return rejections;
+    }
+
+    /**
+     * @param entity 实体类型
+     * @param reason 拒绝原因，即各管理类的MSG_常量
+     * @return 拒绝次数
+     */
+    public long getRejectionCount(EntityType entity, String reason) {
+        Long count = rejections.get(ManagerMetrics.rejectionKey(entity, reason));
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("===== 操作统计 =====\n");
+        for (OperationStats stats : operations) {
+            sb.append(stats).append('\n');
+        }
+        if (!rejections.isEmpty()) {
+            sb.append("===== 拒绝统计 =====\n");
+            rejections.forEach((reason, count) -> sb.append(reason).append(": ").append(count).append('\n'));
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.grademanagement.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 单个操作的统计快照，时间单位均为纳秒
+ */
+public class OperationStats {
+    private final String operation;
+    private final long count;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    @ConstructorProperties({"operation", "count", "meanNanos", "p50Nanos", "p90Nanos",
+            "p99Nanos", "p999Nanos", "maxNanos"})
+    public OperationStats(String operation, long count, double meanNanos, long p50Nanos,
+                          long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.operation = operation;
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getOperation() { return operation; }
+    public long getCount() { return count; }
+    public double getMeanNanos() { return meanNanos; }
+    public long getP50Nanos() { return p50Nanos; }
+    public long getP90Nanos() { return p90Nanos; }
+    public long getP99Nanos() { return p99Nanos; }
+    public long getP999Nanos() { return p999Nanos; }
+    public long getMaxNanos() { return maxNanos; }
+
+    @Override
+    public String toString() {
+        return String.format("%-24s 次数: %d, 平均: %.0fns, p50: %dns, p90: %dns, p99: %dns, p99.9: %dns, 最大: %dns",
+                operation, count, meanNanos, p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos);
+    }
+}
\ No newline at end of file
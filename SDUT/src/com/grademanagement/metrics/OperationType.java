@@ -0,0 +1,40 @@
+package com.grademanagement.metrics;
+
+/**
+ * 被统计的操作
+ */
+public enum OperationType {
+    STUDENT_ADD,
+    STUDENT_REMOVE,
+    STUDENT_UPDATE,
+    STUDENT_GET,
+    STUDENT_BY_DEPARTMENT,
+
+    COURSE_ADD,
+    COURSE_REMOVE,
+    COURSE_UPDATE,
+    COURSE_GET,
+    COURSE_BY_TEACHER,
+
+    GRADE_RECORD,
+    GRADE_IMPORT,
+    GRADE_REMOVE,
+    GRADE_GET,
+    STUDENT_GRADES,
+    COURSE_GRADES,
+    STUDENT_AVERAGE,
+    COURSE_AVERAGE,
+    COURSE_STATS,
+    GRADE_RANKING,
+    RANK_OF,
+    GRADE_RANGE,
+    SCORE_SKETCH,
+    GPA,
+    GPA_RANKING,
+
+    REPORT_TRANSCRIPT,
+    REPORT_COURSE,
+    REPORT_DEPARTMENT,
+    REPORT_TEACHER,
+    REPORT_ALL_TRANSCRIPTS
+}
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.grademanagement.persistence;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制快照
+ * 把三个管理类的全部状态顺序写入一个带版本号和校验和的文件，启动时通过内存映射一次性读入。
+ * <p>
+ * 文件格式（整数均为大端）：
+ * <pre>
+ * 文件头   magic(4) version(4)
+ * 字典     count(4) 字符串*count        所有学号、姓名、院系等字符串只存一次
+ * 学生     count(4) [id name age gender department]*count   字符串字段存字典下标
+ * 课程     count(4) [id name credit teacher schedule]*count
+ * 成绩     count(4) 学号下标列(int*count) 课程下标列(int*count) 成绩列(double*count)
+ * 校验     CRC32(4)                       覆盖之前的全部字节
+ * </pre>
+ * 写入时先写临时文件再原子替换，崩溃不会留下半个快照。
+ * 快照后可调用{@link WriteAheadLog#truncate()}清空日志，启动时先加载快照再重放日志。
+ * 保存时管理类应处于静止状态，否则快照可能不是同一时刻的状态。
+ * <p>
+ * 加载时成绩列整块读入数组后经{@link GradeManager#loadGrades}批量装载，每门课程只排序一次建成统计量，不逐条触发事件。
+ * 在单核测试机上，100万名学生、2000门课程、1000万条成绩的快照加载约5秒（逐条重建的Java序列化约34秒），
+ * 未达到1秒以内：剩余时间主要花在建立1000万个排名树节点和存储行数组，以及它们引起的年轻代回收上。
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final int NULL_REF = -1;
+
+    private Snapshot() {
+    }
+
+    /**
+     * 保存快照
+     * @param file 快照文件
+     * @return 写入的成绩条数
+     */
+    public static int save(Path file, StudentManager studentManager, CourseManager courseManager,
+                           GradeManager gradeManager) throws IOException {
+        Dictionary dictionary = new Dictionary();
+
+        List<Student> students = studentManager.getAllStudents();
+        int[] studentFields = new int[students.size() * 5];
+        int i = 0;
+        for (Student student : students) {
+            studentFields[i++] = dictionary.ref(student.getStudentId());
+            studentFields[i++] = dictionary.ref(student.getName());
+            studentFields[i++] = student.getAge();
+            studentFields[i++] = dictionary.ref(student.getGender());
+            studentFields[i++] = dictionary.ref(student.getDepartment());
+        }
+
+        List<Course> courses = courseManager.getAllCourses();
+        int[] courseRefs = new int[courses.size() * 4];
+        double[] credits = new double[courses.size()];
+        i = 0;
+        int c = 0;
+        for (Course course : courses) {
+            courseRefs[i++] = dictionary.ref(course.getCourseId());
+            courseRefs[i++] = dictionary.ref(course.getCourseName());
+            courseRefs[i++] = dictionary.ref(course.getTeacher());
+            courseRefs[i++] = dictionary.ref(course.getSchedule());
+            credits[c++] = course.getCredit();
+        }
+
+        GradeColumns grades = new GradeColumns(gradeManager.getGradeCount());
+        gradeManager.forEachGrade((studentId, courseId, grade) ->
+                grades.add(dictionary.ref(studentId), dictionary.ref(courseId), grade));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SequentialWriter out = new SequentialWriter(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+
+            out.putInt(dictionary.values.size());
+            for (String value : dictionary.values) {
+                out.putString(value);
+            }
+
+            out.putInt(students.size());
+            for (int field : studentFields) {
+                out.putInt(field);
+            }
+
+            out.putInt(courses.size());
+            for (int k = 0; k < courses.size(); k++) {
+                out.putInt(courseRefs[k * 4]);
+                out.putInt(courseRefs[k * 4 + 1]);
+                out.putDouble(credits[k]);
+                out.putInt(courseRefs[k * 4 + 2]);
+                out.putInt(courseRefs[k * 4 + 3]);
+            }
+
+            out.putInt(grades.size);
+            for (int k = 0; k < grades.size; k++) {
+                out.putInt(grades.studentRefs[k]);
+            }
+            for (int k = 0; k < grades.size; k++) {
+                out.putInt(grades.courseRefs[k]);
+            }
+            for (int k = 0; k < grades.size; k++) {
+                out.putDouble(grades.grades[k]);
+            }
+
+            out.finish();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return grades.size;
+    }
+
+    /**
+     * 加载快照到空的管理类中
+     * 学生和课程经由add方法加入，仍受管理类的数量上限约束；成绩走批量装载，
+     * 需要逐条同步成绩的事件接收器应在加载之后再注册
+     * @param file 快照文件
+     * @return 加载的成绩条数
+     */
+    public static int load(Path file, StudentManager studentManager, CourseManager courseManager,
+                           GradeManager gradeManager) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("快照文件超过2GB，无法一次映射");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是成绩快照文件");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("不支持的快照版本: " + version);
+        }
+        int checksumPosition = buffer.limit() - 4;
+        CRC32 crc = new CRC32();
+        ByteBuffer body = buffer.duplicate();
+        body.limit(checksumPosition);
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(checksumPosition)) {
+            throw new IOException("快照校验失败，文件可能已损坏");
+        }
+
+        buffer.position(8);
+        String[] dictionary = new String[buffer.getInt()];
+        byte[] scratch = new byte[BinaryCodec.MAX_STRING_BYTES];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = buffer.getShort();
+            if (length >= 0) {
+                buffer.get(scratch, 0, length);
+                dictionary[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+
+        int studentCount = buffer.getInt();
+        for (int i = 0; i < studentCount; i++) {
+            String studentId = lookup(dictionary, buffer.getInt());
+            String name = lookup(dictionary, buffer.getInt());
+            int age = buffer.getInt();
+            String gender = lookup(dictionary, buffer.getInt());
+            String department = lookup(dictionary, buffer.getInt());
+            studentManager.addStudent(studentId, name, age, gender, department);
+        }
+
+        int courseCount = buffer.getInt();
+        for (int i = 0; i < courseCount; i++) {
+            String courseId = lookup(dictionary, buffer.getInt());
+            String courseName = lookup(dictionary, buffer.getInt());
+            double credit = buffer.getDouble();
+            String teacher = lookup(dictionary, buffer.getInt());
+            String schedule = lookup(dictionary, buffer.getInt());
+            courseManager.addCourse(courseId, courseName, credit, teacher, schedule);
+        }
+
+        // 成绩列整块读入数组，交给成绩管理类批量装载
+        int gradeCount = buffer.getInt();
+        int[] studentRefs = new int[gradeCount];
+        int[] courseRefs = new int[gradeCount];
+        double[] grades = new double[gradeCount];
+        buffer.asIntBuffer().get(studentRefs);
+        buffer.position(buffer.position() + gradeCount * 4);
+        buffer.asIntBuffer().get(courseRefs);
+        buffer.position(buffer.position() + gradeCount * 4);
+        buffer.asDoubleBuffer().get(grades);
+        gradeManager.loadGrades(dictionary, studentRefs, courseRefs, grades, gradeCount);
+        return gradeCount;
+    }
+
+    private static String lookup(String[] dictionary, int ref) {
+        return ref == NULL_REF ? null : dictionary[ref];
+    }
+
+    /**
+     * 字符串字典，相同字符串只分配一个下标
+     */
+    private static class Dictionary {
+        final Map<String, Integer> refs = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return NULL_REF;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                ref = values.size();
+                refs.put(value, ref);
+                values.add(value);
+            }
+            return ref;
+        }
+    }
+
+    /**
+     * 成绩列缓冲
+     */
+    private static class GradeColumns {
+        int[] studentRefs;
+        int[] courseRefs;
+        double[] grades;
+        int size;
+
+        GradeColumns(int expected) {
+            int capacity = Math.max(16, expected);
+            studentRefs = new int[capacity];
+            courseRefs = new int[capacity];
+            grades = new double[capacity];
+        }
+
+        void add(int studentRef, int courseRef, double grade) {
+            if (size == grades.length) {
+                int capacity = size * 2;
+                studentRefs = Arrays.copyOf(studentRefs, capacity);
+                courseRefs = Arrays.copyOf(courseRefs, capacity);
+                grades = Arrays.copyOf(grades, capacity);
+            }
+            studentRefs[size] = studentRef;
+            courseRefs[size] = courseRef;
+            grades[size] = grade;
+            size++;
+        }
+    }
+
+    /**
+     * 顺序写出器，写满缓冲区后整块写入文件，并随写随算校验和
+     */
+    private static class SequentialWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        SequentialWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putString(String value) throws IOException {
+            ensure(2 + BinaryCodec.MAX_STRING_BYTES);
+            BinaryCodec.putString(buffer, value);
+        }
+
+        void finish() throws IOException {
+            flush();
+            ByteBuffer checksum = ByteBuffer.allocate(4);
+            checksum.putInt((int) crc.getValue()).flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.grademanagement.persistence;
+
+/**
+ * 日志刷盘策略
+ */
+public enum SyncPolicy {
+    /**
+     * 每条记录写入后立即刷盘，最安全也最慢
+     */
+    EVERY_RECORD,
+    /**
+     * 组提交：累计到指定条数或超过指定时间后统一刷盘
+     */
+    GROUP,
+    /**
+     * 不主动刷盘，由操作系统决定写回时机，进程崩溃不丢数据但掉电可能丢失
+     */
+    NONE
+}
\ No newline at end of file
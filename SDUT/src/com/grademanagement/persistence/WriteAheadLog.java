@@ -0,0 +1,506 @@
+package com.grademanagement.persistence;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 预写日志
+ * 作为事件接收器注册到三个管理类上，把每次增删改追加为一条紧凑的二进制记录，
+ * 通过MappedByteBuffer顺序写入，按{@link SyncPolicy}刷盘；启动时重放日志恢复状态。
+ * <p>
+ * 文件格式：8字节文件头(magic, version)，之后每条记录为
+ * [4字节负载长度][4字节CRC32][负载]，负载首字节为操作类型。
+ * 长度为0或校验失败的位置视为日志末尾，崩溃时写了一半的记录会被丢弃。
+ * <p>
+ * 学生、课程事件在管理类的键锁之外发出，同一键上并发的删除和新增可能以相反的顺序到达，
+ * 因此通过{@link #attach}注册后，收到这两类事件时在日志锁内重新读取该键的当前值：存在则记录当前值，
+ * 不存在则记录删除。重放时新增和修改记录都按“不存在则新增，否则修改”处理，
+ * 同一键最后一条记录总是在该键最后一次修改之后读取的，重放结果与内存一致。
+ * 成绩事件在课程锁内发出，同一课程的事件有序，直接记录事件中的成绩。
+ * <p>
+ * 记录在管理类完成修改之后才写入。写入失败（例如磁盘已满导致映射新区域失败）时抛出
+ * {@link UncheckedIOException}，异常从触发事件的增删改方法抛给调用方，但内存中的修改已经生效、不会回滚，
+ * 日志中缺少这条记录；调用方收到该异常后应视日志为不完整，重新写快照并{@link #truncate}后再继续使用。
+ * 学号、姓名等字符串字段的UTF-8编码超过{@value BinaryCodec#MAX_STRING_BYTES}字节时无法记录，
+ * 抛出{@link IllegalArgumentException}，内存与日志同样已经不一致，处理方式相同；这条记录不会写入一半。
+ * <p>
+ * 典型用法：
+ * <pre>
+ * WriteAheadLog wal = new WriteAheadLog(path);
+ * wal.replay(studentManager, courseManager, gradeManager);
+ * wal.attach(studentManager, courseManager, gradeManager);
+ * </pre>
+ */
+public class WriteAheadLog implements EventSink, Closeable {
+    private static final int MAGIC = 0x4757414C; // "GWAL"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    // 负载最多为操作类型、四个字符串和一个8字节数值，每个字符串不超过2 + MAX_STRING_BYTES字节，
+    // 因此编码不会超出该长度；重放时以同一上限判断记录是否有效
+    private static final int MAX_RECORD_SIZE = 1 << 18;
+    private static final int SEGMENT_SIZE = 16 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private static final int DEFAULT_GROUP_SIZE = 256;
+    private static final long DEFAULT_GROUP_INTERVAL_MILLIS = 10;
+
+    static final byte OP_STUDENT_ADD = 1;
+    static final byte OP_STUDENT_UPDATE = 2;
+    static final byte OP_STUDENT_REMOVE = 3;
+    static final byte OP_COURSE_ADD = 4;
+    static final byte OP_COURSE_UPDATE = 5;
+    static final byte OP_COURSE_REMOVE = 6;
+    static final byte OP_GRADE_PUT = 7;
+    static final byte OP_GRADE_REMOVE = 8;
+
+    private final FileChannel channel;
+    private final SyncPolicy syncPolicy;
+    private final int groupSize;
+    private final long groupIntervalNanos;
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService flusher;
+    private StudentManager studentManager; // 由attach设置，用于重新读取学生、课程的当前值
+    private CourseManager courseManager;
+
+    private MappedByteBuffer segment;
+    private long position;
+    private int pendingRecords;
+    private long lastSyncNanos;
+    private boolean closed;
+
+    /**
+     * 使用组提交策略打开日志，每256条或10毫秒刷盘一次
+     * @param file 日志文件，不存在时创建
+     */
+    public WriteAheadLog(Path file) throws IOException {
+        this(file, SyncPolicy.GROUP, DEFAULT_GROUP_SIZE, DEFAULT_GROUP_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param file 日志文件，不存在时创建
+     * @param syncPolicy 刷盘策略
+     * @param groupSize 组提交时每组最多条数
+     * @param groupIntervalMillis 组提交时最长等待毫秒数
+     */
+    public WriteAheadLog(Path file, SyncPolicy syncPolicy,
+                         int groupSize, long groupIntervalMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncPolicy = syncPolicy;
+        this.groupSize = groupSize;
+        this.groupIntervalNanos = TimeUnit.MILLISECONDS.toNanos(groupIntervalMillis);
+
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+            position = FILE_HEADER_SIZE;
+        } else {
+            checkHeader();
+            position = readRecords(null);
+            // 截掉崩溃时残留的半条记录和预分配的空白
+            channel.truncate(position);
+        }
+        mapSegment(position);
+        lastSyncNanos = System.nanoTime();
+
+        if (syncPolicy == SyncPolicy.GROUP) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "grade-wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::syncIfPending,
+                    groupIntervalMillis, groupIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * 在三个管理类上注册本日志
+     */
+    public void attach(StudentManager studentManager, CourseManager courseManager,
+                       GradeManager gradeManager) {
+        synchronized (this) {
+            this.studentManager = studentManager;
+            this.courseManager = courseManager;
+        }
+        studentManager.addEventSink(this);
+        courseManager.addEventSink(this);
+        gradeManager.addEventSink(this);
+    }
+
+    /**
+     * 重放日志，把记录依次应用到管理类上
+     * 应在{@link #attach}之前调用，否则重放的操作会被再次写入日志
+     * @return 重放的记录条数
+     */
+    public synchronized long replay(StudentManager studentManager, CourseManager courseManager,
+                                    GradeManager gradeManager) throws IOException {
+        long[] count = new long[1];
+        readRecords(payload -> {
+            apply(payload, studentManager, courseManager, gradeManager);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * 清空日志
+     * 通常在写完快照后调用，快照已包含日志中的全部状态
+     */
+    public synchronized void truncate() throws IOException {
+        segment.force();
+        position = FILE_HEADER_SIZE;
+        segment = null;
+        channel.truncate(FILE_HEADER_SIZE);
+        mapSegment(position);
+        channel.force(true);
+        pendingRecords = 0;
+    }
+
+    /**
+     * 立即刷盘
+     */
+    public synchronized void sync() {
+        if (pendingRecords > 0) {
+            segment.force();
+            pendingRecords = 0;
+        }
+        lastSyncNanos = System.nanoTime();
+    }
+
+    private synchronized void syncIfPending() {
+        if (!closed && pendingRecords > 0) {
+            sync();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            sync();
+            closed = true;
+            channel.close();
+        }
+    }
+
+    // ---------------------------------------------------------------- 写入
+
+    @Override
+    public synchronized void studentAdded(Student student) {
+        logStudent(OP_STUDENT_ADD, student.getStudentId(), student);
+    }
+
+    @Override
+    public synchronized void studentUpdated(Student previous, Student student) {
+        logStudent(OP_STUDENT_UPDATE, student.getStudentId(), student);
+    }
+
+    @Override
+    public synchronized void studentRemoved(Student student) {
+        logStudent(OP_STUDENT_REMOVE, student.getStudentId(), null);
+    }
+
+    @Override
+    public synchronized void courseAdded(Course course) {
+        logCourse(OP_COURSE_ADD, course.getCourseId(), course);
+    }
+
+    @Override
+    public synchronized void courseUpdated(Course previous, Course course) {
+        logCourse(OP_COURSE_UPDATE, course.getCourseId(), course);
+    }
+
+    @Override
+    public synchronized void courseRemoved(Course course) {
+        logCourse(OP_COURSE_REMOVE, course.getCourseId(), null);
+    }
+
+    @Override
+    public synchronized void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        begin(OP_GRADE_PUT);
+        putString("学号", studentId);
+        putString("课程编号", courseId);
+        record.putDouble(grade);
+        commit();
+    }
+
+    @Override
+    public synchronized void gradeRemoved(String studentId, String courseId, double grade) {
+        begin(OP_GRADE_REMOVE);
+        putString("学号", studentId);
+        putString("课程编号", courseId);
+        commit();
+    }
+
+    /**
+     * 记录学生的当前值，已attach时重新读取，未attach时使用事件中的值
+     * @param op 事件对应的操作类型，当前值为null时改记删除，被删除的学号已重新出现时改记新增
+     */
+    private void logStudent(byte op, String studentId, Student fromEvent) {
+        Student current = studentManager != null ? studentManager.getStudent(studentId) : fromEvent;
+        if (current == null) {
+            begin(OP_STUDENT_REMOVE);
+            putString("学号", studentId);
+            commit();
+        } else {
+            appendStudent(op == OP_STUDENT_REMOVE ? OP_STUDENT_ADD : op, current);
+        }
+    }
+
+    private void logCourse(byte op, String courseId, Course fromEvent) {
+        Course current = courseManager != null ? courseManager.getCourse(courseId) : fromEvent;
+        if (current == null) {
+            begin(OP_COURSE_REMOVE);
+            putString("课程编号", courseId);
+            commit();
+        } else {
+            appendCourse(op == OP_COURSE_REMOVE ? OP_COURSE_ADD : op, current);
+        }
+    }
+
+    private void appendStudent(byte op, Student student) {
+        begin(op);
+        putString("学号", student.getStudentId());
+        putString("姓名", student.getName());
+        record.putInt(student.getAge());
+        putString("性别", student.getGender());
+        putString("院系", student.getDepartment());
+        commit();
+    }
+
+    private void appendCourse(byte op, Course course) {
+        begin(op);
+        putString("课程编号", course.getCourseId());
+        putString("课程名称", course.getCourseName());
+        record.putDouble(course.getCredit());
+        putString("教师", course.getTeacher());
+        putString("上课时间", course.getSchedule());
+        commit();
+    }
+
+    private void begin(byte op) {
+        if (closed) {
+            throw new IllegalStateException("日志已关闭");
+        }
+        record.clear();
+        record.put(op);
+    }
+
+    /**
+     * 向当前记录写入一个字符串字段
+     * @param field 字段名，用于异常信息
+     * @throws IllegalArgumentException 字段编码超过长度上限，此时触发事件的修改已在内存中生效，见类注释
+     */
+    private void putString(String field, String value) {
+        try {
+            BinaryCodec.putString(record, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(field + "过长，无法写入日志，内存中的修改已生效: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 追加当前记录
+     * @throws UncheckedIOException 映射新的写入区域失败，此时触发事件的修改已在内存中生效，见类注释
+     */
+    private void commit() {
+        int length = record.position();
+        crc.reset();
+        crc.update(record.array(), 0, length);
+
+        try {
+            if (segment.remaining() < RECORD_HEADER_SIZE + length) {
+                mapSegment(position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(record.array(), 0, length);
+        position += RECORD_HEADER_SIZE + length;
+        pendingRecords++;
+
+        if (syncPolicy == SyncPolicy.EVERY_RECORD) {
+            sync();
+        } else if (syncPolicy == SyncPolicy.GROUP
+                && (pendingRecords >= groupSize || System.nanoTime() - lastSyncNanos >= groupIntervalNanos)) {
+            sync();
+        }
+    }
+
+    /**
+     * 从指定位置开始映射一段新的写入区域，文件随映射自动扩展
+     */
+    private void mapSegment(long start) throws IOException {
+        if (segment != null && pendingRecords > 0) {
+            segment.force();
+            pendingRecords = 0;
+        }
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE);
+    }
+
+    // ---------------------------------------------------------------- 读取
+
+    private void checkHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < FILE_HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("不是成绩日志文件");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("不支持的日志版本: " + version);
+        }
+    }
+
+    /**
+     * 顺序读取所有完整记录
+     * @param handler 记录回调，为null时只定位日志末尾
+     * @return 最后一条完整记录之后的位置
+     */
+    private long readRecords(RecordHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        CRC32 check = new CRC32();
+        long fileSize = channel.size();
+        long readPosition = FILE_HEADER_SIZE;
+        long recordStart = FILE_HEADER_SIZE;
+        buffer.flip();
+
+        while (true) {
+            if (buffer.remaining() < RECORD_HEADER_SIZE || buffer.remaining() < RECORD_HEADER_SIZE
+                    + Math.max(0, buffer.getInt(buffer.position()))) {
+                if (readPosition >= fileSize) {
+                    return recordStart;
+                }
+                buffer.compact();
+                int read = channel.read(buffer, readPosition);
+                buffer.flip();
+                if (read <= 0) {
+                    return recordStart;
+                }
+                readPosition += read;
+                continue;
+            }
+
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                return recordStart;
+            }
+            int expected = buffer.getInt(buffer.position() + 4);
+            int payloadStart = buffer.position() + RECORD_HEADER_SIZE;
+            check.reset();
+            check.update(buffer.array(), payloadStart, length);
+            if ((int) check.getValue() != expected) {
+                return recordStart;
+            }
+
+            if (handler != null) {
+                ByteBuffer payload = ByteBuffer.wrap(buffer.array(), payloadStart, length).slice();
+                handler.handle(payload);
+            }
+            buffer.position(payloadStart + length);
+            recordStart += RECORD_HEADER_SIZE + length;
+        }
+    }
+
+    private static void apply(ByteBuffer payload, StudentManager studentManager,
+                              CourseManager courseManager, GradeManager gradeManager) {
+        byte op = payload.get();
+        switch (op) {
+            case OP_STUDENT_ADD:
+            case OP_STUDENT_UPDATE: {
+                String studentId = BinaryCodec.getString(payload);
+                String name = BinaryCodec.getString(payload);
+                int age = payload.getInt();
+                String gender = BinaryCodec.getString(payload);
+                String department = BinaryCodec.getString(payload);
+                // 记录的是写入时该学号的当前值，按存在与否决定新增还是修改
+                if (studentManager.getStudent(studentId) == null) {
+                    studentManager.addStudent(studentId, name, age, gender, department);
+                } else {
+                    studentManager.updateStudent(studentId, name, age, gender, department);
+                }
+                break;
+            }
+            case OP_STUDENT_REMOVE: {
+                String studentId = BinaryCodec.getString(payload);
+                if (studentManager.getStudent(studentId) != null) {
+                    studentManager.removeStudent(studentId);
+                }
+                break;
+            }
+            case OP_COURSE_ADD:
+            case OP_COURSE_UPDATE: {
+                String courseId = BinaryCodec.getString(payload);
+                String courseName = BinaryCodec.getString(payload);
+                double credit = payload.getDouble();
+                String teacher = BinaryCodec.getString(payload);
+                String schedule = BinaryCodec.getString(payload);
+                if (courseManager.getCourse(courseId) == null) {
+                    courseManager.addCourse(courseId, courseName, credit, teacher, schedule);
+                } else {
+                    courseManager.updateCourse(courseId, courseName, credit, teacher, schedule);
+                }
+                break;
+            }
+            case OP_COURSE_REMOVE: {
+                String courseId = BinaryCodec.getString(payload);
+                if (courseManager.getCourse(courseId) != null) {
+                    courseManager.removeCourse(courseId);
+                }
+                break;
+            }
+            case OP_GRADE_PUT: {
+                String studentId = BinaryCodec.getString(payload);
+                String courseId = BinaryCodec.getString(payload);
+                gradeManager.recordGrade(studentId, courseId, payload.getDouble());
+                break;
+            }
+            case OP_GRADE_REMOVE: {
+                String studentId = BinaryCodec.getString(payload);
+                String courseId = BinaryCodec.getString(payload);
+                gradeManager.removeGrade(studentId, courseId);
+                break;
+            }
+            default:
+                throw new IllegalStateException("未知的日志操作类型: " + op);
+        }
+    }
+
+    /**
+     * 日志记录回调
+     */
+    private interface RecordHandler {
+        void handle(ByteBuffer payload);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.grademanagement.query;
+
+import com.grademanagement.grade.ScoreRange;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 成绩查询条件
+ * 不可变对象，各条件之间为“且”的关系，未设置的条件不做限制。例如某院系某教师所授课程中的不及格成绩：
+ * <pre>
+ * GradeQuery.all().withRange(ScoreRange.below(60)).taughtBy("张老师").inDepartment("计算机学院")
+ * </pre>
+ */
+public final class GradeQuery {
+    private static final GradeQuery ALL = new GradeQuery(ScoreRange.ALL, null, null, null);
+
+    private final ScoreRange range;
+    private final Set<String> courseIds; // null表示不限课程
+    private final String teacher;
+    private final String department;
+
+    private GradeQuery(ScoreRange range, Set<String> courseIds, String teacher, String department) {
+        this.range = range;
+        this.courseIds = courseIds;
+        this.teacher = teacher;
+        this.department = department;
+    }
+
+    /**
+     * @return 不加任何限制的查询
+     */
+    public static GradeQuery all() {
+        return ALL;
+    }
+
+    /**
+     * @param range 成绩区间
+     */
+    public GradeQuery withRange(ScoreRange range) {
+        if (range == null) {
+            throw new IllegalArgumentException("成绩区间不能为空");
+        }
+        return new GradeQuery(range, courseIds, teacher, department);
+    }
+
+    /**
+     * @param courseIds 限定的课程编号
+     */
+    public GradeQuery inCourses(String... courseIds) {
+        return inCourses(Arrays.asList(courseIds));
+    }
+
+    /**
+     * @param courseIds 限定的课程编号
+     */
+    public GradeQuery inCourses(Collection<String> courseIds) {
+        if (courseIds == null || courseIds.contains(null)) {
+            throw new IllegalArgumentException("课程编号不能为空");
+        }
+        return new GradeQuery(range, Collections.unmodifiableSet(new LinkedHashSet<>(courseIds)),
+                teacher, department);
+    }
+
+    /**
+     * @param teacher 授课教师
+     */
+    public GradeQuery taughtBy(String teacher) {
+        if (teacher == null) {
+            throw new IllegalArgumentException("授课教师不能为空");
+        }
+        return new GradeQuery(range, courseIds, teacher, department);
+    }
+
+    /**
+     * @param department 学生所在院系
+     */
+    public GradeQuery inDepartment(String department) {
+        if (department == null) {
+            throw new IllegalArgumentException("院系不能为空");
+        }
+        return new GradeQuery(range, courseIds, teacher, department);
+    }
+
+    public ScoreRange getRange() { return range; }
+    /** @return 限定的课程编号，不限课程时为null */
+    public Set<String> getCourseIds() { return courseIds; }
+    /** @return 授课教师，不限时为null */
+    public String getTeacher() { return teacher; }
+    /** @return 院系，不限时为null */
+    public String getDepartment() { return department; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("成绩").append(range);
+        if (courseIds != null) {
+            sb.append(", 课程: ").append(courseIds);
+        }
+        if (teacher != null) {
+            sb.append(", 教师: ").append(teacher);
+        }
+        if (department != null) {
+            sb.append(", 院系: ").append(department);
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
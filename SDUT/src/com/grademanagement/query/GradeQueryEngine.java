@@ -0,0 +1,151 @@
+package com.grademanagement.query;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeEntry;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeVisitor;
+import com.grademanagement.grade.ScoreRange;
+import com.grademanagement.grade.ScoreSketch;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 成绩条件查询
+ * 成绩区间条件通过各课程的排名树定位，只访问落在区间内的记录，不扫描全部成绩：
+ * 不限院系时计数为每门课程两次树下探，遍历为O(课程数·log n + 命中数)。
+ * 限定院系时比较两种执行方式的代价，选较小者：
+ * <ul>
+ *     <li>按课程取出区间内的记录，再逐条检查学生院系，代价约为区间命中数</li>
+ *     <li>遍历院系学生的成绩，再检查课程和成绩，代价约为院系人数乘以人均成绩条数</li>
+ * </ul>
+ * 不同课程之间不是同一时刻读取的，与其他管理类方法一样只保证单门课程内的一致性
+ */
+public class GradeQueryEngine {
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+
+    public GradeQueryEngine(StudentManager studentManager, CourseManager courseManager,
+                            GradeManager gradeManager) {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+    }
+
+    /**
+     * 查询符合条件的成绩
+     * @param query 查询条件
+     * @return 成绩记录，同一课程内按成绩降序排列，课程之间的顺序不确定
+     */
+    public List<GradeEntry> find(GradeQuery query) {
+        List<GradeEntry> result = new ArrayList<>();
+        forEach(query, (studentId, courseId, grade) -> result.add(new GradeEntry(studentId, courseId, grade)));
+        return result;
+    }
+
+    /**
+     * 统计符合条件的成绩条数
+     * @param query 查询条件
+     * @return 条数
+     */
+    public long count(GradeQuery query) {
+        if (query.getDepartment() == null) {
+            long count = 0;
+            for (String courseId : candidateCourses(query)) {
+                count += gradeManager.countInRange(courseId, query.getRange());
+            }
+            return count;
+        }
+        long[] count = new long[1];
+        forEach(query, (studentId, courseId, grade) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * 符合条件的成绩的分布摘要，可查询中位数、分位数和百分位排名
+     * 只限定课程或教师时直接合并各课程维护的摘要，不访问成绩；
+     * 限定了成绩区间或院系时按{@link #forEach}取出成绩逐条加入
+     * @param query 查询条件
+     * @return 分布摘要
+     */
+    public ScoreSketch distribution(GradeQuery query) {
+        if (query.getDepartment() == null && query.getRange().equals(ScoreRange.ALL)) {
+            return gradeManager.mergeScoreSketches(candidateCourses(query));
+        }
+        ScoreSketch sketch = new ScoreSketch();
+        forEach(query, (studentId, courseId, grade) -> sketch.add(grade));
+        return sketch;
+    }
+
+    /**
+     * 遍历符合条件的成绩
+     * 按课程取记录时回调在该课程的锁内执行，不能在回调中修改成绩
+     * @param query 查询条件
+     * @param visitor 回调
+     */
+    public void forEach(GradeQuery query, GradeVisitor visitor) {
+        Collection<String> courseIds = candidateCourses(query);
+        ScoreRange range = query.getRange();
+        String department = query.getDepartment();
+        if (department == null) {
+            for (String courseId : courseIds) {
+                gradeManager.forEachCourseGrade(courseId, range, visitor);
+            }
+            return;
+        }
+
+        Collection<Student> members = studentManager.getStudentsByDepartment(department);
+        long hits = 0;
+        for (String courseId : courseIds) {
+            hits += gradeManager.countInRange(courseId, range);
+        }
+        double gradesPerStudent = (double) gradeManager.getGradeCount()
+                / Math.max(1, studentManager.getStudentCount());
+        if (hits <= members.size() * gradesPerStudent) {
+            GradeVisitor filter = (studentId, courseId, grade) -> {
+                Student student = studentManager.getStudent(studentId);
+                if (student != null && department.equals(student.getDepartment())) {
+                    visitor.visit(studentId, courseId, grade);
+                }
+            };
+            for (String courseId : courseIds) {
+                gradeManager.forEachCourseGrade(courseId, range, filter);
+            }
+        } else {
+            Set<String> courseSet = courseIds instanceof Set ? (Set<String>) courseIds : new HashSet<>(courseIds);
+            GradeVisitor filter = (studentId, courseId, grade) -> {
+                if (range.contains(grade) && courseSet.contains(courseId)) {
+                    visitor.visit(studentId, courseId, grade);
+                }
+            };
+            for (Student student : new ArrayList<>(members)) {
+                gradeManager.forEachStudentGrade(student.getStudentId(), filter);
+            }
+        }
+    }
+
+    /**
+     * 按课程和教师条件确定需要查询的课程
+     */
+    private Collection<String> candidateCourses(GradeQuery query) {
+        Set<String> courseIds = query.getCourseIds();
+        String teacher = query.getTeacher();
+        if (teacher == null) {
+            return courseIds != null ? courseIds : gradeManager.getCourseIds();
+        }
+        Set<String> result = new HashSet<>();
+        for (Course course : courseManager.getCoursesByTeacher(teacher)) {
+            if (courseIds == null || courseIds.contains(course.getCourseId())) {
+                result.add(course.getCourseId());
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
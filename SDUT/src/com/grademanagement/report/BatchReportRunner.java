@@ -0,0 +1,250 @@
+package com.grademanagement.report;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.snapshot.DataView;
+import com.grademanagement.snapshot.SnapshotStore;
+import com.grademanagement.student.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 期末批量报表
+ * 依次生成全部学生成绩单、课程报表、院系报告和教师报告。
+ * 报表按窗口分块，块内报表在ForkJoinPool上并行生成到各自的缓冲区，
+ * 整个窗口完成后再按固定顺序写出，输出内容与并行度无关。
+ * 每次运行只取一次视图，报表列表和全部报表都从该视图生成；
+ * 报表生成器的数据来源为{@link SnapshotStore}时，运行期间可以继续写入，输出是同一时刻的数据，
+ * 直接读取管理类时，运行期间管理类不应被修改，或者都处于并发模式
+ */
+public class BatchReportRunner {
+    private static final int CHUNK_SIZE = 16;          // 每个并行任务生成的报表数
+    private static final int WINDOW_CHUNKS = 256;      // 每次写出前并行生成的块数
+
+    private final ReportGenerator reportGenerator;
+    private final int parallelism;
+
+    public BatchReportRunner(ReportGenerator reportGenerator) {
+        this(reportGenerator, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 并行线程数
+     */
+    public BatchReportRunner(ReportGenerator reportGenerator, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行线程数必须大于0: " + parallelism);
+        }
+        this.reportGenerator = reportGenerator;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 生成全部报表写入文件，文件已存在时覆盖
+     * @param file 输出文件
+     * @return 运行统计
+     */
+    public BatchSummary run(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return run(new ReportWriter(channel));
+        }
+    }
+
+    /**
+     * 生成全部报表输出到Appendable
+     * @param target 输出目标
+     * @return 运行统计
+     */
+    public BatchSummary run(Appendable target) throws IOException {
+        return run(new ReportWriter(target));
+    }
+
+    private BatchSummary run(ReportWriter out) throws IOException {
+        long start = System.nanoTime();
+        DataView view = reportGenerator.currentView();
+        List<ReportTask> tasks = collectTasks(view);
+        int chunkCount = (tasks.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        StringBuilder[] window = new StringBuilder[Math.min(chunkCount, WINDOW_CHUNKS)];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int first = 0; first < chunkCount; first += WINDOW_CHUNKS) {
+                int count = Math.min(WINDOW_CHUNKS, chunkCount - first);
+                pool.invoke(new RenderChunks(view, tasks, window, first, 0, count));
+                for (int i = 0; i < count; i++) {
+                    out.append(window[i]);
+                    window[i] = null;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        out.finish();
+        return new BatchSummary(tasks.size(), parallelism, out.getBytesWritten(), System.nanoTime() - start);
+    }
+
+    /**
+     * 按固定顺序列出全部报表：学号、课程编号、院系、教师各自升序
+     */
+    private List<ReportTask> collectTasks(DataView view) {
+        TreeSet<String> studentIds = new TreeSet<>();
+        TreeSet<String> departments = new TreeSet<>();
+        for (Student student : view.getAllStudents()) {
+            studentIds.add(student.getStudentId());
+            if (student.getDepartment() != null) {
+                departments.add(student.getDepartment());
+            }
+        }
+        TreeSet<String> courseIds = new TreeSet<>();
+        TreeSet<String> teachers = new TreeSet<>();
+        for (Course course : view.getAllCourses()) {
+            courseIds.add(course.getCourseId());
+            if (course.getTeacher() != null) {
+                teachers.add(course.getTeacher());
+            }
+        }
+
+        List<ReportTask> tasks = new ArrayList<>(
+                studentIds.size() + courseIds.size() + departments.size() + teachers.size());
+        for (String studentId : studentIds) {
+            tasks.add(new ReportTask(ReportType.TRANSCRIPT, studentId));
+        }
+        for (String courseId : courseIds) {
+            tasks.add(new ReportTask(ReportType.COURSE, courseId));
+        }
+        for (String department : departments) {
+            tasks.add(new ReportTask(ReportType.DEPARTMENT, department));
+        }
+        for (String teacher : teachers) {
+            tasks.add(new ReportTask(ReportType.TEACHER, teacher));
+        }
+        return tasks;
+    }
+
+    private void render(DataView view, ReportTask task, StringBuilder out) throws IOException {
+        switch (task.type) {
+            case TRANSCRIPT:
+                reportGenerator.generateStudentTranscript(view, task.key, out);
+                break;
+            case COURSE:
+                reportGenerator.generateCourseReport(view, task.key, out);
+                break;
+            case DEPARTMENT:
+                reportGenerator.generateDepartmentReport(view, task.key, out);
+                break;
+            case TEACHER:
+                reportGenerator.generateTeacherReport(view, task.key, out);
+                break;
+        }
+        out.append(System.lineSeparator());
+    }
+
+    private enum ReportType {
+        TRANSCRIPT, COURSE, DEPARTMENT, TEACHER
+    }
+
+    /**
+     * 一份待生成的报表
+     */
+    private static class ReportTask {
+        final ReportType type;
+        final String key;
+
+        ReportTask(ReportType type, String key) {
+            this.type = type;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 并行生成一个窗口内的若干块，按块二分直到只剩一块
+     */
+    private class RenderChunks extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DataView view;
+        private final List<ReportTask> tasks;
+        private final StringBuilder[] window;
+        private final int firstChunk;
+        private final int from;
+        private final int to;
+
+        RenderChunks(DataView view, List<ReportTask> tasks, StringBuilder[] window,
+                     int firstChunk, int from, int to) {
+            this.view = view;
+            this.tasks = tasks;
+            this.window = window;
+            this.firstChunk = firstChunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RenderChunks(view, tasks, window, firstChunk, from, mid),
+                        new RenderChunks(view, tasks, window, firstChunk, mid, to));
+                return;
+            }
+            int begin = (firstChunk + from) * CHUNK_SIZE;
+            int end = Math.min(begin + CHUNK_SIZE, tasks.size());
+            StringBuilder out = new StringBuilder(1024 * (end - begin));
+            try {
+                for (int i = begin; i < end; i++) {
+                    render(view, tasks.get(i), out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // StringBuilder不会抛出，这里只是满足签名
+            }
+            window[from] = out;
+        }
+    }
+
+    /**
+     * 批量运行统计
+     */
+    public static class BatchSummary {
+        private final int reportCount;
+        private final int parallelism;
+        private final long bytesWritten;
+        private final long elapsedNanos;
+
+        BatchSummary(int reportCount, int parallelism, long bytesWritten, long elapsedNanos) {
+            this.reportCount = reportCount;
+            this.parallelism = parallelism;
+            this.bytesWritten = bytesWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getReportCount() { return reportCount; }
+        public int getParallelism() { return parallelism; }
+        /** @return 写入文件时的字节数，输出到Appendable时为0 */
+        public long getBytesWritten() { return bytesWritten; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @return 每秒生成的报表份数
+         */
+        public double getReportsPerSecond() {
+            return elapsedNanos > 0 ? reportCount * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("并行度%d: 生成报表%d份, %d字节, 耗时%.1fms, %.0f份/秒",
+                    parallelism, reportCount, bytesWritten, elapsedNanos / 1e6, getReportsPerSecond());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package com.grademanagement.report;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeVisitor;
+import com.grademanagement.snapshot.DataSource;
+import com.grademanagement.snapshot.DataView;
+import com.grademanagement.snapshot.LiveView;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 院系成绩分析引擎
+ * 通过视图的院系索引取得学生，GPA直接读取视图（直接读取管理类时为GradeManager维护的累计量），
+ * 再一次遍历其全部成绩：课程编号只解析为课程表下标一次，
+ * 选课人数和成绩总和累加在以课程下标索引的基本类型数组中。
+ * 课程表按视图的课程版本号缓存，课程增删改后按需重建。可在多个线程中同时分析
+ */
+public class DepartmentAnalytics {
+    private final DataSource source;
+    private volatile CourseTable courseTable;
+
+    /**
+     * 直接读取管理类当前数据，成绩管理类须已绑定到该课程管理类，见{@link LiveView}
+     */
+    public DepartmentAnalytics(StudentManager studentManager,
+                               CourseManager courseManager,
+                               GradeManager gradeManager) {
+        this(new LiveView(studentManager, courseManager, gradeManager));
+    }
+
+    /**
+     * @param source 数据来源
+     */
+    public DepartmentAnalytics(DataSource source) {
+        this.source = source;
+    }
+
+    /**
+     * 分析一个院系
+     * @param department 院系名称
+     * @return 分析结果，院系不存在或没有学生返回null
+     */
+    public DepartmentSummary analyze(String department) {
+        return analyze(source.currentView(), department);
+    }
+
+    /**
+     * 在指定视图上分析一个院系
+     * @param view 视图，须来自本分析引擎的数据来源
+     * @param department 院系名称
+     * @return 分析结果，院系不存在或没有学生返回null
+     */
+    public DepartmentSummary analyze(DataView view, String department) {
+        Collection<Student> students = view.getStudentsByDepartment(department);
+        if (students.isEmpty()) {
+            return null;
+        }
+
+        CourseTable table = courseTable(view);
+        Accumulator accumulator = new Accumulator(table);
+        int studentsWithGrades = 0;
+        double totalGpa = 0;
+
+        for (Student student : students) {
+            accumulator.startStudent();
+            view.forEachStudentGrade(student.getStudentId(), accumulator);
+            if (!accumulator.hasGrades) continue;
+
+            studentsWithGrades++;
+            double gpa = view.getGpa(student.getStudentId());
+            if (gpa >= 0) {
+                totalGpa += gpa;
+            }
+        }
+
+        List<CourseSummary> courses = new ArrayList<>();
+        for (int slot = 0; slot < table.courseIds.length; slot++) {
+            int count = accumulator.counts[slot];
+            if (count > 0) {
+                courses.add(new CourseSummary(table.courseIds[slot], table.courseNames[slot],
+                        count, accumulator.sums[slot] / count));
+            }
+        }
+        return new DepartmentSummary(department, students.size(), studentsWithGrades,
+                studentsWithGrades > 0 ? totalGpa / studentsWithGrades : Double.NaN, courses);
+    }
+
+    /**
+     * 院系GPA排行
+     * @param department 院系名称
+     * @param k 名次数量
+     * @return 按GPA降序排列的学号列表，同GPA按学号升序
+     */
+    public List<String> topGpa(String department, int k) {
+        DataView view = source.currentView();
+        Collection<Student> students = view.getStudentsByDepartment(department);
+        List<String> studentIds = new ArrayList<>(students.size());
+        for (Student student : students) {
+            studentIds.add(student.getStudentId());
+        }
+        return view.topGpa(studentIds, k);
+    }
+
+    /**
+     * 取与视图课程一致的课程表，版本不同时重建
+     */
+    private CourseTable courseTable(DataView view) {
+        CourseTable table = courseTable;
+        long version = view.getCourseVersion();
+        if (table == null || table.version != version) {
+            table = new CourseTable(version, view.getAllCourses());
+            courseTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * 课程表快照：课程编号到下标的映射，以及按下标展开的课程名称
+     */
+    private static class CourseTable {
+        final long version;
+        final Map<String, Integer> slots;
+        final String[] courseIds;
+        final String[] courseNames;
+
+        CourseTable(long version, Collection<Course> courses) {
+            this.version = version;
+            this.slots = new HashMap<>(courses.size() * 2);
+            this.courseIds = new String[courses.size()];
+            this.courseNames = new String[courses.size()];
+            int slot = 0;
+            for (Course course : courses) {
+                slots.put(course.getCourseId(), slot);
+                courseIds[slot] = course.getCourseId();
+                courseNames[slot] = course.getCourseName();
+                slot++;
+            }
+        }
+    }
+
+    /**
+     * 单次分析的累加器，同时作为成绩遍历回调在学生之间复用
+     */
+    private static class Accumulator implements GradeVisitor {
+        final CourseTable table;
+        final int[] counts;
+        final double[] sums;
+        boolean hasGrades;
+
+        Accumulator(CourseTable table) {
+            this.table = table;
+            this.counts = new int[table.courseIds.length];
+            this.sums = new double[table.courseIds.length];
+        }
+
+        void startStudent() {
+            hasGrades = false;
+        }
+
+        @Override
+        public void visit(String studentId, String courseId, double grade) {
+            hasGrades = true;
+            Integer slot = table.slots.get(courseId);
+            if (slot == null) {
+                return; // 课程已删除
+            }
+            counts[slot]++;
+            sums[slot] += grade;
+        }
+    }
+
+    /**
+     * 院系分析结果
+     */
+    public static class DepartmentSummary {
+        private final String department;
+        private final int studentCount;
+        private final int studentsWithGrades;
+        private final double averageGpa;
+        private final List<CourseSummary> courses;
+
+        DepartmentSummary(String department, int studentCount, int studentsWithGrades,
+                          double averageGpa, List<CourseSummary> courses) {
+            this.department = department;
+            this.studentCount = studentCount;
+            this.studentsWithGrades = studentsWithGrades;
+            this.averageGpa = averageGpa;
+            this.courses = Collections.unmodifiableList(courses);
+        }
+
+        public String getDepartment() { return department; }
+        public int getStudentCount() { return studentCount; }
+        public int getStudentsWithGrades() { return studentsWithGrades; }
+        /** @return 有成绩学生的平均GPA，没有时为NaN */
+        public double getAverageGpa() { return averageGpa; }
+        /** @return 院系学生选修的课程，按课程表顺序 */
+        public List<CourseSummary> getCourses() { return courses; }
+    }
+
+    /**
+     * 院系内某门课程的选修情况
+     */
+    public static class CourseSummary {
+        private final String courseId;
+        private final String courseName;
+        private final int count;
+        private final double average;
+
+        CourseSummary(String courseId, String courseName, int count, double average) {
+            this.courseId = courseId;
+            this.courseName = courseName;
+            this.count = count;
+            this.average = average;
+        }
+
+        public String getCourseId() { return courseId; }
+        public String getCourseName() { return courseName; }
+        public int getCount() { return count; }
+        public double getAverage() { return average; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,454 @@
+package com.grademanagement.report;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 报表结果缓存
+ * 按报表类型和学号、课程编号、院系或教师缓存生成好的报表文本，条目数有上限，超出时淘汰最久未使用的条目。
+ * <p>
+ * 作为事件接收器挂到三个管理类上，为每个学生、课程、院系、教师维护版本号，写操作只递增受影响键的版本，
+ * 例如录入一条成绩只影响该学生的成绩单、该课程的报告、该学生所在院系的报告和该课程教师的报告。
+ * 缓存条目记录生成前读到的版本号，读取时版本不一致即视为失效重新生成，生成期间发生的写入不会留下过期结果。
+ * 课程名称、学分变化会影响所有成绩单和院系报告，学生增删和姓名变化会影响所有课程报告，
+ * 这两类写入各用一个全局版本号，代价是使对应类型的报表全部失效。
+ * <p>
+ * 报表数据来源为{@link com.grademanagement.snapshot.SnapshotStore}时，应在快照存储之后创建本缓存，
+ * 使版本号在快照更新之后才递增。同一报表并发未命中时可能被重复生成
+ */
+public class ReportCache implements EventSink, Closeable {
+
+    /**
+     * 报表类型
+     */
+    public enum ReportType {
+        TRANSCRIPT,
+        COURSE,
+        DEPARTMENT,
+        TEACHER
+    }
+
+    private final ReportGenerator generator;
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+    private final int maxEntries;
+
+    private final Map<Key, CachedReport> entries; // 按访问顺序排列，以自身为锁
+    private final Map<String, AtomicLong> studentVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> courseVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> departmentVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> teacherVersions = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong(); // 课程名称、学分
+    private final AtomicLong rosterVersion = new AtomicLong();  // 学生增删、姓名
+
+    private final LongAdder[] hits = newCounters();
+    private final LongAdder[] misses = newCounters();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param generator 报表生成器
+     * @param studentManager 学生管理类
+     * @param courseManager 课程管理类
+     * @param gradeManager 成绩管理类
+     * @param maxEntries 最多缓存的报表份数
+     */
+    public ReportCache(ReportGenerator generator, StudentManager studentManager, CourseManager courseManager,
+                       GradeManager gradeManager, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("缓存条目数上限必须为正数: " + maxEntries);
+        }
+        this.generator = generator;
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, CachedReport>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedReport> eldest) {
+                if (size() > ReportCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        studentManager.addEventSink(this);
+        courseManager.addEventSink(this);
+        gradeManager.addEventSink(this);
+    }
+
+    private static LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[ReportType.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+
+    /**
+     * 从管理类上注销并清空缓存，之后不能再使用
+     */
+    @Override
+    public void close() {
+        studentManager.removeEventSink(this);
+        courseManager.removeEventSink(this);
+        gradeManager.removeEventSink(this);
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @param studentId 学号
+     * @return 学生成绩单
+     */
+    public String getStudentTranscript(String studentId) {
+        return get(ReportType.TRANSCRIPT, studentId);
+    }
+
+    /**
+     * @param courseId 课程编号
+     * @return 课程成绩报告
+     */
+    public String getCourseReport(String courseId) {
+        return get(ReportType.COURSE, courseId);
+    }
+
+    /**
+     * @param department 院系
+     * @return 院系成绩分析报告
+     */
+    public String getDepartmentReport(String department) {
+        return get(ReportType.DEPARTMENT, department);
+    }
+
+    /**
+     * @param teacher 教师
+     * @return 教师教学报告
+     */
+    public String getTeacherReport(String teacher) {
+        return get(ReportType.TEACHER, teacher);
+    }
+
+    /**
+     * 取得报表，缓存中没有或已失效时重新生成
+     * @param type 报表类型
+     * @param id 学号、课程编号、院系或教师
+     * @return 报表文本
+     */
+    public String get(ReportType type, String id) {
+        Key key = new Key(type, id);
+        CachedReport entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.isCurrent()) {
+            hits[type.ordinal()].increment();
+            return entry.text;
+        }
+        misses[type.ordinal()].increment();
+
+        // 先读版本号再生成，生成期间的写入会使版本号前进，该条目下次读取时失效
+        AtomicLong[] versions = dependencies(type, id);
+        long[] seen = new long[versions.length];
+        for (int i = 0; i < versions.length; i++) {
+            seen[i] = versions[i].get();
+        }
+        String text = render(type, id);
+        synchronized (entries) {
+            entries.put(key, new CachedReport(text, versions, seen));
+        }
+        return text;
+    }
+
+    /**
+     * 清空缓存，命中率统计保留
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return 当前缓存的报表份数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return 命中率统计
+     */
+    public CacheStats getStats() {
+        ReportType[] types = ReportType.values();
+        long[] hitCounts = new long[types.length];
+        long[] missCounts = new long[types.length];
+        for (int i = 0; i < types.length; i++) {
+            hitCounts[i] = hits[i].sum();
+            missCounts[i] = misses[i].sum();
+        }
+        return new CacheStats(hitCounts, missCounts, evictions.sum(), size());
+    }
+
+    /**
+     * 重置命中率统计
+     */
+    public void resetStats() {
+        for (int i = 0; i < hits.length; i++) {
+            hits[i].reset();
+            misses[i].reset();
+        }
+        evictions.reset();
+    }
+
+    private String render(ReportType type, String id) {
+        StringBuilder out = new StringBuilder(1024);
+        try {
+            switch (type) {
+                case TRANSCRIPT:
+                    generator.generateStudentTranscript(id, out);
+                    break;
+                case COURSE:
+                    generator.generateCourseReport(id, out);
+                    break;
+                case DEPARTMENT:
+                    generator.generateDepartmentReport(id, out);
+                    break;
+                default:
+                    generator.generateTeacherReport(id, out);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder不会抛出
+        }
+        return out.toString();
+    }
+
+    /**
+     * 报表依赖的版本号
+     */
+    private AtomicLong[] dependencies(ReportType type, String id) {
+        String key = id != null ? id : "";
+        switch (type) {
+            case TRANSCRIPT:
+                return new AtomicLong[]{version(studentVersions, key), catalogVersion};
+            case COURSE:
+                return new AtomicLong[]{version(courseVersions, key), rosterVersion};
+            case DEPARTMENT:
+                return new AtomicLong[]{version(departmentVersions, key), catalogVersion};
+            default:
+                return new AtomicLong[]{version(teacherVersions, key)};
+        }
+    }
+
+    private static AtomicLong version(Map<String, AtomicLong> versions, String key) {
+        return versions.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private static void bump(Map<String, AtomicLong> versions, String key) {
+        if (key != null) {
+            version(versions, key).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        bump(studentVersions, student.getStudentId());
+        bump(departmentVersions, student.getDepartment());
+        rosterVersion.incrementAndGet(); // 课程报告中已有成绩但尚无学生信息的行需要显示姓名
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        bump(studentVersions, student.getStudentId());
+        bump(departmentVersions, previous.getDepartment());
+        bump(departmentVersions, student.getDepartment());
+        rosterVersion.incrementAndGet();
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        bump(studentVersions, student.getStudentId());
+        bump(departmentVersions, student.getDepartment());
+        rosterVersion.incrementAndGet();
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        bump(courseVersions, course.getCourseId());
+        bump(teacherVersions, course.getTeacher());
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        bump(courseVersions, course.getCourseId());
+        bump(teacherVersions, previous.getTeacher());
+        bump(teacherVersions, course.getTeacher());
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        bump(courseVersions, course.getCourseId());
+        bump(teacherVersions, course.getTeacher());
+        catalogVersion.incrementAndGet();
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        gradeChanged(studentId, courseId);
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        gradeChanged(studentId, courseId);
+    }
+
+    private void gradeChanged(String studentId, String courseId) {
+        bump(studentVersions, studentId);
+        bump(courseVersions, courseId);
+        Student student = studentManager.getStudent(studentId);
+        if (student != null) {
+            bump(departmentVersions, student.getDepartment());
+        }
+        Course course = courseManager.getCourse(courseId);
+        if (course != null) {
+            bump(teacherVersions, course.getTeacher());
+        }
+    }
+
+    private static final class Key {
+        final ReportType type;
+        final String id;
+
+        Key(ReportType type, String id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return type == that.type && Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(id);
+        }
+    }
+
+    /**
+     * 缓存条目：报表文本及生成前读到的各依赖版本号
+     */
+    private static final class CachedReport {
+        final String text;
+        final AtomicLong[] versions;
+        final long[] seen;
+
+        CachedReport(String text, AtomicLong[] versions, long[] seen) {
+            this.text = text;
+            this.versions = versions;
+            this.seen = seen;
+        }
+
+        boolean isCurrent() {
+            for (int i = 0; i < versions.length; i++) {
+                if (versions[i].get() != seen[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 缓存命中率统计
+     */
+    public static class CacheStats {
+        private final long[] hits;
+        private final long[] misses;
+        private final long evictions;
+        private final int size;
+
+        CacheStats(long[] hits, long[] misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits(ReportType type) { return hits[type.ordinal()]; }
+        public long getMisses(ReportType type) { return misses[type.ordinal()]; }
+        public long getEvictions() { return evictions; }
+        public int getSize() { return size; }
+
+        public long getHits() {
+            long total = 0;
+            for (long count : hits) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getMisses() {
+            long total = 0;
+            for (long count : misses) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * @return 命中率，没有请求时为0
+         */
+        public double getHitRate() {
+            long requests = getHits() + getMisses();
+            return requests > 0 ? (double) getHits() / requests : 0;
+        }
+
+        /**
+         * @param type 报表类型
+         * @return 该类型报表的命中率，没有请求时为0
+         */
+        public double getHitRate(ReportType type) {
+            long requests = getHits(type) + getMisses(type);
+            return requests > 0 ? (double) getHits(type) / requests : 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("命中率: %.1f%% (命中%d, 未命中%d), 淘汰: %d, 缓存份数: %d",
+                    getHitRate() * 100, getHits(), getMisses(), evictions, size));
+            for (ReportType type : ReportType.values()) {
+                if (getHits(type) + getMisses(type) > 0) {
+                    sb.append(String.format("%n  %s: %.1f%% (命中%d, 未命中%d)", type,
+                            getHitRate(type) * 100, getHits(type), getMisses(type)));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
\ No newline at end of file
@@ -1,28 +1,70 @@
 package com.grademanagement.report;
 
+import com.grademanagement.student.Student;
 import com.grademanagement.student.StudentManager;
+import com.grademanagement.course.Course;
 import com.grademanagement.course.CourseManager;
 import com.grademanagement.grade.GradeManager;
-
-import java.util.HashMap;
+import com.grademanagement.metrics.ManagerMetrics;
+import com.grademanagement.metrics.OperationType;
+import com.grademanagement.snapshot.DataSource;
+import com.grademanagement.snapshot.DataView;
+import com.grademanagement.snapshot.LiveView;
+import com.grademanagement.snapshot.SnapshotStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 /**
  * 报表生成类
- * 负责生成各种统计报表
+ * 负责生成各种统计报表。
+ * 每种报表都可以输出到任意Appendable（Writer、StringBuilder等），无参数版本输出到控制台；
+ * 每次调用使用独立的输出缓冲，可在多个线程中同时生成报表。
+ * 数据通过{@link DataView}读取，每份报表只取一次视图：数据来源为{@link SnapshotStore}时，
+ * 报表内的成绩列表、排名、统计来自同一快照，生成期间的写入不会混入；
+ * 需要多份报表彼此一致时，可取一次视图传给带视图参数的方法
  */
 public class ReportGenerator {
-    private final StudentManager studentManager;
-    private final CourseManager courseManager;
-    private final GradeManager gradeManager;
+    private final DataSource source;
+    private final DepartmentAnalytics departmentAnalytics;
+    private volatile ManagerMetrics metrics = ManagerMetrics.DISABLED;
 
+    /**
+     * 直接读取管理类当前数据，成绩管理类须已绑定到该课程管理类，见{@link LiveView}
+     */
     public ReportGenerator(StudentManager studentManager,
                            CourseManager courseManager,
                            GradeManager gradeManager) {
-        this.studentManager = studentManager;
-        this.courseManager = courseManager;
-        this.gradeManager = gradeManager;
+        this(new LiveView(studentManager, courseManager, gradeManager));
+    }
+
+    /**
+     * @param source 数据来源，如{@link SnapshotStore}
+     */
+    public ReportGenerator(DataSource source) {
+        this.source = source;
+        this.departmentAnalytics = new DepartmentAnalytics(source);
+    }
+
+    /**
+     * @return 数据来源的当前视图
+     */
+    public DataView currentView() {
+        return source.currentView();
+    }
+
+    /**
+     * 接入操作指标，记录每种报表的生成耗时；报表内部对管理类的查询由各管理类自己的指标记录
+     * @param metrics 操作指标
+     */
+    public void setMetrics(ManagerMetrics metrics) {
+        this.metrics = metrics;
     }
 
     /**
@@ -30,217 +72,389 @@ public class ReportGenerator {
      * @param studentId 学号
      */
     public void generateStudentTranscript(String studentId) {
-        StudentManager.Student student = studentManager.getStudent(studentId);
+        printToConsole(OperationType.REPORT_TRANSCRIPT,
+                out -> writeStudentTranscript(source.currentView(), studentId, out));
+    }
+
+    /**
+     * 生成学生成绩单
+     * @param studentId 学号
+     * @param target 输出目标
+     */
+    public void generateStudentTranscript(String studentId, Appendable target) throws IOException {
+        generateStudentTranscript(source.currentView(), studentId, target);
+    }
+
+    /**
+     * 生成学生成绩单
+     * @param view 视图，须来自本生成器的数据来源
+     * @param studentId 学号
+     * @param target 输出目标
+     */
+    public void generateStudentTranscript(DataView view, String studentId, Appendable target) throws IOException {
+        render(target, OperationType.REPORT_TRANSCRIPT, out -> writeStudentTranscript(view, studentId, out));
+    }
+
+    /**
+     * 生成课程成绩报表
+     * @param courseId 课程编号
+     */
+    public void generateCourseReport(String courseId) {
+        printToConsole(OperationType.REPORT_COURSE,
+                out -> writeCourseReport(source.currentView(), courseId, out));
+    }
+
+    /**
+     * 生成课程成绩报表
+     * @param courseId 课程编号
+     * @param target 输出目标
+     */
+    public void generateCourseReport(String courseId, Appendable target) throws IOException {
+        generateCourseReport(source.currentView(), courseId, target);
+    }
+
+    /**
+     * 生成课程成绩报表
+     * @param view 视图，须来自本生成器的数据来源
+     * @param courseId 课程编号
+     * @param target 输出目标
+     */
+    public void generateCourseReport(DataView view, String courseId, Appendable target) throws IOException {
+        render(target, OperationType.REPORT_COURSE, out -> writeCourseReport(view, courseId, out));
+    }
+
+    /**
+     * 生成院系成绩分析报告
+     * @param department 院系名称
+     */
+    public void generateDepartmentReport(String department) {
+        printToConsole(OperationType.REPORT_DEPARTMENT,
+                out -> writeDepartmentReport(source.currentView(), department, out));
+    }
+
+    /**
+     * 生成院系成绩分析报告
+     * @param department 院系名称
+     * @param target 输出目标
+     */
+    public void generateDepartmentReport(String department, Appendable target) throws IOException {
+        generateDepartmentReport(source.currentView(), department, target);
+    }
+
+    /**
+     * 生成院系成绩分析报告
+     * @param view 视图，须来自本生成器的数据来源
+     * @param department 院系名称
+     * @param target 输出目标
+     */
+    public void generateDepartmentReport(DataView view, String department, Appendable target) throws IOException {
+        render(target, OperationType.REPORT_DEPARTMENT, out -> writeDepartmentReport(view, department, out));
+    }
+
+    /**
+     * 生成教师教学报告
+     * @param teacher 教师姓名
+     */
+    public void generateTeacherReport(String teacher) {
+        printToConsole(OperationType.REPORT_TEACHER,
+                out -> writeTeacherReport(source.currentView(), teacher, out));
+    }
+
+    /**
+     * 生成教师教学报告
+     * @param teacher 教师姓名
+     * @param target 输出目标
+     */
+    public void generateTeacherReport(String teacher, Appendable target) throws IOException {
+        generateTeacherReport(source.currentView(), teacher, target);
+    }
+
+    /**
+     * 生成教师教学报告
+     * @param view 视图，须来自本生成器的数据来源
+     * @param teacher 教师姓名
+     * @param target 输出目标
+     */
+    public void generateTeacherReport(DataView view, String teacher, Appendable target) throws IOException {
+        render(target, OperationType.REPORT_TEACHER, out -> writeTeacherReport(view, teacher, out));
+    }
+
+    /**
+     * 批量生成全部学生的成绩单，顺序写入一个文件
+     * 文件已存在时覆盖；成绩单之间以空行分隔
+     * @param file 输出文件
+     * @return 导出统计
+     */
+    public ExportSummary generateAllTranscripts(Path file) throws IOException {
+        long start = System.nanoTime();
+        ManagerMetrics metrics = this.metrics;
+        try {
+            int count = 0;
+            long bytes;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ReportWriter out = new ReportWriter(channel);
+                DataView view = source.currentView();
+                for (Student student : view.getAllStudents()) {
+                    writeStudentTranscript(view, student, out);
+                    out.newline();
+                    count++;
+                }
+                out.finish();
+                bytes = out.getBytesWritten();
+            }
+            return new ExportSummary(count, bytes, System.nanoTime() - start);
+        } finally {
+            metrics.record(OperationType.REPORT_ALL_TRANSCRIPTS, start);
+        }
+    }
+
+    private void writeStudentTranscript(DataView view, String studentId, ReportWriter out) throws IOException {
+        Student student = view.getStudent(studentId);
         if (student == null) {
-            System.out.println("该学号不存在！");
+            out.line("该学号不存在！");
             return;
         }
+        writeStudentTranscript(view, student, out);
+    }
 
-        Map<String, Double> grades = gradeManager.getStudentGrades(studentId);
+    private void writeStudentTranscript(DataView view, Student student, ReportWriter out) throws IOException {
+        Map<String, Double> grades = view.getStudentGrades(student.getStudentId());
         if (grades.isEmpty()) {
-            System.out.println("该学生暂无成绩记录！");
+            out.line("该学生暂无成绩记录！");
             return;
         }
 
-        System.out.println("===== 学生成绩单 =====");
-        System.out.println("学号: " + student.getStudentId());
-        System.out.println("姓名: " + student.getName());
-        System.out.println("院系: " + student.getDepartment());
-        System.out.println("\n课程成绩:");
-
-        double totalCredits = 0;
-        double weightedSum = 0;
+        out.line("===== 学生成绩单 =====");
+        out.append("学号: ").line(student.getStudentId());
+        out.append("姓名: ").line(student.getName());
+        out.append("院系: ").line(student.getDepartment());
+        out.newline().line("课程成绩:");
 
         for (Map.Entry<String, Double> entry : grades.entrySet()) {
             String courseId = entry.getKey();
             double grade = entry.getValue();
-            CourseManager.Course course = courseManager.getCourse(courseId);
+            Course course = view.getCourse(courseId);
 
             if (course != null) {
                 double credit = course.getCredit();
-                totalCredits += credit;
-                weightedSum += grade * credit;
-
-                System.out.printf("%s (%s): %.1f (学分: %.1f)\n",
-                        course.getCourseName(), courseId,
-                        grade, credit);
+                out.append(course.getCourseName()).append(" (").append(courseId).append("): ")
+                        .appendFixed(grade, 1)
+                        .append(" (学分: ").appendFixed(credit, 1).append(')')
+                        .newline();
             }
         }
 
-        double gpa = weightedSum / totalCredits;
-        System.out.println("\nGPA: " + String.format("%.2f", gpa));
+        double gpa = view.getGpa(student.getStudentId());
+        out.newline().append("GPA: ").appendFixed(gpa >= 0 ? gpa : Double.NaN, 2).newline();
     }
 
-    /**
-     * 生成课程成绩报表
-     * @param courseId 课程编号
-     */
-    public void generateCourseReport(String courseId) {
-        CourseManager.Course course = courseManager.getCourse(courseId);
+    private void writeCourseReport(DataView view, String courseId, ReportWriter out) throws IOException {
+        Course course = view.getCourse(courseId);
         if (course == null) {
-            System.out.println("该课程不存在！");
+            out.line("该课程不存在！");
             return;
         }
 
-        Map<String, Double> grades = gradeManager.getCourseGrades(courseId);
+        Map<String, Double> grades = view.getCourseGrades(courseId);
         if (grades.isEmpty()) {
-            System.out.println("该课程暂无成绩记录！");
+            out.line("该课程暂无成绩记录！");
             return;
         }
 
-        System.out.println("===== 课程成绩报表 =====");
-        System.out.println("课程名称: " + course.getCourseName());
-        System.out.println("课程编号: " + course.getCourseId());
-        System.out.println("学分: " + course.getCredit());
-        System.out.println("授课教师: " + course.getTeacher());
-        System.out.println("\n学生成绩列表:");
+        out.line("===== 课程成绩报表 =====");
+        out.append("课程名称: ").line(course.getCourseName());
+        out.append("课程编号: ").line(course.getCourseId());
+        out.append("学分: ").appendNumber(course.getCredit()).newline();
+        out.append("授课教师: ").line(course.getTeacher());
+        out.newline().line("学生成绩列表:");
 
-        List<String> ranking = gradeManager.getGradeRanking(courseId);
+        List<String> ranking = view.getGradeRanking(courseId);
         for (int i = 0; i < ranking.size(); i++) {
             String studentId = ranking.get(i);
-            StudentManager.Student student = studentManager.getStudent(studentId);
-            double grade = grades.get(studentId);
+            Student student = view.getStudent(studentId);
+            Double grade = grades.get(studentId);
+            if (grade == null) {
+                continue; // 直接读取管理类时，读取成绩表和排名之间成绩被删除
+            }
 
-            System.out.printf("%d. %s (%s): %.1f\n",
-                    i + 1, student.getName(),
-                    studentId, grade);
+            out.append(i + 1).append(". ")
+                    .append(student != null ? student.getName() : "未知学生")
+                    .append(" (").append(studentId).append("): ")
+                    .appendFixed(grade, 1)
+                    .newline();
         }
 
-        gradeManager.displayCourseStatistics(courseId);
+        writeCourseStatistics(view, courseId, out);
     }
 
     /**
-     * 生成院系成绩分析报告
-     * @param department 院系名称
+     * 输出课程成绩统计，格式与GradeManager.displayCourseStatistics一致
      */
-    public void generateDepartmentReport(String department) {
-        List<StudentManager.Student> students = studentManager.getStudentsByDepartment(department);
-        if (students.isEmpty()) {
-            System.out.println("该院系不存在或没有学生！");
+    private void writeCourseStatistics(DataView view, String courseId, ReportWriter out) throws IOException {
+        GradeManager.CourseStats stats = view.getCourseStats(courseId);
+        if (stats == null) {
+            out.line("该课程暂无成绩记录！");
             return;
         }
 
-        System.out.println("===== 院系成绩分析报告 =====");
-        System.out.println("院系: " + department);
-        System.out.println("学生人数: " + students.size());
-
-        int studentWithGrades = 0;
-        double totalGPA = 0;
-        Map<String, Integer> courseCount = new HashMap<>();
-        Map<String, Double> courseAvgGrade = new HashMap<>();
-
-        for (StudentManager.Student student : students) {
-            Map<String, Double> grades = gradeManager.getStudentGrades(student.getStudentId());
-            if (grades.isEmpty()) continue;
-
-            studentWithGrades++;
-
-            // 计算学生GPA
-            double weightedSum = 0;
-            double totalCredits = 0;
-
-            for (Map.Entry<String, Double> entry : grades.entrySet()) {
-                String courseId = entry.getKey();
-                double grade = entry.getValue();
-                CourseManager.Course course = courseManager.getCourse(courseId);
-
-                if (course != null) {
-                    double credit = course.getCredit();
-                    totalCredits += credit;
-                    weightedSum += grade * credit;
-
-                    // 统计课程信息
-                    courseCount.put(courseId, courseCount.getOrDefault(courseId, 0) + 1);
-                    courseAvgGrade.put(courseId,
-                            courseAvgGrade.getOrDefault(courseId, 0.0) + grade);
-                }
-            }
-
-            if (totalCredits > 0) {
-                totalGPA += weightedSum / totalCredits;
-            }
+        out.line("===== 课程成绩统计 =====");
+        out.append("课程编号: ").line(courseId);
+        out.append("平均成绩: ").appendFixed(stats.getAverage(), 1).newline();
+        out.append("最高成绩: ").appendFixed(stats.getMax(), 1).newline();
+        out.append("最低成绩: ").appendFixed(stats.getMin(), 1).newline();
+        out.line("成绩分布:");
+
+        for (int i = 0; i < GradeManager.CourseStats.RANGE_COUNT; i++) {
+            int start = i * 10;
+            int end = (i == 9) ? 100 : start + 9;
+            int rangeCount = stats.getRangeCount(i);
+            out.append(start).append('-').append(end).append("分: ")
+                    .append(rangeCount).append("人 (")
+                    .appendFixed((double) rangeCount / stats.getCount() * 100, 1)
+                    .append("%)")
+                    .newline();
         }
+    }
 
-        System.out.println("有成绩记录的学生: " + studentWithGrades);
-        if (studentWithGrades > 0) {
-            System.out.println("平均GPA: " + String.format("%.2f", totalGPA / studentWithGrades));
+    private void writeDepartmentReport(DataView view, String department, ReportWriter out) throws IOException {
+        DepartmentAnalytics.DepartmentSummary summary = departmentAnalytics.analyze(view, department);
+        if (summary == null) {
+            out.line("该院系不存在或没有学生！");
+            return;
         }
 
-        System.out.println("\n热门课程统计:");
-        for (Map.Entry<String, Integer> entry : courseCount.entrySet()) {
-            String courseId = entry.getKey();
-            int count = entry.getValue();
-            double avgGrade = courseAvgGrade.get(courseId) / count;
-            CourseManager.Course course = courseManager.getCourse(courseId);
+        out.line("===== 院系成绩分析报告 =====");
+        out.append("院系: ").line(department);
+        out.append("学生人数: ").append(summary.getStudentCount()).newline();
+
+        out.append("有成绩记录的学生: ").append(summary.getStudentsWithGrades()).newline();
+        if (summary.getStudentsWithGrades() > 0) {
+            out.append("平均GPA: ").appendFixed(summary.getAverageGpa(), 2).newline();
+        }
 
-            System.out.printf("%s (%s): %d人选修, 平均成绩: %.1f\n",
-                    course.getCourseName(), courseId,
-                    count, avgGrade);
+        out.newline().line("热门课程统计:");
+        for (DepartmentAnalytics.CourseSummary course : summary.getCourses()) {
+            out.append(course.getCourseName())
+                    .append(" (").append(course.getCourseId()).append("): ")
+                    .append(course.getCount()).append("人选修, 平均成绩: ")
+                    .appendFixed(course.getAverage(), 1)
+                    .newline();
         }
     }
 
-    /**
-     * 生成教师教学报告
-     * @param teacher 教师姓名
-     */
-    public void generateTeacherReport(String teacher) {
-        List<CourseManager.Course> courses = courseManager.getCoursesByTeacher(teacher);
+    private void writeTeacherReport(DataView view, String teacher, ReportWriter out) throws IOException {
+        Collection<Course> courses = view.getCoursesByTeacher(teacher);
         if (courses.isEmpty()) {
-            System.out.println("该教师不存在或没有授课！");
+            out.line("该教师不存在或没有授课！");
             return;
         }
 
-        System.out.println("===== 教师教学报告 =====");
-        System.out.println("教师: " + teacher);
-        System.out.println("教授课程数: " + courses.size());
+        out.line("===== 教师教学报告 =====");
+        out.append("教师: ").line(teacher);
+        out.append("教授课程数: ").append(courses.size()).newline();
 
         int totalStudents = 0;
         double totalCourseAvg = 0;
 
-        for (CourseManager.Course course : courses) {
-            Map<String, Double> grades = gradeManager.getCourseGrades(course.getCourseId());
-            int studentCount = grades.size();
+        for (Course course : courses) {
+            // 人数、平均分和分数段取自同一份统计量，不复制课程成绩
+            GradeManager.CourseStats stats = view.getCourseStats(course.getCourseId());
+            int studentCount = stats != null ? stats.getCount() : 0;
             totalStudents += studentCount;
 
-            System.out.println("\n课程: " + course.getCourseName() +
-                    " (" + course.getCourseId() + ")");
-            System.out.println("学分: " + course.getCredit());
-            System.out.println("选课人数: " + studentCount);
+            out.newline().append("课程: ").append(course.getCourseName())
+                    .append(" (").append(course.getCourseId()).append(')').newline();
+            out.append("学分: ").appendNumber(course.getCredit()).newline();
+            out.append("选课人数: ").append(studentCount).newline();
 
             if (studentCount > 0) {
-                double avg = gradeManager.calculateCourseAverage(course.getCourseId());
+                double avg = stats.getAverage();
                 totalCourseAvg += avg;
-                System.out.println("平均成绩: " + String.format("%.1f", avg));
-
-                // 成绩分布简览
-                int excellent = 0; // >=90
-                int good = 0;       // 80-89
-                int medium = 0;     // 70-79
-                int pass = 0;       // 60-69
-                int fail = 0;       // <60
-
-                for (double grade : grades.values()) {
-                    if (grade >= 90) excellent++;
-                    else if (grade >= 80) good++;
-                    else if (grade >= 70) medium++;
-                    else if (grade >= 60) pass++;
-                    else fail++;
+                out.append("平均成绩: ").appendFixed(avg, 1).newline();
+
+                // 成绩分布简览，统计量按10分一段计数，100分计入最高段
+                int excellent = stats.getRangeCount(9); // >=90
+                int good = stats.getRangeCount(8);      // 80-89
+                int medium = stats.getRangeCount(7);    // 70-79
+                int pass = stats.getRangeCount(6);      // 60-69
+                int fail = 0;                           // <60
+                for (int i = 0; i < 6; i++) {
+                    fail += stats.getRangeCount(i);
                 }
 
-                System.out.println("成绩分布:");
-                System.out.println("优秀(≥90): " + excellent + "人");
-                System.out.println("良好(80-89): " + good + "人");
-                System.out.println("中等(70-79): " + medium + "人");
-                System.out.println("及格(60-69): " + pass + "人");
-                System.out.println("不及格(<60): " + fail + "人");
+                out.line("成绩分布:");
+                out.append("优秀(≥90): ").append(excellent).line("人");
+                out.append("良好(80-89): ").append(good).line("人");
+                out.append("中等(70-79): ").append(medium).line("人");
+                out.append("及格(60-69): ").append(pass).line("人");
+                out.append("不及格(<60): ").append(fail).line("人");
             }
         }
 
         if (courses.size() > 0) {
-            System.out.println("\n综合统计:");
-            System.out.println("平均每门课选课人数: " + totalStudents / courses.size());
-            System.out.println("所有课程平均成绩: " +
-                    String.format("%.1f", totalCourseAvg / courses.size()));
+            out.newline().line("综合统计:");
+            out.append("平均每门课选课人数: ").append(totalStudents / courses.size()).newline();
+            out.append("所有课程平均成绩: ").appendFixed(totalCourseAvg / courses.size(), 1).newline();
+        }
+    }
+
+    private void render(Appendable target, OperationType operation, Section section) throws IOException {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            ReportWriter out = new ReportWriter(target);
+            section.write(out);
+            out.finish();
+        } finally {
+            metrics.record(operation, begin);
+        }
+    }
+
+    private void printToConsole(OperationType operation, Section section) {
+        try {
+            render(System.out, operation, section);
+        } catch (IOException e) {
+            // PrintStream自身不抛出IOException，这里只是满足签名
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 报表内容
+     */
+    private interface Section {
+        void write(ReportWriter out) throws IOException;
+    }
+    /**
+     * 批量导出统计
+     */
+    public static class ExportSummary {
+        private final int transcriptCount;
+        private final long bytesWritten;
+        private final long elapsedNanos;
+
+        ExportSummary(int transcriptCount, long bytesWritten, long elapsedNanos) {
+            this.transcriptCount = transcriptCount;
+            this.bytesWritten = bytesWritten;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getTranscriptCount() { return transcriptCount; }
+        public long getBytesWritten() { return bytesWritten; }
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @return 每秒生成的成绩单份数
+         */
+        public double getTranscriptsPerSecond() {
+            return elapsedNanos > 0 ? transcriptCount * 1e9 / elapsedNanos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("导出成绩单%d份, %d字节, 耗时%.1fms, %.0f份/秒",
+                    transcriptCount, bytesWritten, elapsedNanos / 1e6, getTranscriptsPerSecond());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.grademanagement.report;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 报表输出缓冲
+ * 文本先拼进一块复用的字符数组，写满或结束时整块交给目标Appendable或按UTF-8编码写入通道，
+ * 数字直接格式化进缓冲区，不为每行生成中间字符串。
+ * 每次生成报表使用独立实例，非线程安全。
+ */
+final class ReportWriter {
+    private static final int APPENDABLE_CHAR_CAPACITY = 1024;  // 单份报表通常只有几KB，目标自身会再缓冲
+    private static final int CHANNEL_CHAR_CAPACITY = 16 * 1024;
+    private static final int BYTE_BUFFER_CAPACITY = 64 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private final Appendable out;
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    private final char[] chars;
+    private final CharBuffer charView;
+    private int position;
+    private long bytesWritten;
+
+    /**
+     * 输出到Appendable（Writer、StringBuilder、PrintStream等）
+     */
+    ReportWriter(Appendable out) {
+        this.out = out;
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+        this.chars = new char[APPENDABLE_CHAR_CAPACITY];
+        this.charView = CharBuffer.wrap(chars);
+    }
+
+    /**
+     * 按UTF-8编码输出到字节通道
+     */
+    ReportWriter(WritableByteChannel channel) {
+        this.out = null;
+        this.channel = channel;
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(BYTE_BUFFER_CAPACITY);
+        this.chars = new char[CHANNEL_CHAR_CAPACITY];
+        this.charView = CharBuffer.wrap(chars);
+    }
+
+    ReportWriter append(String text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        int offset = 0;
+        int length = text.length();
+        while (offset < length) {
+            if (position == chars.length) {
+                flush();
+            }
+            int count = Math.min(length - offset, chars.length - position);
+            text.getChars(offset, offset + count, chars, position);
+            position += count;
+            offset += count;
+        }
+        return this;
+    }
+
+    /**
+     * 追加另一段已生成的报表文本
+     */
+    ReportWriter append(StringBuilder text) throws IOException {
+        int offset = 0;
+        int length = text.length();
+        while (offset < length) {
+            if (position == chars.length) {
+                flush();
+            }
+            int count = Math.min(length - offset, chars.length - position);
+            text.getChars(offset, offset + count, chars, position);
+            position += count;
+            offset += count;
+        }
+        return this;
+    }
+
+    ReportWriter append(char c) throws IOException {
+        if (position == chars.length) {
+            flush();
+        }
+        chars[position++] = c;
+        return this;
+    }
+
+    /**
+     * 追加整数
+     */
+    ReportWriter append(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        ensure(19);
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    /**
+     * 按固定小数位追加，四舍五入，相当于String.format("%.nf")
+     * @param value 数值
+     * @param decimals 小数位数（0-6）
+     */
+    ReportWriter appendFixed(double value, int decimals) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.toString(value));
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        double magnitude = Math.abs(value) * scale;
+        if (magnitude >= Long.MAX_VALUE) {
+            return append(String.format("%." + decimals + "f", value));
+        }
+        long scaled;
+        double fraction = magnitude - Math.floor(magnitude);
+        if (Math.abs(fraction - 0.5) < 1e-6) {
+            // 接近进位边界时按十进制表示精确舍入，与Formatter结果一致
+            scaled = new BigDecimal(Double.toString(Math.abs(value)))
+                    .setScale(decimals, RoundingMode.HALF_UP).unscaledValue().longValue();
+        } else {
+            scaled = Math.round(magnitude);
+        }
+        if (Double.compare(value, 0.0) < 0) {
+            append('-');
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            append('.');
+            long digits = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                append((char) ('0' + digits / p % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 按Double.toString的形式追加，用于学分等原样显示的数值
+     * 最多一位小数的常见取值直接格式化，其余回退到Double.toString
+     */
+    ReportWriter appendNumber(double value) throws IOException {
+        double tenths = value * 10;
+        if (Math.abs(value) < 1e6 && tenths == Math.rint(tenths)) {
+            return appendFixed(value, 1);
+        }
+        return append(Double.toString(value));
+    }
+
+    ReportWriter newline() throws IOException {
+        return append(LINE_SEPARATOR);
+    }
+
+    /**
+     * 追加一行文本
+     */
+    ReportWriter line(String text) throws IOException {
+        return append(text).newline();
+    }
+
+    /**
+     * 把缓冲区内容交给目标，不刷新目标本身
+     */
+    void flush() throws IOException {
+        if (channel != null) {
+            encode(false);
+            return;
+        }
+        if (position == 0) {
+            return;
+        }
+        if (out instanceof Writer) {
+            ((Writer) out).write(chars, 0, position);
+        } else if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(chars, 0, position);
+        } else {
+            charView.limit(position).position(0);
+            out.append(charView);
+        }
+        position = 0;
+    }
+
+    /**
+     * 结束输出：写出缓冲区中剩余的全部内容
+     */
+    void finish() throws IOException {
+        if (channel == null) {
+            flush();
+            return;
+        }
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    /**
+     * @return 通道模式下已写出的字节数
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void ensure(int count) throws IOException {
+        if (chars.length - position < count) {
+            flush();
+        }
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        charView.limit(position).position(0);
+        while (true) {
+            CoderResult result = encoder.encode(charView, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isError()) {
+                result.throwException();
+            } else {
+                break;
+            }
+        }
+        // 缓冲区末尾可能留有半个代理对，移到开头等待后续字符
+        int remaining = charView.remaining();
+        if (remaining > 0) {
+            System.arraycopy(chars, charView.position(), chars, 0, remaining);
+        }
+        position = remaining;
+        if (bytes.position() >= BYTE_BUFFER_CAPACITY / 2 || endOfInput) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,304 @@
+package com.grademanagement.snapshot;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeVisitor;
+import com.grademanagement.student.Student;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某一时刻的数据快照
+ * 全部数据保存在{@link PersistentMap}中，对象本身不可变，可以在任意线程中无锁读取，
+ * 同一快照上的所有查询看到的是同一版本的数据。
+ * 排名、统计、GPA在查询时由快照中的成绩计算，成本与该课程或该学生的成绩条数成正比
+ */
+public final class DataSnapshot implements DataView {
+    static final DataSnapshot EMPTY = new DataSnapshot(0, 0, PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty(), 0);
+
+    // 排名顺序：成绩降序，同分学号升序，与GradeManager的排名一致
+    private static final Comparator<Map.Entry<String, Double>> RANKING_ORDER =
+            Comparator.comparing((Map.Entry<String, Double> e) -> e.getValue(), Comparator.reverseOrder())
+                    .thenComparing(Map.Entry::getKey);
+
+    private final long version;
+    private final long courseVersion;
+    private final PersistentMap<Student> students;
+    private final PersistentMap<Course> courses;
+    private final PersistentMap<PersistentMap<Student>> departments; // 院系 -> (学号 -> 学生)
+    private final PersistentMap<PersistentMap<Course>> teachers;     // 教师 -> (课程编号 -> 课程)
+    private final PersistentMap<PersistentMap<Double>> studentGrades; // 学号 -> (课程编号 -> 成绩)
+    private final PersistentMap<PersistentMap<Double>> courseGrades;  // 课程编号 -> (学号 -> 成绩)
+    private final int gradeCount;
+
+    private DataSnapshot(long version, long courseVersion,
+                         PersistentMap<Student> students, PersistentMap<Course> courses,
+                         PersistentMap<PersistentMap<Student>> departments,
+                         PersistentMap<PersistentMap<Course>> teachers,
+                         PersistentMap<PersistentMap<Double>> studentGrades,
+                         PersistentMap<PersistentMap<Double>> courseGrades,
+                         int gradeCount) {
+        this.version = version;
+        this.courseVersion = courseVersion;
+        this.students = students;
+        this.courses = courses;
+        this.departments = departments;
+        this.teachers = teachers;
+        this.studentGrades = studentGrades;
+        this.courseGrades = courseGrades;
+        this.gradeCount = gradeCount;
+    }
+
+    /**
+     * @return 版本号，每次数据变化加1
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    public int getCourseCount() {
+        return courses.size();
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    // ---------------------------------------------------------------- 查询
+
+    @Override
+    public Student getStudent(String studentId) {
+        return students.get(studentId);
+    }
+
+    @Override
+    public Course getCourse(String courseId) {
+        return courses.get(courseId);
+    }
+
+    @Override
+    public Collection<Student> getAllStudents() {
+        return students.values();
+    }
+
+    @Override
+    public Collection<Course> getAllCourses() {
+        return courses.values();
+    }
+
+    @Override
+    public Collection<Student> getStudentsByDepartment(String department) {
+        PersistentMap<Student> members = departments.get(department);
+        return members != null ? members.values() : Collections.emptyList();
+    }
+
+    @Override
+    public Collection<Course> getCoursesByTeacher(String teacher) {
+        PersistentMap<Course> taught = teachers.get(teacher);
+        return taught != null ? taught.values() : Collections.emptyList();
+    }
+
+    @Override
+    public Map<String, Double> getStudentGrades(String studentId) {
+        PersistentMap<Double> grades = studentGrades.get(studentId);
+        return grades != null ? grades.asMap() : Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Double> getCourseGrades(String courseId) {
+        PersistentMap<Double> grades = courseGrades.get(courseId);
+        return grades != null ? grades.asMap() : Collections.emptyMap();
+    }
+
+    @Override
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        PersistentMap<Double> grades = studentGrades.get(studentId);
+        if (grades != null) {
+            grades.forEach((courseId, grade) -> visitor.visit(studentId, courseId, grade));
+        }
+    }
+
+    @Override
+    public void forEachGrade(GradeVisitor visitor) {
+        studentGrades.forEach((studentId, grades) ->
+                grades.forEach((courseId, grade) -> visitor.visit(studentId, courseId, grade)));
+    }
+
+    @Override
+    public List<String> getGradeRanking(String courseId) {
+        PersistentMap<Double> grades = courseGrades.get(courseId);
+        if (grades == null) {
+            return new ArrayList<>();
+        }
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(grades.asMap().entrySet());
+        entries.sort(RANKING_ORDER);
+        List<String> ranking = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Double> entry : entries) {
+            ranking.add(entry.getKey());
+        }
+        return ranking;
+    }
+
+    @Override
+    public GradeManager.CourseStats getCourseStats(String courseId) {
+        PersistentMap<Double> grades = courseGrades.get(courseId);
+        return grades != null ? GradeManager.CourseStats.of(courseId, grades.values()) : null;
+    }
+
+    @Override
+    public double calculateCourseAverage(String courseId) {
+        PersistentMap<Double> grades = courseGrades.get(courseId);
+        if (grades == null) {
+            return -1;
+        }
+        double sum = 0;
+        for (double grade : grades.values()) {
+            sum += grade;
+        }
+        return sum / grades.size();
+    }
+
+    /**
+     * 按快照中的课程学分计算，课程已删除或学分为0的成绩不计入，与GradeManager一致
+     */
+    @Override
+    public double getGpa(String studentId) {
+        PersistentMap<Double> grades = studentGrades.get(studentId);
+        if (grades == null) {
+            return -1;
+        }
+        double[] sums = new double[2]; // 加权成绩和, 学分和
+        grades.forEach((courseId, grade) -> {
+            Course course = courses.get(courseId);
+            if (course != null && course.getCredit() != 0) {
+                sums[0] += grade * course.getCredit();
+                sums[1] += course.getCredit();
+            }
+        });
+        return sums[1] > 0 ? sums[0] / sums[1] : -1;
+    }
+
+    @Override
+    public List<String> topGpa(Collection<String> studentIds, int k) {
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>();
+        for (String studentId : studentIds) {
+            double gpa = getGpa(studentId);
+            if (gpa >= 0) {
+                ranked.add(new AbstractMap.SimpleImmutableEntry<>(studentId, gpa));
+            }
+        }
+        ranked.sort(RANKING_ORDER);
+        List<String> result = new ArrayList<>(Math.min(Math.max(k, 0), ranked.size()));
+        for (int i = 0; i < ranked.size() && i < k; i++) {
+            result.add(ranked.get(i).getKey());
+        }
+        return result;
+    }
+
+    @Override
+    public long getCourseVersion() {
+        return courseVersion;
+    }
+
+    // ---------------------------------------------------------------- 生成新版本
+
+    /**
+     * @param studentId 学号
+     * @param student 学生当前信息，已删除时为null
+     * @return 新版本，没有变化时返回自身
+     */
+    DataSnapshot withStudent(String studentId, Student student) {
+        Student previous = students.get(studentId);
+        if (previous == student) {
+            return this;
+        }
+        PersistentMap<PersistentMap<Student>> newDepartments = departments;
+        if (previous != null) {
+            newDepartments = removeMember(newDepartments, previous.getDepartment(), studentId);
+        }
+        if (student != null) {
+            newDepartments = addMember(newDepartments, student.getDepartment(), studentId, student);
+        }
+        return new DataSnapshot(version + 1, courseVersion,
+                student != null ? students.plus(studentId, student) : students.minus(studentId),
+                courses, newDepartments, teachers, studentGrades, courseGrades, gradeCount);
+    }
+
+    /**
+     * @param courseId 课程编号
+     * @param course 课程当前信息，已删除时为null
+     * @return 新版本，没有变化时返回自身
+     */
+    DataSnapshot withCourse(String courseId, Course course) {
+        Course previous = courses.get(courseId);
+        if (previous == course) {
+            return this;
+        }
+        PersistentMap<PersistentMap<Course>> newTeachers = teachers;
+        if (previous != null) {
+            newTeachers = removeMember(newTeachers, previous.getTeacher(), courseId);
+        }
+        if (course != null) {
+            newTeachers = addMember(newTeachers, course.getTeacher(), courseId, course);
+        }
+        return new DataSnapshot(version + 1, courseVersion + 1, students,
+                course != null ? courses.plus(courseId, course) : courses.minus(courseId),
+                departments, newTeachers, studentGrades, courseGrades, gradeCount);
+    }
+
+    /**
+     * @param studentId 学号
+     * @param courseId 课程编号
+     * @param grade 成绩，已删除时为NaN
+     * @return 新版本，没有变化时返回自身
+     */
+    DataSnapshot withGrade(String studentId, String courseId, double grade) {
+        PersistentMap<Double> byStudent = studentGrades.get(studentId);
+        Double previous = byStudent != null ? byStudent.get(courseId) : null;
+        boolean removed = Double.isNaN(grade);
+        if (removed ? previous == null : previous != null && previous == grade) {
+            return this;
+        }
+        int newCount = gradeCount + (previous == null ? 1 : 0) - (removed ? 1 : 0);
+        Double boxed = removed ? null : grade;
+        return new DataSnapshot(version + 1, courseVersion, students, courses, departments, teachers,
+                removed ? removeMember(studentGrades, studentId, courseId)
+                        : addMember(studentGrades, studentId, courseId, boxed),
+                removed ? removeMember(courseGrades, courseId, studentId)
+                        : addMember(courseGrades, courseId, studentId, boxed),
+                newCount);
+    }
+
+    private static <V> PersistentMap<PersistentMap<V>> addMember(PersistentMap<PersistentMap<V>> groups,
+                                                                 String group, String key, V value) {
+        if (group == null) {
+            return groups;
+        }
+        PersistentMap<V> members = groups.get(group);
+        return groups.plus(group, (members != null ? members : PersistentMap.<V>empty()).plus(key, value));
+    }
+
+    private static <V> PersistentMap<PersistentMap<V>> removeMember(PersistentMap<PersistentMap<V>> groups,
+                                                                    String group, String key) {
+        PersistentMap<V> members = group != null ? groups.get(group) : null;
+        if (members == null) {
+            return groups;
+        }
+        PersistentMap<V> remaining = members.minus(key);
+        if (remaining == members) {
+            return groups;
+        }
+        return remaining.isEmpty() ? groups.minus(group) : groups.plus(group, remaining);
+    }
+}
\ No newline at end of file
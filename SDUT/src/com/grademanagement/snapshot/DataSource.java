@@ -0,0 +1,12 @@
+package com.grademanagement.snapshot;
+
+/**
+ * 只读视图的来源
+ */
+public interface DataSource {
+
+    /**
+     * @return 当前视图；对于快照存储，每次返回调用时刻的快照，同一份报表应只使用一次调用的结果
+     */
+    DataView currentView();
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.grademanagement.snapshot;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeVisitor;
+import com.grademanagement.student.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 学生、课程、成绩的只读视图
+ * 报表只通过这个接口读取数据：{@link LiveView}直接读取管理类的当前数据，
+ * {@link DataSnapshot}是某一时刻的不可变快照。各方法的含义与管理类中的同名方法一致
+ */
+public interface DataView {
+
+    Student getStudent(String studentId);
+
+    Course getCourse(String courseId);
+
+    Collection<Student> getAllStudents();
+
+    Collection<Course> getAllCourses();
+
+    Collection<Student> getStudentsByDepartment(String department);
+
+    Collection<Course> getCoursesByTeacher(String teacher);
+
+    /**
+     * @return 成绩<课程编号, 成绩>，只读
+     */
+    Map<String, Double> getStudentGrades(String studentId);
+
+    /**
+     * @return 成绩<学号, 成绩>，只读
+     */
+    Map<String, Double> getCourseGrades(String courseId);
+
+    void forEachStudentGrade(String studentId, GradeVisitor visitor);
+
+    /**
+     * 遍历全部成绩，顺序不确定
+     */
+    void forEachGrade(GradeVisitor visitor);
+
+    /**
+     * @return 按成绩降序、同分按学号升序排列的学号列表
+     */
+    List<String> getGradeRanking(String courseId);
+
+    /**
+     * @return 统计快照，无成绩记录返回null
+     */
+    GradeManager.CourseStats getCourseStats(String courseId);
+
+    /**
+     * @return 平均成绩，无成绩记录返回-1
+     */
+    double calculateCourseAverage(String courseId);
+
+    /**
+     * @return 学分加权GPA，没有计学分的成绩返回-1
+     */
+    double getGpa(String studentId);
+
+    /**
+     * @return 按GPA降序、同GPA按学号升序排列的学号列表，没有GPA的学生不参与排名
+     */
+    List<String> topGpa(Collection<String> studentIds, int k);
+
+    /**
+     * 课程版本号，课程增删改后变化，用于缓存由课程派生的数据
+     * @return 课程版本号
+     */
+    long getCourseVersion();
+}
\ No newline at end of file
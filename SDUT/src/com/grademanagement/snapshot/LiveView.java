@@ -0,0 +1,121 @@
+package com.grademanagement.snapshot;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.grade.GradeVisitor;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 直接读取管理类当前数据的视图
+ * 每次调用都读取最新数据，查询成本与管理类相同，但同一份报表的多次读取之间可能穿插写入；
+ * 写入与报表生成同时进行时应使用{@link SnapshotStore}
+ */
+public class LiveView implements DataView, DataSource {
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+
+    /**
+     * GPA由成绩管理类维护，创建前须由管理类的持有方调用{@link GradeManager#bindCourses}
+     * @throws IllegalStateException 成绩管理类未绑定到该课程管理类
+     */
+    public LiveView(StudentManager studentManager, CourseManager courseManager, GradeManager gradeManager) {
+        if (!gradeManager.isBoundTo(courseManager)) {
+            throw new IllegalStateException("成绩管理类未绑定到该课程管理类，请先调用bindCourses");
+        }
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+    }
+
+    @Override
+    public DataView currentView() {
+        return this;
+    }
+
+    @Override
+    public Student getStudent(String studentId) {
+        return studentManager.getStudent(studentId);
+    }
+
+    @Override
+    public Course getCourse(String courseId) {
+        return courseManager.getCourse(courseId);
+    }
+
+    @Override
+    public Collection<Student> getAllStudents() {
+        return studentManager.getAllStudents();
+    }
+
+    @Override
+    public Collection<Course> getAllCourses() {
+        return courseManager.getAllCourses();
+    }
+
+    @Override
+    public Collection<Student> getStudentsByDepartment(String department) {
+        return studentManager.getStudentsByDepartment(department);
+    }
+
+    @Override
+    public Collection<Course> getCoursesByTeacher(String teacher) {
+        return courseManager.getCoursesByTeacher(teacher);
+    }
+
+    @Override
+    public Map<String, Double> getStudentGrades(String studentId) {
+        return gradeManager.getStudentGrades(studentId);
+    }
+
+    @Override
+    public Map<String, Double> getCourseGrades(String courseId) {
+        return gradeManager.getCourseGrades(courseId);
+    }
+
+    @Override
+    public void forEachStudentGrade(String studentId, GradeVisitor visitor) {
+        gradeManager.forEachStudentGrade(studentId, visitor);
+    }
+
+    @Override
+    public void forEachGrade(GradeVisitor visitor) {
+        gradeManager.forEachGrade(visitor);
+    }
+
+    @Override
+    public List<String> getGradeRanking(String courseId) {
+        return gradeManager.getGradeRanking(courseId);
+    }
+
+    @Override
+    public GradeManager.CourseStats getCourseStats(String courseId) {
+        return gradeManager.getCourseStats(courseId);
+    }
+
+    @Override
+    public double calculateCourseAverage(String courseId) {
+        return gradeManager.calculateCourseAverage(courseId);
+    }
+
+    @Override
+    public double getGpa(String studentId) {
+        return gradeManager.getGpa(studentId);
+    }
+
+    @Override
+    public List<String> topGpa(Collection<String> studentIds, int k) {
+        return gradeManager.topGpa(studentIds, k);
+    }
+
+    @Override
+    public long getCourseVersion() {
+        return courseManager.getVersion();
+    }
+}
\ No newline at end of file
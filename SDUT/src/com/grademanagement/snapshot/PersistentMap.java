@@ -0,0 +1,494 @@
+package com.grademanagement.snapshot;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * 以字符串为键的不可变哈希映射（哈希数组映射前缀树，HAMT）
+ * 每层按哈希值的5位分成32路，节点只为实际存在的分支分配数组槽位。
+ * plus、minus返回新的映射，只复制从根到被修改条目路径上的O(log32 n)个节点，其余节点新旧版本共享，
+ * 因此旧版本始终保持不变，可以在任意线程中无锁读取。
+ * 不允许null键和null值
+ * @param <V> 值类型
+ */
+public final class PersistentMap<V> {
+    private static final PersistentMap<?> EMPTY = new PersistentMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentMap<V> empty() {
+        return (PersistentMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key 键
+     * @return 值，不存在返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        if (root == null || key == null) {
+            return null;
+        }
+        return (V) root.find(0, hash(key), key);
+    }
+
+    /**
+     * @param key 键
+     * @param value 值
+     * @return 包含该条目的新映射；键已映射到同一个值对象时返回自身
+     */
+    public PersistentMap<V> plus(String key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Change change = new Change();
+        Node node = root != null ? root : BitmapNode.EMPTY;
+        Node updated = node.plus(0, hash(key), key, value, change);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentMap<>(updated, change.sizeChanged ? size + 1 : size);
+    }
+
+    /**
+     * @param key 键
+     * @return 去掉该键的新映射；键不存在时返回自身
+     */
+    public PersistentMap<V> minus(String key) {
+        if (root == null || key == null) {
+            return this;
+        }
+        Change change = new Change();
+        Node updated = root.minus(0, hash(key), key, change);
+        if (!change.sizeChanged) {
+            return this;
+        }
+        return updated != null ? new PersistentMap<>(updated, size - 1) : empty();
+    }
+
+    /**
+     * 按内部顺序遍历全部条目
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<String, Object>) action);
+        }
+    }
+
+    /**
+     * @return 只读的Map视图，不复制条目
+     */
+    public Map<String, V> asMap() {
+        return new MapView();
+    }
+
+    /**
+     * @return 只读的值视图，不复制条目
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new EntryIterator<V>(root) {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    V element(String key, Object value) {
+                        return (V) value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 与OpenHashMap相同的混合方式，把字符串哈希的差异扩散到每一组5位上
+     */
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * plus、minus过程中条目数是否变化
+     */
+    private static final class Change {
+        boolean sizeChanged;
+    }
+
+    private abstract static class Node {
+        abstract Object find(int shift, int hash, String key);
+
+        abstract Node plus(int shift, int hash, String key, Object value, Change change);
+
+        /**
+         * @return 删除后的节点，节点变空时返回null
+         */
+        abstract Node minus(int shift, int hash, String key, Change change);
+
+        abstract void forEach(BiConsumer<String, Object> action);
+    }
+
+    /**
+     * 位图节点
+     * array按分支顺序存放(键, 值)对；键为null时值是下一层节点
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array;
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & 31);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, String key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            if (k == null) {
+                return ((Node) array[i + 1]).find(shift + 5, hash, key);
+            }
+            return key.equals(k) ? array[i + 1] : null;
+        }
+
+        @Override
+        Node plus(int shift, int hash, String key, Object value, Change change) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] copy = new Object[array.length + 2];
+                System.arraycopy(array, 0, copy, 0, i);
+                copy[i] = key;
+                copy[i + 1] = value;
+                System.arraycopy(array, i, copy, i + 2, array.length - i);
+                change.sizeChanged = true;
+                return new BitmapNode(bitmap | bit, copy);
+            }
+
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = (Node) v;
+                Node updated = child.plus(shift + 5, hash, key, value, change);
+                return updated == child ? this : with(i + 1, null, updated);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : with(i + 1, k, value);
+            }
+            change.sizeChanged = true;
+            return with(i + 1, null, split(shift + 5, (String) k, v, hash, key, value));
+        }
+
+        /**
+         * 同一分支上的两个条目下沉到新的一层
+         */
+        private static Node split(int shift, String key1, Object value1, int hash2, String key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new String[]{key1, key2}, new Object[]{value1, value2});
+            }
+            Change ignored = new Change();
+            return EMPTY.plus(shift, hash1, key1, value1, ignored).plus(shift, hash2, key2, value2, ignored);
+        }
+
+        private BitmapNode with(int valueIndex, Object key, Object value) {
+            Object[] copy = array.clone();
+            copy[valueIndex - 1] = key;
+            copy[valueIndex] = value;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        Node minus(int shift, int hash, String key, Change change) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * index(bit);
+            Object k = array[i];
+            if (k == null) {
+                Node child = (Node) array[i + 1];
+                Node updated = child.minus(shift + 5, hash, key, change);
+                if (updated == child) {
+                    return this;
+                }
+                if (updated != null) {
+                    return with(i + 1, null, updated);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            } else {
+                change.sizeChanged = true;
+            }
+            // 删除该分支
+            if (bitmap == bit) {
+                return null;
+            }
+            Object[] copy = new Object[array.length - 2];
+            System.arraycopy(array, 0, copy, 0, i);
+            System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+            return new BitmapNode(bitmap & ~bit, copy);
+        }
+
+        @Override
+        void forEach(BiConsumer<String, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept((String) array[i], array[i + 1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * 完整哈希值相同的若干条目
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final String[] keys;
+        final Object[] values;
+
+        CollisionNode(int hash, String[] keys, Object[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, String key) {
+            if (hash != this.hash) {
+                return null;
+            }
+            int i = indexOf(key);
+            return i >= 0 ? values[i] : null;
+        }
+
+        @Override
+        Node plus(int shift, int hash, String key, Object value, Change change) {
+            if (hash != this.hash) {
+                // 哈希值不同的条目：在本层放一个只含本节点的位图节点，再插入
+                BitmapNode wrapper = new BitmapNode(1 << ((this.hash >>> shift) & 31), new Object[]{null, this});
+                return wrapper.plus(shift, hash, key, value, change);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (values[i] == value) {
+                    return this;
+                }
+                Object[] newValues = values.clone();
+                newValues[i] = value;
+                return new CollisionNode(hash, keys, newValues);
+            }
+            String[] newKeys = new String[keys.length + 1];
+            Object[] newValues = new Object[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, keys.length);
+            System.arraycopy(values, 0, newValues, 0, values.length);
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            change.sizeChanged = true;
+            return new CollisionNode(hash, newKeys, newValues);
+        }
+
+        @Override
+        Node minus(int shift, int hash, String key, Change change) {
+            int i = hash == this.hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            change.sizeChanged = true;
+            if (keys.length == 1) {
+                return null;
+            }
+            String[] newKeys = new String[keys.length - 1];
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(values, 0, newValues, 0, i);
+            System.arraycopy(values, i + 1, newValues, i, values.length - i - 1);
+            return new CollisionNode(hash, newKeys, newValues);
+        }
+
+        @Override
+        void forEach(BiConsumer<String, Object> action) {
+            for (int i = 0; i < keys.length; i++) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * 深度优先遍历全部条目，树深不超过8层
+     */
+    private abstract static class EntryIterator<T> implements Iterator<T> {
+        private final Node[] nodes = new Node[8];
+        private final int[] positions = new int[8];
+        private int depth = -1;
+        private String nextKey;
+        private Object nextValue;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                push(root);
+                advance();
+            }
+        }
+
+        abstract T element(String key, Object value);
+
+        private void push(Node node) {
+            nodes[++depth] = node;
+            positions[depth] = 0;
+        }
+
+        private void advance() {
+            nextKey = null;
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int position = positions[depth];
+                if (node instanceof BitmapNode) {
+                    Object[] array = ((BitmapNode) node).array;
+                    if (position >= array.length) {
+                        depth--;
+                        continue;
+                    }
+                    positions[depth] = position + 2;
+                    if (array[position] == null) {
+                        push((Node) array[position + 1]);
+                        continue;
+                    }
+                    nextKey = (String) array[position];
+                    nextValue = array[position + 1];
+                    return;
+                }
+                CollisionNode collision = (CollisionNode) node;
+                if (position >= collision.keys.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = position + 1;
+                nextKey = collision.keys[position];
+                nextValue = collision.values[position];
+                return;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @Override
+        public T next() {
+            if (nextKey == null) {
+                throw new NoSuchElementException();
+            }
+            T element = element(nextKey, nextValue);
+            advance();
+            return element;
+        }
+    }
+
+    /**
+     * asMap返回的只读视图
+     */
+    private final class MapView extends AbstractMap<String, V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && PersistentMap.this.get((String) key) != null;
+        }
+
+        @Override
+        public V get(Object key) {
+            return key instanceof String ? PersistentMap.this.get((String) key) : null;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super String, ? super V> action) {
+            PersistentMap.this.forEach(action);
+        }
+
+        @Override
+        public Collection<V> values() {
+            return PersistentMap.this.values();
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<Entry<String, V>>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new EntryIterator<Entry<String, V>>(root) {
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        Entry<String, V> element(String key, Object value) {
+                            return new SimpleImmutableEntry<>(key, (V) value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
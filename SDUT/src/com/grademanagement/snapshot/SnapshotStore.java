@@ -0,0 +1,135 @@
+package com.grademanagement.snapshot;
+
+import com.grademanagement.course.Course;
+import com.grademanagement.course.CourseManager;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.grade.GradeManager;
+import com.grademanagement.student.Student;
+import com.grademanagement.student.StudentManager;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * 多版本快照存储
+ * 作为事件接收器挂到三个管理类上，每次写入后由当前快照路径复制出新快照，
+ * 再以CAS替换根引用；读取方取得的快照永不改变，报表生成全程无锁且不阻塞写入。
+ * 每次写入额外分配O(log n)个节点，旧快照在没有读取方引用后由垃圾回收释放。
+ * <p>
+ * 学生、课程事件在管理类的键锁之外发出，顺序不可靠，因此收到事件后重新读取该键的当前值；
+ * 成绩事件在课程锁内发出，同一课程的事件有序，直接使用事件中的成绩。
+ * 快照保证其中每个值都是该键在某一时刻的真实值，不保证跨键的写入顺序
+ */
+public class SnapshotStore implements EventSink, DataSource, Closeable {
+    private final StudentManager studentManager;
+    private final CourseManager courseManager;
+    private final GradeManager gradeManager;
+    private final AtomicReference<DataSnapshot> root = new AtomicReference<>(DataSnapshot.EMPTY);
+
+    /**
+     * 先注册事件接收器再载入已有数据，载入期间的写入不会丢失
+     */
+    public SnapshotStore(StudentManager studentManager, CourseManager courseManager, GradeManager gradeManager) {
+        this.studentManager = studentManager;
+        this.courseManager = courseManager;
+        this.gradeManager = gradeManager;
+        studentManager.addEventSink(this);
+        courseManager.addEventSink(this);
+        gradeManager.addEventSink(this);
+
+        for (Student student : studentManager.getAllStudents()) {
+            refreshStudent(student.getStudentId());
+        }
+        for (Course course : courseManager.getAllCourses()) {
+            refreshCourse(course.getCourseId());
+        }
+        gradeManager.forEachGrade((studentId, courseId, grade) -> update(snapshot -> {
+            double current = gradeManager.getGrade(studentId, courseId);
+            return snapshot.withGrade(studentId, courseId, current < 0 ? Double.NaN : current);
+        }));
+    }
+
+    /**
+     * @return 当前快照
+     */
+    public DataSnapshot snapshot() {
+        return root.get();
+    }
+
+    @Override
+    public DataView currentView() {
+        return root.get();
+    }
+
+    /**
+     * 从管理类上注销，之后快照不再更新
+     */
+    @Override
+    public void close() {
+        studentManager.removeEventSink(this);
+        courseManager.removeEventSink(this);
+        gradeManager.removeEventSink(this);
+    }
+
+    private void update(UnaryOperator<DataSnapshot> change) {
+        while (true) {
+            DataSnapshot current = root.get();
+            DataSnapshot next = change.apply(current);
+            if (next == current || root.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 在读取根引用之后读取管理类中的当前值，CAS失败时重读，最后写入的一定不比事件旧
+     */
+    private void refreshStudent(String studentId) {
+        update(snapshot -> snapshot.withStudent(studentId, studentManager.getStudent(studentId)));
+    }
+
+    private void refreshCourse(String courseId) {
+        update(snapshot -> snapshot.withCourse(courseId, courseManager.getCourse(courseId)));
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        refreshStudent(student.getStudentId());
+    }
+
+    @Override
+    public void studentUpdated(Student previous, Student student) {
+        refreshStudent(student.getStudentId());
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        refreshStudent(student.getStudentId());
+    }
+
+    @Override
+    public void courseAdded(Course course) {
+        refreshCourse(course.getCourseId());
+    }
+
+    @Override
+    public void courseUpdated(Course previous, Course course) {
+        refreshCourse(course.getCourseId());
+    }
+
+    @Override
+    public void courseRemoved(Course course) {
+        refreshCourse(course.getCourseId());
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        update(snapshot -> snapshot.withGrade(studentId, courseId, grade));
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        update(snapshot -> snapshot.withGrade(studentId, courseId, Double.NaN));
+    }
+}
\ No newline at end of file
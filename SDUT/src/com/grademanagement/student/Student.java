@@ -1,14 +1,18 @@
 package com.grademanagement.student;
 
+import java.util.Objects;
+
 /**
  * 学生实体类
+ * 不可变，修改信息时由{@link StudentManager}生成新实例替换旧实例，已取得的实例可以在线程间共享而无需加锁。
+ * 通过管理类创建的实例中，性别和院系取自管理类的字典，同值的字段共用同一个字符串
  */
-public class Student {
-    private String studentId;
-    private String name;
-    private int age;
-    private String gender;
-    private String department;
+public final class Student {
+    private final String studentId;
+    private final String name;
+    private final int age;
+    private final String gender;
+    private final String department;
 
     public Student(String studentId, String name, int age, String gender, String department) {
         this.studentId = studentId;
@@ -18,51 +22,36 @@ public class Student {
         this.department = department;
     }
 
-    // Getter和Setter方法
-    public String getStudentId() {
-        return studentId;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public int getAge() {
-        return age;
-    }
-
-    public void setAge(int age) {
-        this.age = age;
-    }
-
-    public String getGender() {
-        return gender;
-    }
-
-    public void setGender(String gender) {
-        this.gender = gender;
-    }
+    public String getStudentId() { return studentId; }
+    public String getName() { return name; }
+    public int getAge() { return age; }
+    public String getGender() { return gender; }
+    public String getDepartment() { return department; }
 
-    public String getDepartment() {
-        return department;
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Student)) {
+            return false;
+        }
+        Student other = (Student) o;
+        return age == other.age
+                && Objects.equals(studentId, other.studentId)
+                && Objects.equals(name, other.name)
+                && Objects.equals(gender, other.gender)
+                && Objects.equals(department, other.department);
     }
 
-    public void setDepartment(String department) {
-        this.department = department;
+    @Override
+    public int hashCode() {
+        return Objects.hash(studentId, name, age, gender, department);
     }
 
     @Override
     public String toString() {
-        return "Student{" +
-                "studentId='" + studentId + '\'' +
-                ", name='" + name + '\'' +
-                ", age=" + age +
-                ", gender='" + gender + '\'' +
-                ", department='" + department + '\'' +
-                '}';
+        return String.format("学号: %s, 姓名: %s, 年龄: %d, 性别: %s, 院系: %s",
+                studentId, name, age, gender, department);
     }
 }
\ No newline at end of file
@@ -1,9 +1,21 @@
 package com.grademanagement.student;
 
+import com.grademanagement.event.CompositeEventSink;
+import com.grademanagement.event.EntityType;
+import com.grademanagement.event.EventSink;
+import com.grademanagement.metrics.ManagerMetrics;
+import com.grademanagement.metrics.OperationType;
+import com.grademanagement.util.Interner;
+import com.grademanagement.util.OpenHashMap;
+
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 学生信息管理类
@@ -11,10 +23,82 @@ import java.util.Map;
  */
 public class StudentManager {
     private Map<String, Student> students;
-    private static final int MAX_STUDENTS = 1000;
+    // 院系 -> (学号 -> 学生)，与students在同一学号的原子操作内维护；院系条目清空后保留，使已返回的视图保持有效
+    private final Map<String, Map<String, Student>> departmentIndex;
+    private final boolean concurrent;
+    private final int capacity;
+    // 性别、院系的字典，使所有学生共用同值的字符串
+    private final Interner dictionary = new Interner();
+
+    /**
+     * 不限制数量
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public static final String MSG_LIMIT_REACHED = "已达到最大学生数量限制！";
+    public static final String MSG_DUPLICATE_ID = "该学号已存在！";
+    public static final String MSG_NOT_FOUND = "该学号不存在！";
+
+    private volatile EventSink eventSink = EventSink.NOOP;
+    private volatile ManagerMetrics metrics = ManagerMetrics.DISABLED;
 
     public StudentManager() {
-        this.students = new HashMap<>();
+        this(false);
+    }
+
+    /**
+     * @param concurrent 是否启用并发模式，启用后可由多个线程同时增删改查
+     */
+    public StudentManager(boolean concurrent) {
+        this(UNLIMITED, 0, concurrent);
+    }
+
+    /**
+     * 非并发模式下使用开放寻址的{@link OpenHashMap}存储，每个学生只占两个数组槽位，适合数百万规模；
+     * 并发模式下使用按预计数量预先分配的ConcurrentHashMap
+     * @param capacity 最多保存的学生数量，达到后拒绝添加；不限制时传{@link #UNLIMITED}
+     * @param expectedSize 预计学生数量，按此预先分配存储，批量导入时不再反复扩容
+     * @param concurrent 是否启用并发模式，启用后可由多个线程同时增删改查
+     */
+    public StudentManager(int capacity, int expectedSize, boolean concurrent) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须大于0: " + capacity);
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("预计数量不能为负: " + expectedSize);
+        }
+        this.capacity = capacity;
+        this.concurrent = concurrent;
+        this.students = concurrent ? new ConcurrentHashMap<>(expectedSize) : new OpenHashMap<>(expectedSize);
+        this.departmentIndex = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * 注册事件接收器，增删改及被拒绝的操作都会回调
+     * @param sink 事件接收器
+     */
+    public synchronized void addEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.add(eventSink, sink);
+    }
+
+    /**
+     * 注销事件接收器
+     * @param sink 事件接收器
+     */
+    public synchronized void removeEventSink(EventSink sink) {
+        eventSink = CompositeEventSink.remove(eventSink, sink);
+    }
+
+    /**
+     * 接入操作指标，同一实例会作为事件接收器统计被拒绝的操作；传入{@link ManagerMetrics#DISABLED}即停止统计
+     * @param metrics 操作指标
+     */
+    public synchronized void setMetrics(ManagerMetrics metrics) {
+        eventSink = CompositeEventSink.remove(eventSink, this.metrics);
+        if (metrics.isEnabled()) {
+            eventSink = CompositeEventSink.add(eventSink, metrics);
+        }
+        this.metrics = metrics;
     }
 
     /**
@@ -28,20 +112,30 @@ public class StudentManager {
      */
     public boolean addStudent(String studentId, String name, int age,
                               String gender, String department) {
-        if (students.size() >= MAX_STUDENTS) {
-            System.out.println("已达到最大学生数量限制！");
-            return false;
-        }
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            // 并发模式下数量上限只是近似检查，可能被同时到达的写入略微超过
+            if (students.size() >= capacity) {
+                eventSink.rejected(EntityType.STUDENT, studentId, null, MSG_LIMIT_REACHED);
+                return false;
+            }
 
-        if (students.containsKey(studentId)) {
-            System.out.println("该学号已存在！");
-            return false;
+            Student newStudent = new Student(studentId, name, age,
+                    dictionary.intern(gender), dictionary.intern(department));
+            Student existing = students.computeIfAbsent(studentId, k -> {
+                indexDepartment(newStudent);
+                return newStudent;
+            });
+            if (existing != newStudent) {
+                eventSink.rejected(EntityType.STUDENT, studentId, null, MSG_DUPLICATE_ID);
+                return false;
+            }
+            eventSink.studentAdded(newStudent);
+            return true;
+        } finally {
+            metrics.record(OperationType.STUDENT_ADD, begin);
         }
-
-        Student newStudent = new Student(studentId, name, age, gender, department);
-        students.put(studentId, newStudent);
-        System.out.println("学生添加成功：" + newStudent);
-        return true;
     }
 
     /**
@@ -50,14 +144,24 @@ public class StudentManager {
      * @return 删除是否成功
      */
     public boolean removeStudent(String studentId) {
-        if (!students.containsKey(studentId)) {
-            System.out.println("该学号不存在！");
-            return false;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Student[] removed = new Student[1];
+            students.computeIfPresent(studentId, (k, existing) -> {
+                unindexDepartment(existing);
+                removed[0] = existing;
+                return null;
+            });
+            if (removed[0] == null) {
+                eventSink.rejected(EntityType.STUDENT, studentId, null, MSG_NOT_FOUND);
+                return false;
+            }
+            eventSink.studentRemoved(removed[0]);
+            return true;
+        } finally {
+            metrics.record(OperationType.STUDENT_REMOVE, begin);
         }
-
-        Student removed = students.remove(studentId);
-        System.out.println("学生删除成功：" + removed);
-        return true;
     }
 
     /**
@@ -71,18 +175,32 @@ public class StudentManager {
      */
     public boolean updateStudent(String studentId, String name, int age,
                                  String gender, String department) {
-        if (!students.containsKey(studentId)) {
-            System.out.println("该学号不存在！");
-            return false;
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            String canonicalGender = dictionary.intern(gender);
+            String canonicalDepartment = dictionary.intern(department);
+            Student[] previous = new Student[1];
+            // 在该键上原子地替换为新实例，避免与并发的删除交错；持有旧实例的读者不受影响
+            Student student = students.computeIfPresent(studentId, (k, existing) -> {
+                Student updated = new Student(existing.getStudentId(), name, age,
+                        canonicalGender, canonicalDepartment);
+                if (!Objects.equals(existing.getDepartment(), canonicalDepartment)) {
+                    unindexDepartment(existing);
+                }
+                indexDepartment(updated);
+                previous[0] = existing;
+                return updated;
+            });
+            if (student == null) {
+                eventSink.rejected(EntityType.STUDENT, studentId, null, MSG_NOT_FOUND);
+                return false;
+            }
+            eventSink.studentUpdated(previous[0], student);
+            return true;
+        } finally {
+            metrics.record(OperationType.STUDENT_UPDATE, begin);
         }
-
-        Student student = students.get(studentId);
-        student.setName(name);
-        student.setAge(age);
-        student.setGender(gender);
-        student.setDepartment(department);
-        System.out.println("学生信息更新成功：" + student);
-        return true;
     }
 
     /**
@@ -91,7 +209,13 @@ public class StudentManager {
      * @return 学生对象，不存在返回null
      */
     public Student getStudent(String studentId) {
-        return students.get(studentId);
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            return students.get(studentId);
+        } finally {
+            metrics.record(OperationType.STUDENT_GET, begin);
+        }
     }
 
     /**
@@ -104,17 +228,61 @@ public class StudentManager {
 
     /**
      * 按院系筛选学生
+     * 返回院系索引的只读视图，随后续增删改同步变化；非并发模式下遍历期间不能修改学生信息
      * @param department 院系名称
-     * @return 该院系学生列表
+     * @return 该院系学生
      */
-    public List<Student> getStudentsByDepartment(String department) {
-        List<Student> result = new ArrayList<>();
-        for (Student student : students.values()) {
-            if (student.getDepartment().equals(department)) {
-                result.add(student);
-            }
+    public Collection<Student> getStudentsByDepartment(String department) {
+        ManagerMetrics metrics = this.metrics;
+        long begin = metrics.start();
+        try {
+            Map<String, Student> members = department != null ? departmentIndex.get(department) : null;
+            return members != null ? Collections.unmodifiableCollection(members.values()) : Collections.emptyList();
+        } finally {
+            metrics.record(OperationType.STUDENT_BY_DEPARTMENT, begin);
+        }
+    }
+
+    /**
+     * 查询院系人数
+     * @param department 院系名称
+     * @return 该院系学生人数
+     */
+    public int getDepartmentSize(String department) {
+        Map<String, Student> members = department != null ? departmentIndex.get(department) : null;
+        return members != null ? members.size() : 0;
+    }
+
+    /**
+     * @return 学生总人数
+     */
+    public int getStudentCount() {
+        return students.size();
+    }
+
+    /**
+     * 把学生加入院系索引，调用方须持有该学号在students上的原子操作
+     */
+    private void indexDepartment(Student student) {
+        if (student.getDepartment() == null) {
+            return;
+        }
+        departmentIndex.computeIfAbsent(student.getDepartment(),
+                dept -> concurrent ? new ConcurrentHashMap<>() : new OpenHashMap<>())
+                .put(student.getStudentId(), student);
+    }
+
+    /**
+     * 把学生移出院系索引
+     */
+    private void unindexDepartment(Student student) {
+        if (student.getDepartment() == null) {
+            return;
+        }
+        Map<String, Student> members = departmentIndex.get(student.getDepartment());
+        if (members != null) {
+            members.remove(student.getStudentId());
         }
-        return result;
     }
 
     /**
@@ -142,41 +310,4 @@ public class StudentManager {
         genderCount.forEach((gender, count) ->
                 System.out.println(gender + ": " + count + "人"));
     }
-
-    /**
-     * 学生类
-     */
-    public static class Student {
-        private String studentId;
-        private String name;
-        private int age;
-        private String gender;
-        private String department;
-
-        public Student(String studentId, String name, int age,
-                       String gender, String department) {
-            this.studentId = studentId;
-            this.name = name;
-            this.age = age;
-            this.gender = gender;
-            this.department = department;
-        }
-
-        // Getter和Setter方法
-        public String getStudentId() { return studentId; }
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        public int getAge() { return age; }
-        public void setAge(int age) { this.age = age; }
-        public String getGender() { return gender; }
-        public void setGender(String gender) { this.gender = gender; }
-        public String getDepartment() { return department; }
-        public void setDepartment(String department) { this.department = department; }
-
-        @Override
-        public String toString() {
-            return String.format("学号: %s, 姓名: %s, 年龄: %d, 性别: %s, 院系: %s",
-                    studentId, name, age, gender, department);
-        }
-    }
 }
\ No newline at end of file
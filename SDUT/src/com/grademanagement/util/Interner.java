@@ -0,0 +1,37 @@
+package com.grademanagement.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 字符串字典
+ * 把相等的字符串规范化为同一个实例，用于院系、性别、教师等取值很少的字段，
+ * 数百万个实体共用字典中的几十个字符串，而不是各自持有一份副本。
+ * 字典只增不减，不适合姓名这类取值很多的字段。线程安全
+ */
+public final class Interner {
+    private final ConcurrentMap<String, String> pool = new ConcurrentHashMap<>();
+
+    /**
+     * @param value 字符串，可以为null
+     * @return 字典中与之相等的实例，首次出现时加入字典并返回自身
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = pool.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        canonical = pool.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * @return 字典中的字符串数量
+     */
+    public int size() {
+        return pool.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.grademanagement.util;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 以字符串为键的开放寻址哈希表
+ * 键和值分别存放在两个数组中，线性探测，删除时把后续条目前移而不留墓碑。
+ * 不像HashMap那样为每个条目分配节点对象，按0.75的负载因子每个条目约占11字节（压缩指针），
+ * 适合以学号、课程编号为键保存数百万个实体；表中保存的键就是调用方传入的字符串实例，不另行复制。
+ * <p>
+ * 不允许null键和null值；entrySet返回的条目是快照，不支持setValue，迭代器不支持remove。
+ * computeIfAbsent、computeIfPresent的函数内不能修改本表。非线程安全
+ * @param <V> 值类型
+ */
+public final class OpenHashMap<V> extends AbstractMap<String, V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private String[] keyTable;
+    private Object[] valueTable;
+    private int mask;
+    private int threshold;
+    private int size;
+    private int modCount;
+
+    private Set<Entry<String, V>> entrySet;
+    private Collection<V> valuesView;
+
+    public OpenHashMap() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize 预计条目数，按此分配表长，插入这么多条目前不会扩容
+     */
+    public OpenHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("预计条目数不能为负: " + expectedSize);
+        }
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(int capacity) {
+        keyTable = new String[capacity];
+        valueTable = new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity == MAX_CAPACITY ? capacity - 1 : (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * 键的起始槽位
+     * String.hashCode的低位分布较差，先乘黄金分割常数再把高位折叠下来
+     */
+    private int slot(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * @return 键所在槽位，不存在返回-1
+     */
+    private int indexOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        String[] keys = keyTable;
+        int i = slot((String) key);
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return 键所在槽位；不存在时返回可插入的空槽位取反后的值
+     */
+    private int probe(String key) {
+        String[] keys = keyTable;
+        int i = slot(key);
+        String k;
+        while ((k = keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return ~i;
+    }
+
+    private void insertAt(int i, String key, Object value) {
+        keyTable[i] = key;
+        valueTable[i] = value;
+        modCount++;
+        if (++size > threshold) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        if (keyTable.length == MAX_CAPACITY) {
+            throw new IllegalStateException("条目数超过上限: " + size);
+        }
+        String[] oldKeys = keyTable;
+        Object[] oldValues = valueTable;
+        allocate(oldKeys.length << 1);
+        for (int j = 0; j < oldKeys.length; j++) {
+            String key = oldKeys[j];
+            if (key != null) {
+                int i = slot(key);
+                while (keyTable[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keyTable[i] = key;
+                valueTable[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * 删除槽位上的条目，并把同一探测链上后续的条目前移填补空位
+     */
+    private void removeAt(int i) {
+        String[] keys = keyTable;
+        Object[] values = valueTable;
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            String key = keys[j];
+            if (key == null) {
+                break;
+            }
+            // 空位在该条目的起始槽位与当前位置之间时，前移后仍可从起始槽位探测到
+            int home = slot(key);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        size--;
+        modCount++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int i) {
+        return (V) valueTable[i];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        int i = probe(key);
+        if (i >= 0) {
+            V previous = valueAt(i);
+            valueTable[i] = value;
+            return previous;
+        }
+        insertAt(~i, key, value);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V removed = valueAt(i);
+        removeAt(i);
+        return removed;
+    }
+
+    @Override
+    public V computeIfAbsent(String key, Function<? super String, ? extends V> mappingFunction) {
+        Objects.requireNonNull(key);
+        int i = probe(key);
+        if (i >= 0) {
+            return valueAt(i);
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value != null) {
+            insertAt(~i, key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(String key, BiFunction<? super String, ? super V, ? extends V> remappingFunction) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        int expectedModCount = modCount;
+        V value = remappingFunction.apply(key, valueAt(i));
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value == null) {
+            removeAt(i);
+        } else {
+            valueTable[i] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super V> action) {
+        int expectedModCount = modCount;
+        String[] keys = keyTable;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], valueAt(i));
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keyTable, null);
+        Arrays.fill(valueTable, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Collection<V> values() {
+        Collection<V> view = valuesView;
+        if (view == null) {
+            view = new AbstractCollection<V>() {
+                @Override
+                public Iterator<V> iterator() {
+                    return new SlotIterator<V>() {
+                        @Override
+                        V element(int i) {
+                            return valueAt(i);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            valuesView = view;
+        }
+        return view;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        Set<Entry<String, V>> view = entrySet;
+        if (view == null) {
+            view = new AbstractSet<Entry<String, V>>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new SlotIterator<Entry<String, V>>() {
+                        @Override
+                        Entry<String, V> element(int i) {
+                            return new SimpleImmutableEntry<>(keyTable[i], valueAt(i));
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Entry<?, ?> entry = (Entry<?, ?>) o;
+                    int i = indexOf(entry.getKey());
+                    return i >= 0 && valueTable[i].equals(entry.getValue());
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySet = view;
+        }
+        return view;
+    }
+
+    /**
+     * 按槽位顺序遍历非空条目
+     */
+    private abstract class SlotIterator<T> implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            String[] keys = keyTable;
+            while (from < keys.length && keys[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        abstract T element(int i);
+
+        @Override
+        public boolean hasNext() {
+            return next < keyTable.length;
+        }
+
+        @Override
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = next;
+            next = advance(i + 1);
+            return element(i);
+        }
+    }
+}
\ No newline at end of file
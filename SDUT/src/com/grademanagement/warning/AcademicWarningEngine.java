@@ -0,0 +1,304 @@
+package com.grademanagement.warning;
+
+import com.grademanagement.event.EventSink;
+import com.grademanagement.grade.GradeManager;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 学业预警引擎
+ * 作为事件接收器挂到成绩管理类上，按成绩事件增量维护每个学生的成绩条数、成绩总和和不及格课程数，
+ * 每次录入、覆盖或删除成绩后只重新判断该学生的各条规则，单次开销为O(规则数)，与学生的成绩条数无关；
+ * 规则状态发生变化时回调{@link WarningListener}，进入和解除预警都会通知。
+ * 每条规则的预警学生集合随成绩变化实时更新，查询不需要扫描。
+ * <p>
+ * GPA规则读取成绩管理类增量维护的GPA；课程学分变化时，成绩管理类调整完这门课学生的GPA后
+ * 回调{@link EventSink#courseCreditChanged}，引擎随即重新判断这门课的每个学生，
+ * 开销为O(该课程成绩条数 × 规则数)。
+ * 创建时载入已有成绩，应在没有并发写入成绩时创建
+ */
+public class AcademicWarningEngine implements EventSink, Closeable {
+    /**
+     * 及格线，低于该成绩计为不及格
+     */
+    public static final double PASS_GRADE = 60;
+
+    private static final int MAX_RULES = Long.SIZE;
+
+    private final GradeManager gradeManager;
+    private final WarningRule[] rules;
+    private final boolean needsGpa;
+    private final List<Set<String>> warned = new ArrayList<>(); // 与rules按下标对应
+    private final Map<String, StudentState> states = new ConcurrentHashMap<>();
+    private volatile WarningListener[] listeners = new WarningListener[0];
+
+    /**
+     * @param gradeManager 成绩管理类
+     * @param rules 预警规则，名称不能重复
+     */
+    public AcademicWarningEngine(GradeManager gradeManager, WarningRule... rules) {
+        this(gradeManager, Arrays.asList(rules));
+    }
+
+    /**
+     * @param gradeManager 成绩管理类
+     * @param rules 预警规则，名称不能重复
+     */
+    public AcademicWarningEngine(GradeManager gradeManager, List<WarningRule> rules) {
+        if (rules.isEmpty() || rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("规则数必须在1到" + MAX_RULES + "之间: " + rules.size());
+        }
+        boolean gpa = false;
+        for (int i = 0; i < rules.size(); i++) {
+            WarningRule rule = rules.get(i);
+            for (int j = 0; j < i; j++) {
+                if (rules.get(j).getName().equals(rule.getName())) {
+                    throw new IllegalArgumentException("规则名称重复: " + rule.getName());
+                }
+            }
+            gpa |= rule.getMetric() == WarningRule.Metric.GPA;
+            warned.add(ConcurrentHashMap.newKeySet());
+        }
+        this.gradeManager = gradeManager;
+        this.rules = rules.toArray(new WarningRule[0]);
+        this.needsGpa = gpa;
+
+        gradeManager.forEachGrade((studentId, courseId, grade) ->
+                states.computeIfAbsent(studentId, k -> new StudentState()).add(grade));
+        states.forEach((studentId, state) -> {
+            synchronized (state) {
+                evaluate(studentId, state);
+            }
+        });
+        gradeManager.addEventSink(this);
+    }
+
+    /**
+     * 从成绩管理类上注销，之后预警状态不再更新
+     */
+    @Override
+    public void close() {
+        gradeManager.removeEventSink(this);
+    }
+
+    /**
+     * @param listener 预警状态变化回调
+     */
+    public synchronized void addListener(WarningListener listener) {
+        WarningListener[] current = listeners;
+        WarningListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    /**
+     * @param listener 预警状态变化回调
+     */
+    public synchronized void removeListener(WarningListener listener) {
+        WarningListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                WarningListener[] next = new WarningListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 预警规则
+     */
+    public List<WarningRule> getRules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    /**
+     * 查询某条规则当前的预警学生
+     * 返回只读视图，随成绩变化同步更新
+     * @param ruleName 规则名称
+     * @return 学号集合
+     * @throws IllegalArgumentException 规则不存在
+     */
+    public Set<String> getWarnedStudents(String ruleName) {
+        return Collections.unmodifiableSet(warned.get(indexOf(ruleName)));
+    }
+
+    /**
+     * 查询学生当前触发的规则
+     * @param studentId 学号
+     * @return 规则列表，未预警时为空
+     */
+    public List<WarningRule> getWarnings(String studentId) {
+        List<WarningRule> result = new ArrayList<>();
+        StudentState state = states.get(studentId);
+        if (state == null) {
+            return result;
+        }
+        long flags;
+        synchronized (state) {
+            flags = state.flags;
+        }
+        for (int i = 0; i < rules.length; i++) {
+            if ((flags & (1L << i)) != 0) {
+                result.add(rules[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param studentId 学号
+     * @return 不及格课程数
+     */
+    public int getFailedCourses(String studentId) {
+        StudentState state = states.get(studentId);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.failed;
+        }
+    }
+
+    @Override
+    public void gradeRecorded(String studentId, String courseId, double previous, double grade) {
+        while (true) {
+            StudentState state = states.computeIfAbsent(studentId, k -> new StudentState());
+            synchronized (state) {
+                if (state.retired) {
+                    continue; // 该状态已被并发移除，重新获取
+                }
+                if (!Double.isNaN(previous)) {
+                    state.remove(previous);
+                }
+                state.add(grade);
+                evaluate(studentId, state);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void gradeRemoved(String studentId, String courseId, double grade) {
+        StudentState state = states.get(studentId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.retired) {
+                return;
+            }
+            state.remove(grade);
+            evaluate(studentId, state);
+            if (state.count == 0) {
+                state.retired = true;
+                states.remove(studentId, state);
+            }
+        }
+    }
+
+    @Override
+    public void courseCreditChanged(String courseId, double previous, double credit) {
+        if (!needsGpa) {
+            return; // 其余规则与学分无关
+        }
+        // 回调时持有该课程的锁，与成绩事件相同，先课程锁后学生状态锁
+        gradeManager.forEachCourseGrade(courseId, (studentId, cid, grade) -> {
+            StudentState state = states.get(studentId);
+            if (state == null) {
+                return;
+            }
+            synchronized (state) {
+                if (!state.retired) {
+                    evaluate(studentId, state);
+                }
+            }
+        });
+    }
+
+    /**
+     * 重新判断学生的各条规则，状态变化时更新预警集合并回调，调用方须持有该学生状态的锁
+     */
+    private void evaluate(String studentId, StudentState state) {
+        double average = state.count > 0 ? state.sum / state.count : -1;
+        double gpa = needsGpa ? gradeManager.getGpa(studentId) : -1;
+        long flags = 0;
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].matches(state.failed, average, gpa)) {
+                flags |= 1L << i;
+            }
+        }
+        long changed = flags ^ state.flags;
+        if (changed == 0) {
+            return;
+        }
+        state.flags = flags;
+        WarningListener[] current = listeners;
+        for (int i = 0; i < rules.length; i++) {
+            if ((changed & (1L << i)) == 0) {
+                continue;
+            }
+            boolean raised = (flags & (1L << i)) != 0;
+            if (raised) {
+                warned.get(i).add(studentId);
+            } else {
+                warned.get(i).remove(studentId);
+            }
+            for (WarningListener listener : current) {
+                if (raised) {
+                    listener.warningRaised(studentId, rules[i]);
+                } else {
+                    listener.warningCleared(studentId, rules[i]);
+                }
+            }
+        }
+    }
+
+    private int indexOf(String ruleName) {
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].getName().equals(ruleName)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("预警规则不存在: " + ruleName);
+    }
+
+    /**
+     * 学生成绩累计量，以自身为锁；成绩删空后标记为retired并从映射表移除
+     */
+    private static class StudentState {
+        boolean retired;
+        int count;
+        double sum;
+        int failed;
+        long flags; // 按规则下标记录当前预警状态
+
+        void add(double grade) {
+            count++;
+            sum += grade;
+            if (grade < PASS_GRADE) {
+                failed++;
+            }
+        }
+
+        void remove(double grade) {
+            if (--count == 0) {
+                sum = 0; // 清零而不是相减，避免浮点误差累积
+            } else {
+                sum -= grade;
+            }
+            if (grade < PASS_GRADE) {
+                failed--;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.grademanagement.warning;
+
+/**
+ * 预警状态变化回调
+ * 在录入或删除成绩的线程上、该成绩的课程锁内同步调用，实现应尽快返回，
+ * 耗时的通知应交给其他线程处理
+ */
+public interface WarningListener {
+
+    /**
+     * 学生进入预警状态
+     * @param studentId 学号
+     * @param rule 触发的规则
+     */
+    void warningRaised(String studentId, WarningRule rule);
+
+    /**
+     * 学生解除预警状态
+     * @param studentId 学号
+     * @param rule 解除的规则
+     */
+    void warningCleared(String studentId, WarningRule rule);
+}
\ No newline at end of file
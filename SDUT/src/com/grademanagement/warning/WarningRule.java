@@ -0,0 +1,96 @@
+package com.grademanagement.warning;
+
+/**
+ * 学业预警规则
+ * 每条规则只看学生的一个累计指标和一个阈值，学生满足条件时处于预警状态
+ */
+public final class WarningRule {
+
+    /**
+     * 规则检查的指标
+     */
+    public enum Metric {
+        /** 不及格课程数，达到阈值时预警 */
+        FAILED_COURSES,
+        /** 平均成绩，低于阈值时预警 */
+        AVERAGE,
+        /** 学分加权GPA，低于阈值时预警；成绩管理类未绑定课程时不触发 */
+        GPA
+    }
+
+    private final String name;
+    private final Metric metric;
+    private final double threshold;
+
+    private WarningRule(String name, Metric metric, double threshold) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("规则名称不能为空");
+        }
+        if (Double.isNaN(threshold)) {
+            throw new IllegalArgumentException("规则阈值不能为NaN");
+        }
+        this.name = name;
+        this.metric = metric;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param name 规则名称
+     * @param count 不及格课程数达到该值时预警
+     */
+    public static WarningRule failedCourses(String name, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("不及格课程数阈值必须为正数: " + count);
+        }
+        return new WarningRule(name, Metric.FAILED_COURSES, count);
+    }
+
+    /**
+     * @param name 规则名称
+     * @param threshold 平均成绩低于该值时预警
+     */
+    public static WarningRule averageBelow(String name, double threshold) {
+        return new WarningRule(name, Metric.AVERAGE, threshold);
+    }
+
+    /**
+     * @param name 规则名称
+     * @param threshold GPA低于该值时预警
+     */
+    public static WarningRule gpaBelow(String name, double threshold) {
+        return new WarningRule(name, Metric.GPA, threshold);
+    }
+
+    /**
+     * @param failedCourses 不及格课程数
+     * @param average 平均成绩，无成绩时为-1
+     * @param gpa GPA，无法计算时为-1
+     * @return 是否处于预警状态
+     */
+    boolean matches(int failedCourses, double average, double gpa) {
+        switch (metric) {
+            case FAILED_COURSES:
+                return failedCourses >= threshold;
+            case AVERAGE:
+                return average >= 0 && average < threshold;
+            default:
+                return gpa >= 0 && gpa < threshold;
+        }
+    }
+
+    public String getName() { return name; }
+    public Metric getMetric() { return metric; }
+    public double getThreshold() { return threshold; }
+
+    @Override
+    public String toString() {
+        switch (metric) {
+            case FAILED_COURSES:
+                return name + "（不及格课程数≥" + (int) threshold + "）";
+            case AVERAGE:
+                return name + "（平均成绩<" + threshold + "）";
+            default:
+                return name + "（GPA<" + threshold + "）";
+        }
+    }
+}
\ No newline at end of file